@@ -0,0 +1,77 @@
+package eu.lestard.grid;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for computing generations of the "Game of Life" with the {@link CellularAutomaton}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CellularAutomatonBenchmark {
+
+    public enum States {
+        DEAD, ALIVE
+    }
+
+    @Param({"100", "500", "1000", "2000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private CellularAutomaton<States> gameOfLife;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        GridModel<States> gridModel = new GridModel<>();
+        gridModel.setDefaultState(States.DEAD);
+        gridModel.setNumberOfColumns(size);
+        gridModel.setNumberOfRows(size);
+
+        Random random = new Random(42);
+        gridModel.getCells().forEach(cell -> {
+            if (random.nextInt(4) == 0) {
+                cell.changeState(States.ALIVE);
+            }
+        });
+
+        gameOfLife = new CellularAutomaton<>(gridModel, Neighbourhood.moore().toroidal(), (state, neighbours) -> {
+            final int alive = neighbours.count(States.ALIVE);
+            if (alive == 3 || (alive == 2 && state == States.ALIVE)) {
+                return States.ALIVE;
+            }
+            return States.DEAD;
+        });
+        gameOfLife.setParallel(parallel);
+    }
+
+    /**
+     * Computes a generation and publishes it to the grid model.
+     */
+    @Benchmark
+    public long step() {
+        gameOfLife.step();
+        return gameOfLife.getGeneration();
+    }
+
+    /**
+     * Computes ten generations and publishes only the last one.
+     */
+    @Benchmark
+    public long stepTenGenerations() {
+        gameOfLife.step(10);
+        return gameOfLife.getGeneration();
+    }
+}
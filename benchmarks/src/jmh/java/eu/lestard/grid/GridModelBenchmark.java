@@ -0,0 +1,142 @@
+package eu.lestard.grid;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the hot paths of the {@link GridModel}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GridModelBenchmark {
+
+    public enum States {
+        EMPTY, FILLED
+    }
+
+    private static final int NUMBER_OF_COORDINATES = 1024;
+
+    @Param({"10", "100", "500", "1000", "2000"})
+    public int size;
+
+    private GridModel<States> gridModel;
+
+    private int[] columns;
+    private int[] rows;
+    private int next;
+
+    private boolean grown;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        gridModel = new GridModel<>();
+        gridModel.setDefaultState(States.EMPTY);
+        gridModel.setNumberOfColumns(size);
+        gridModel.setNumberOfRows(size);
+
+        Random random = new Random(42);
+
+        // every tenth cell is filled so that getCellsWithState has something to find.
+        gridModel.getCells().forEach(cell -> {
+            if (random.nextInt(10) == 0) {
+                cell.changeState(States.FILLED);
+            }
+        });
+
+        columns = new int[NUMBER_OF_COORDINATES];
+        rows = new int[NUMBER_OF_COORDINATES];
+        for (int i = 0; i < NUMBER_OF_COORDINATES; i++) {
+            columns[i] = random.nextInt(size);
+            rows[i] = random.nextInt(size);
+        }
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (NUMBER_OF_COORDINATES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public Cell<States> getCell() {
+        final int i = nextIndex();
+        return gridModel.getCell(columns[i], rows[i]);
+    }
+
+    @Benchmark
+    public List<Cell<States>> getNeighbours() {
+        final int i = nextIndex();
+        return gridModel.getNeighbours(columns[i], rows[i]);
+    }
+
+    @Benchmark
+    public List<Cell<States>> getCellsWithState() {
+        return gridModel.getCellsWithState(States.FILLED);
+    }
+
+    @Benchmark
+    public List<Cell<States>> getCellsOfRow() {
+        return gridModel.getCellsOfRow(rows[nextIndex()]);
+    }
+
+    @Benchmark
+    public List<Cell<States>> getCellsOfColumn() {
+        return gridModel.getCellsOfColumn(columns[nextIndex()]);
+    }
+
+    /**
+     * Adds or removes a single column on every invocation so that the size of the grid stays stable.
+     */
+    @Benchmark
+    public void resizeColumns() {
+        gridModel.setNumberOfColumns(grown ? size : size + 1);
+        grown = !grown;
+    }
+
+    /**
+     * Adds or removes a single row on every invocation so that the size of the grid stays stable.
+     */
+    @Benchmark
+    public void resizeRows() {
+        gridModel.setNumberOfRows(grown ? size : size + 1);
+        grown = !grown;
+    }
+
+    /**
+     * A fresh grid model without a default state for every invocation of {@link #setDefaultState(FreshModel)}.
+     */
+    @State(Scope.Thread)
+    public static class FreshModel {
+
+        @Param({"10", "100", "500", "1000", "2000"})
+        public int size;
+
+        GridModel<States> gridModel;
+
+        @Setup(Level.Invocation)
+        public void setup() {
+            gridModel = new GridModel<>();
+            gridModel.setNumberOfColumns(size);
+            gridModel.setNumberOfRows(size);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public void setDefaultState(FreshModel fresh, Blackhole blackhole) {
+        fresh.gridModel.setDefaultState(States.EMPTY);
+        blackhole.consume(fresh.gridModel);
+    }
+}
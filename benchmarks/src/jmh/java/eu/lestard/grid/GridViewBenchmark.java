@@ -0,0 +1,126 @@
+package eu.lestard.grid;
+
+import com.sun.javafx.application.PlatformImpl;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.paint.Color;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for changing the states of many cells while a {@link GridView} is attached to the grid model.
+ *
+ * The JavaFX toolkit is started without a display. The JVM arguments for the headless Monocle platform are
+ * configured in the build file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GridViewBenchmark {
+
+    public enum States {
+        EMPTY, FILLED
+    }
+
+    @Param({"10", "100", "500", "1000", "2000"})
+    public int size;
+
+    @Param({"NODES", "CANVAS", "VIRTUALIZED"})
+    public RenderMode renderMode;
+
+    private GridModel<States> gridModel;
+    private GridView<States> gridView;
+
+    private List<Cell<States>> cells;
+
+    private States nextState = States.FILLED;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        startToolkit();
+
+        runOnFxThread(() -> {
+            gridModel = new GridModel<>();
+            gridModel.setDefaultState(States.EMPTY);
+            gridModel.setNumberOfColumns(size);
+            gridModel.setNumberOfRows(size);
+
+            gridView = new GridView<>(renderMode);
+            gridView.addColorMapping(States.EMPTY, Color.WHITE);
+            gridView.addColorMapping(States.FILLED, Color.BLACK);
+            gridView.setGridModel(gridModel);
+
+            new Scene(gridView, 800, 800);
+            gridView.applyCss();
+            gridView.layout();
+            gridView.flushRepaint();
+
+            cells = gridModel.getCells();
+            return null;
+        });
+    }
+
+    /**
+     * Changes the state of all cells in a single update and renders the result.
+     */
+    @Benchmark
+    public GridView<States> changeStateOfAllCells() throws Exception {
+        return runOnFxThread(() -> {
+            final States state = nextState;
+            nextState = state == States.FILLED ? States.EMPTY : States.FILLED;
+
+            gridModel.update(() -> cells.forEach(cell -> cell.changeState(state)));
+            gridView.flushRepaint();
+            return gridView;
+        });
+    }
+
+    /**
+     * Changes the state of every tenth cell in a single update and renders the result.
+     */
+    @Benchmark
+    public GridView<States> changeStateOfSomeCells() throws Exception {
+        return runOnFxThread(() -> {
+            final States state = nextState;
+            nextState = state == States.FILLED ? States.EMPTY : States.FILLED;
+
+            gridModel.update(() -> {
+                for (int i = 0; i < cells.size(); i += 10) {
+                    cells.get(i).changeState(state);
+                }
+            });
+            gridView.flushRepaint();
+            return gridView;
+        });
+    }
+
+    private static void startToolkit() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        try {
+            PlatformImpl.startup(latch::countDown);
+        } catch (IllegalStateException e) {
+            // the toolkit was already started by a previous trial in the same JVM.
+            Platform.runLater(latch::countDown);
+        }
+        latch.await();
+    }
+
+    private static <T> T runOnFxThread(Callable<T> action) throws Exception {
+        FutureTask<T> task = new FutureTask<>(action);
+        Platform.runLater(task);
+        return task.get();
+    }
+}
@@ -372,25 +372,27 @@ public class World {
     }
 
 
-    public World clone(){
-        World clone = new World();
-
-        if(this.configurable){
-            clone.makeConfigurable();
-        }
+    /**
+     * Creates a copy of the given world. The states of the grid are taken from a snapshot instead of
+     * replaying the conditions. The condition listener is added after the conditions are copied so that
+     * the grid isn't touched while copying.
+     */
+    private World(World original) {
+        craneColumn = original.craneColumn;
+        configurable = original.configurable;
+
+        addableBlocks.addAll(original.addableBlocks);
+        conditions.addAll(original.conditions);
+        commands.addAll(original.commands);
 
-        clone.conditions.clear();
-        clone.conditions.addAll(this.conditions());
-
-        clone.commands.addAll(this.commands());
+        gridModel.setDefaultState(BlockStatus.EMPTY);
+        gridModel.restore(original.gridModel.snapshot());
 
-        this.getGridModel().getCells().forEach(cell->{
-            if(cell.getState() != BlockStatus.EMPTY){
-                clone.getGridModel().getCell(cell.getColumn(), cell.getRow()).changeState(cell.getState());
-            }
-        });
+        conditions.addListener(conditionListener);
+    }
 
-        return clone;
+    public World clone(){
+        return new World(this);
     }
 
     private Stream<OnTable> getOnTableStream(){
@@ -4,6 +4,7 @@ import de.hszg.intagent.blockworld.core.BlockStatus;
 import de.hszg.intagent.blockworld.core.World;
 import de.saxsys.mvvmfx.FxmlView;
 import de.saxsys.mvvmfx.InjectViewModel;
+import eu.lestard.grid.Cell;
 import eu.lestard.grid.GridView;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -24,6 +25,7 @@ import org.controlsfx.control.PopOver;
 
 import java.net.URL;
 import java.util.ResourceBundle;
+import java.util.function.BiFunction;
 
 public class WorldView implements FxmlView<WorldViewModel>, Initializable {
 
@@ -100,16 +102,16 @@ public class WorldView implements FxmlView<WorldViewModel>, Initializable {
         gridView.addColorMapping(BlockStatus.C, Color.YELLOWGREEN);
         gridView.addColorMapping(BlockStatus.D, Color.YELLOWGREEN);
 
-        gridView.addNodeMapping(BlockStatus.A, c -> createLabel(BlockStatus.A.name()));
-        gridView.addNodeMapping(BlockStatus.B, c -> createLabel(BlockStatus.B.name()));
-        gridView.addNodeMapping(BlockStatus.C, c -> createLabel(BlockStatus.C.name()));
-        gridView.addNodeMapping(BlockStatus.D, c -> createLabel(BlockStatus.D.name()));
+        gridView.addRecyclingNodeMapping(BlockStatus.A, reusableLabel(BlockStatus.A.name()));
+        gridView.addRecyclingNodeMapping(BlockStatus.B, reusableLabel(BlockStatus.B.name()));
+        gridView.addRecyclingNodeMapping(BlockStatus.C, reusableLabel(BlockStatus.C.name()));
+        gridView.addRecyclingNodeMapping(BlockStatus.D, reusableLabel(BlockStatus.D.name()));
     }
 
     private void initEditableWorld(GridView<BlockStatus> gridView, World world) {
         world.makeConfigurable();
-        gridView.addNodeMapping(BlockStatus.ADD_BUTTON, c -> createLabel("+"));
-        gridView.getGridModel().getCells().forEach(cell -> cell.setOnClick(event -> {
+        gridView.addRecyclingNodeMapping(BlockStatus.ADD_BUTTON, reusableLabel("+"));
+        world.getGridModel().getCells().forEach(cell -> cell.setOnClick(event -> {
             if (cell.getState() == BlockStatus.ADD_BUTTON) {
 
                 HBox buttons = new HBox();
@@ -143,6 +145,13 @@ public class WorldView implements FxmlView<WorldViewModel>, Initializable {
         }));
     }
 
+    /**
+     * The text of the labels only depends on the state, so a recycled label can be used as it is.
+     */
+    private BiFunction<Cell<BlockStatus>, Node, Node> reusableLabel(String txt) {
+        return (cell, recycledNode) -> recycledNode == null ? createLabel(txt) : recycledNode;
+    }
+
     private Node createLabel(String txt) {
 
         Text text = new Text();
@@ -11,6 +11,7 @@ import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
 
 import java.net.URL;
+import java.util.Map;
 
 public class App extends Application {
 
@@ -26,17 +27,36 @@ public class App extends Application {
 
         GridModel<States> gridModel = new GridModel<>();
 
+        // e.g. --size=19 --win=5 for gomoku, --computer=true to play against the computer
+        final Map<String, String> parameters = getParameters().getNamed();
+        final int size = Integer.parseInt(parameters.getOrDefault("size", "3"));
+        final int winLength = Integer.parseInt(parameters.getOrDefault("win", "3"));
+
         gridModel.setDefaultState(States.EMPTY);
-        gridModel.setNumberOfColumns(3);
-        gridModel.setNumberOfRows(3);
+        gridModel.setNumberOfColumns(size);
+        gridModel.setNumberOfRows(size);
 
         GridView<States> gridView = new GridView<>();
         gridView.setGridModel(gridModel);
 
-        gridView.setNodeFactory(cell ->
-                States.EMPTY == cell.getState() ? null : new Label(cell.getState().name()));
+        // the labels are reused when the state of a cell changes
+        gridView.setRecyclingNodeFactory((cell, recycledNode) -> {
+            if (States.EMPTY == cell.getState()) {
+                return null;
+            }
+
+            Label label = recycledNode == null ? new Label() : (Label) recycledNode;
+            label.setText(cell.getState().name());
+            return label;
+        });
 
-        GameLogic gameLogic = new GameLogic(gridModel);
+        GameLogic gameLogic = new GameLogic(gridModel, winLength);
+
+        if (Boolean.parseBoolean(parameters.get("computer"))) {
+            SearchEngine searchEngine = new SearchEngine(size, size, winLength);
+            searchEngine.setParallel(size * size > 100);
+            gameLogic.setComputerPlayer(searchEngine);
+        }
         gameLogic.start();
 
         StackPane stackPane = new StackPane();
@@ -0,0 +1,389 @@
+package eu.lestard.grid.tictactoe;
+
+import eu.lestard.grid.GridModel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A compact board for the {@link SearchEngine}. The stones of both players are stored as bits in two long arrays.
+ * <p>
+ * Besides the stones the board keeps everything the search needs after a move up to date:
+ * <ul>
+ *     <li>the zobrist hash of the position,</li>
+ *     <li>the number of stones of both players in every window of N cells in a row (a win is a window with N stones
+ *     of one player),</li>
+ *     <li>the static evaluation, which is the sum of the values of all windows that contain stones of only one
+ *     player.</li>
+ * </ul>
+ * A move only touches the up to 4*N windows that contain the cell of the move.
+ */
+final class Bitboard {
+
+    static final int X = 0;
+    static final int O = 1;
+
+    private static final int[][] DIRECTIONS = {{1, 0}, {0, 1}, {1, 1}, {1, -1}};
+
+    /**
+     * The value of a window with k stones of one player. Capped so that the sum of all windows stays far below
+     * the scores for won games.
+     */
+    private static final int[] WINDOW_VALUES = new int[32];
+
+    static {
+        for (int k = 1; k < WINDOW_VALUES.length; k++) {
+            WINDOW_VALUES[k] = 1 << Math.min(3 * k, 18);
+        }
+    }
+
+    private final Geometry geometry;
+
+    private final long[][] stones;
+
+    /**
+     * counts[player][window] is the number of stones of the player in the window.
+     */
+    private final int[][] counts;
+
+    private int numberOfStones;
+
+    private int sideToMove;
+
+    private long hash;
+
+    /**
+     * The evaluation from the point of view of X.
+     */
+    private long score;
+
+    Bitboard(int columns, int rows, int winLength) {
+        this(new Geometry(columns, rows, winLength));
+    }
+
+    private Bitboard(Geometry geometry) {
+        this.geometry = geometry;
+
+        final int words = (geometry.cells + 63) >>> 6;
+        stones = new long[][]{new long[words], new long[words]};
+        counts = new int[2][geometry.windows.length];
+    }
+
+    /**
+     * Creates an independent copy of this board, e.g. for another thread. The immutable geometry is shared.
+     */
+    Bitboard copy() {
+        final Bitboard copy = new Bitboard(geometry);
+
+        for (int player = X; player <= O; player++) {
+            System.arraycopy(stones[player], 0, copy.stones[player], 0, stones[player].length);
+            System.arraycopy(counts[player], 0, copy.counts[player], 0, counts[player].length);
+        }
+        copy.numberOfStones = numberOfStones;
+        copy.sideToMove = sideToMove;
+        copy.hash = hash;
+        copy.score = score;
+
+        return copy;
+    }
+
+    /**
+     * Replaces the position of this board with the states of the grid model.
+     *
+     * @param player the player that makes the next move.
+     */
+    void read(GridModel<States> gridModel, States player) {
+        for (int p = X; p <= O; p++) {
+            Arrays.fill(stones[p], 0);
+            Arrays.fill(counts[p], 0);
+        }
+        numberOfStones = 0;
+        hash = 0;
+        score = 0;
+
+        for (int row = 0; row < geometry.rows; row++) {
+            for (int column = 0; column < geometry.columns; column++) {
+                final States state = gridModel.getCell(column, row).getState();
+
+                if (state != States.EMPTY) {
+                    sideToMove = state == States.X ? X : O;
+                    make(row * geometry.columns + column);
+                }
+            }
+        }
+
+        sideToMove = player == States.X ? X : O;
+        hash = sideToMove == X ? hash & ~1L : hash | 1L;
+    }
+
+    /**
+     * Places a stone of the side to move on the given empty cell.
+     *
+     * @return <code>true</code> if the move wins the game.
+     */
+    boolean make(int cell) {
+        final int player = sideToMove;
+        boolean won = false;
+
+        for (int window : geometry.windowsOfCell[cell]) {
+            final int before = value(window);
+            if (++counts[player][window] == geometry.winLength) {
+                won = true;
+            }
+            score += value(window) - before;
+        }
+
+        stones[player][cell >>> 6] |= 1L << cell;
+        numberOfStones++;
+        hash ^= geometry.zobrist[player][cell] ^ 1L;
+        sideToMove = 1 - player;
+
+        return won;
+    }
+
+    /**
+     * Takes back the last move on the given cell.
+     */
+    void unmake(int cell) {
+        final int player = 1 - sideToMove;
+
+        for (int window : geometry.windowsOfCell[cell]) {
+            final int before = value(window);
+            counts[player][window]--;
+            score += value(window) - before;
+        }
+
+        stones[player][cell >>> 6] &= ~(1L << cell);
+        numberOfStones--;
+        hash ^= geometry.zobrist[player][cell] ^ 1L;
+        sideToMove = player;
+    }
+
+    private int value(int window) {
+        final int x = counts[X][window];
+        final int o = counts[O][window];
+
+        if (x > 0 && o > 0) {
+            return 0;
+        }
+
+        return x > 0 ? WINDOW_VALUES[x] : -WINDOW_VALUES[o];
+    }
+
+    /**
+     * The static evaluation from the point of view of the side to move.
+     */
+    int evaluate() {
+        final long clamped = Math.max(-SearchEngine.MAX_EVALUATION, Math.min(SearchEngine.MAX_EVALUATION, score));
+        return (int) (sideToMove == X ? clamped : -clamped);
+    }
+
+    /**
+     * An estimate how good a move on the given empty cell is, for move ordering. It is the sum of what the side to
+     * move gains in its own windows and what it takes away from the opponent by blocking its windows.
+     */
+    int moveValue(int cell) {
+        final int player = sideToMove;
+        final int opponent = 1 - player;
+
+        int value = 0;
+        for (int window : geometry.windowsOfCell[cell]) {
+            final int own = counts[player][window];
+            final int other = counts[opponent][window];
+
+            if (other == 0) {
+                value += WINDOW_VALUES[own + 1] - WINDOW_VALUES[own];
+            }
+            if (own == 0) {
+                value += WINDOW_VALUES[other + 1] - WINDOW_VALUES[other];
+            }
+        }
+        return value;
+    }
+
+    boolean isEmpty(int cell) {
+        final long bit = 1L << cell;
+        return ((stones[X][cell >>> 6] | stones[O][cell >>> 6]) & bit) == 0;
+    }
+
+    /**
+     * Writes the cells that are worth a move into the given array. On small boards these are all empty cells. On
+     * bigger boards only empty cells next to a stone are considered, as moves far away from all stones hardly ever
+     * matter.
+     *
+     * @return the number of moves.
+     */
+    int generateMoves(int[] moves) {
+        int count = 0;
+
+        if (geometry.cells <= Geometry.MAX_CELLS_FOR_ALL_MOVES) {
+            for (int cell = 0; cell < geometry.cells; cell++) {
+                if (isEmpty(cell)) {
+                    moves[count++] = cell;
+                }
+            }
+            return count;
+        }
+
+        if (numberOfStones == 0) {
+            // on an empty big board the center is as good as any other cell
+            moves[0] = geometry.center;
+            return 1;
+        }
+
+        for (int cell = 0; cell < geometry.cells; cell++) {
+            if (isEmpty(cell)) {
+                for (int neighbour : geometry.neighboursOfCell[cell]) {
+                    if (!isEmpty(neighbour)) {
+                        moves[count++] = cell;
+                        break;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    boolean isFull() {
+        return numberOfStones == geometry.cells;
+    }
+
+    int getNumberOfCells() {
+        return geometry.cells;
+    }
+
+    int getNumberOfEmptyCells() {
+        return geometry.cells - numberOfStones;
+    }
+
+    int getColumns() {
+        return geometry.columns;
+    }
+
+    long getHash() {
+        return hash;
+    }
+
+    int getNumberOfWindows() {
+        return geometry.windows.length;
+    }
+
+    /**
+     * @return the number of stones of the player in the window.
+     */
+    int countStones(int player, int window) {
+        return counts[player][window];
+    }
+
+    /**
+     * Everything that only depends on the size of the board and the win length. This is shared by all copies.
+     */
+    private static final class Geometry {
+
+        /**
+         * Boards up to this size are searched with all empty cells as moves.
+         */
+        private static final int MAX_CELLS_FOR_ALL_MOVES = 25;
+
+        private final int columns;
+        private final int rows;
+        private final int cells;
+        private final int winLength;
+        private final int center;
+
+        /**
+         * The cells of every window of N cells in a row.
+         */
+        private final int[][] windows;
+
+        private final int[][] windowsOfCell;
+
+        private final int[][] neighboursOfCell;
+
+        /**
+         * Random keys for every stone. The lowest bit is used for the side to move and is therefore always 0.
+         */
+        private final long[][] zobrist;
+
+        private Geometry(int columns, int rows, int winLength) {
+            if (columns < 1 || rows < 1) {
+                throw new IllegalArgumentException("The board needs at least one column and one row.");
+            }
+            if (winLength < 1 || winLength > Math.max(columns, rows) || winLength > WINDOW_VALUES.length - 2) {
+                throw new IllegalArgumentException("The win length has to be between 1 and "
+                    + Math.min(Math.max(columns, rows), WINDOW_VALUES.length - 2) + ".");
+            }
+            if ((long) columns * rows >= SearchEngine.NO_MOVE) {
+                throw new IllegalArgumentException("The board is too big.");
+            }
+
+            this.columns = columns;
+            this.rows = rows;
+            this.cells = columns * rows;
+            this.winLength = winLength;
+            this.center = (rows / 2) * columns + columns / 2;
+
+            final List<int[]> windowList = new ArrayList<>();
+            final List<List<Integer>> windowsOfCellList = new ArrayList<>();
+            for (int cell = 0; cell < cells; cell++) {
+                windowsOfCellList.add(new ArrayList<>());
+            }
+
+            for (int[] direction : DIRECTIONS) {
+                for (int row = 0; row < rows; row++) {
+                    for (int column = 0; column < columns; column++) {
+                        final int endColumn = column + direction[0] * (winLength - 1);
+                        final int endRow = row + direction[1] * (winLength - 1);
+
+                        if (endColumn < 0 || endColumn >= columns || endRow < 0 || endRow >= rows) {
+                            continue;
+                        }
+                        // a single cell is a window in every direction, count it only once
+                        if (winLength == 1 && direction != DIRECTIONS[0]) {
+                            continue;
+                        }
+
+                        final int[] window = new int[winLength];
+                        for (int i = 0; i < winLength; i++) {
+                            window[i] = (row + direction[1] * i) * columns + column + direction[0] * i;
+                            windowsOfCellList.get(window[i]).add(windowList.size());
+                        }
+                        windowList.add(window);
+                    }
+                }
+            }
+
+            windows = windowList.toArray(new int[windowList.size()][]);
+            windowsOfCell = new int[cells][];
+            neighboursOfCell = new int[cells][];
+
+            for (int cell = 0; cell < cells; cell++) {
+                windowsOfCell[cell] = windowsOfCellList.get(cell).stream().mapToInt(Integer::intValue).toArray();
+
+                final int column = cell % columns;
+                final int row = cell / columns;
+
+                final List<Integer> neighbours = new ArrayList<>();
+                for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+                    for (int c = Math.max(0, column - 1); c <= Math.min(columns - 1, column + 1); c++) {
+                        if (c != column || r != row) {
+                            neighbours.add(r * columns + c);
+                        }
+                    }
+                }
+                neighboursOfCell[cell] = neighbours.stream().mapToInt(Integer::intValue).toArray();
+            }
+
+            // a fixed seed makes searches reproducible
+            final SplittableRandom random = new SplittableRandom(cells * 31L + winLength);
+            zobrist = new long[2][cells];
+            for (int player = X; player <= O; player++) {
+                for (int cell = 0; cell < cells; cell++) {
+                    zobrist[player][cell] = random.nextLong() & ~1L;
+                }
+            }
+        }
+    }
+}
@@ -4,9 +4,6 @@ import eu.lestard.grid.Cell;
 import eu.lestard.grid.GridModel;
 import javafx.beans.property.*;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class GameLogic {
 
     private States currentTurn;
@@ -15,23 +12,54 @@ public class GameLogic {
 
     private ObjectProperty<States> winner = new SimpleObjectProperty<>();
 
+    private final int winLength;
+
+    private WinDetector winDetector;
+
+    private SearchEngine computerPlayer;
+
     public GameLogic(GridModel<States> gridModel){
+        this(gridModel, 3);
+    }
+
+    /**
+     * @param winLength the number of stones in a row that are needed to win.
+     */
+    public GameLogic(GridModel<States> gridModel, int winLength){
         this.gridModel = gridModel;
+        this.winLength = winLength;
     }
 
 
     public void start() {
         currentTurn = States.X;
+        winDetector = new WinDetector(gridModel.getNumberOfColumns(), gridModel.getNumberOfRows(), winLength);
+
+        gridModel.getCells().forEach(cell -> cell.setOnClick(event -> {
+            if(makeTurn(cell.getColumn(), cell.getRow()) && computerPlayer != null && winner.get() == null){
+                final States computer = currentTurn == States.X ? States.O : States.X;
+                final Cell<States> move = computerPlayer.findBestMove(gridModel, computer);
+                makeTurn(move.getColumn(), move.getRow());
+            }
+        }));
 
-        gridModel.getCells().forEach(cell -> cell.setOnClick(event -> makeTurn(cell.getColumn(),cell.getRow())));
 
+    }
 
+    /**
+     * Lets the computer answer every move of the human player. <code>null</code> means that two humans play.
+     */
+    public void setComputerPlayer(SearchEngine computerPlayer){
+        this.computerPlayer = computerPlayer;
     }
 
-    private void makeTurn(int column, int row){
+    /**
+     * @return <code>true</code> if the move was made.
+     */
+    private boolean makeTurn(int column, int row){
         final Cell<States> cell = gridModel.getCell(column, row);
 
-        if(cell.getState() == States.EMPTY){
+        if(winner.get() == null && cell.getState() == States.EMPTY){
             if(currentTurn == States.X){
                 currentTurn = States.O;
             }else{
@@ -39,73 +67,23 @@ public class GameLogic {
             }
 
             cell.changeState(currentTurn);
-            checkWin();
+            checkWin(column, row);
+            return true;
         }
+        return false;
     }
 
-    private void checkWin(){
-
-        List<Cell<States>> diagonalOne = new ArrayList<>();
-        diagonalOne.add(gridModel.getCell(0,0));
-        diagonalOne.add(gridModel.getCell(1,1));
-        diagonalOne.add(gridModel.getCell(2,2));
-
-        if(checkCellList(diagonalOne)){
-            return;
-        }
-
-
-
-        List<Cell<States>> diagonalTwo = new ArrayList<>();
-        diagonalTwo.add(gridModel.getCell(2,0));
-        diagonalTwo.add(gridModel.getCell(1,1));
-        diagonalTwo.add(gridModel.getCell(0,2));
-
-        if(checkCellList(diagonalTwo)){
+    private void checkWin(int column, int row){
+        if(winDetector.place(column, row, currentTurn)){
+            winner.set(currentTurn);
             return;
         }
 
-        for(int number = 0; number<3 ; number++){
-            final List<Cell<States>> row = gridModel.getCellsOfRow(number);
-
-            if(checkCellList(row)){
-                return;
-            }
-
-
-            final List<Cell<States>> column = gridModel.getCellsOfColumn(number);
-
-            if(checkCellList(column)){
-                return;
-            }
-        }
-
-
-        if(gridModel.getCellsWithState(States.EMPTY).isEmpty()){
+        if(winDetector.isBoardFull()){
             winner.set(States.EMPTY);
         }
     }
 
-    private boolean checkCellList(List<Cell<States>> cells){
-        if(threeOfTheSameKind(cells, States.O)){
-            winner.set(States.O);
-            return true;
-        }
-
-        if(threeOfTheSameKind(cells, States.X)){
-            winner.set(States.X);
-            return true;
-        }
-
-        return false;
-    }
-
-
-    private boolean threeOfTheSameKind(List<Cell<States>> cells, States state){
-        return cells.stream().filter(cell->cell.getState().equals(state)).count() == 3;
-    }
-
-
     public ReadOnlyObjectProperty<States> winnerProperty(){
         return winner;
     }
@@ -0,0 +1,509 @@
+package eu.lestard.grid.tictactoe;
+
+import eu.lestard.grid.Cell;
+import eu.lestard.grid.GridModel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A computer opponent for N-in-a-row games. It finds moves with an alpha-beta search in negamax form.
+ * <p>
+ * The position is read from the grid model into a compact {@link Bitboard}. The search deepens iteratively until the
+ * time budget (see {@link #setTimeBudget(long)}) is used up and returns the best move of the deepest finished
+ * iteration. Results are kept in a transposition table that is indexed by the zobrist hash of the position and
+ * survives between the iterations and between moves. The move from the table is searched first, the other moves
+ * are ordered by how much they extend own lines or block lines of the opponent.
+ * <p>
+ * On bigger boards the root moves can be searched in parallel (see {@link #setParallel(boolean)}). The first root
+ * move is searched alone to get a good lower bound, after that all other root moves are searched by the
+ * {@link GridModel#getForkJoinPool() fork join pool} of the grid model. All threads share the transposition table.
+ */
+public class SearchEngine {
+
+    static final int NO_MOVE = 0xFFFF;
+
+    static final int WIN = 1_000_000_000;
+
+    static final int MAX_EVALUATION = WIN / 2;
+
+    private static final int INFINITY = WIN + 1;
+
+    /**
+     * Scores above this are wins, the difference to {@link #WIN} is the number of moves until the win.
+     */
+    private static final int MIN_WIN = WIN - NO_MOVE;
+
+    /**
+     * The transposition table stores the depth in 8 bits.
+     */
+    private static final int MAX_DEPTH = 255;
+
+    /**
+     * Leaves some time for reading the board and for the last node checks, so that a move takes less than 100 ms.
+     */
+    private static final long DEFAULT_TIME_BUDGET = 90;
+
+    private static final int TABLE_SIZE_IN_BITS = 18;
+
+    /**
+     * The time is checked every 2^n nodes.
+     */
+    private static final int TIME_CHECK_INTERVAL_MASK = (1 << 7) - 1;
+
+    private final Bitboard board;
+
+    private final TranspositionTable table = new TranspositionTable(TABLE_SIZE_IN_BITS);
+
+    private long timeBudget = DEFAULT_TIME_BUDGET;
+
+    private boolean parallel = false;
+
+    private int maxDepth = MAX_DEPTH;
+
+    private volatile boolean aborted;
+
+    private long deadline;
+
+    private final AtomicLong numberOfNodes = new AtomicLong();
+
+    private int lastDepth;
+
+    private int lastScore;
+
+    public SearchEngine(int columns, int rows, int winLength) {
+        board = new Bitboard(columns, rows, winLength);
+    }
+
+    /**
+     * Searches the best move for the given player in the current position of the grid model.
+     *
+     * @throws IllegalArgumentException if the size of the grid doesn't fit to this engine.
+     * @throws IllegalStateException if there is no empty cell left.
+     */
+    public Cell<States> findBestMove(GridModel<States> gridModel, States player) {
+        if (player == States.EMPTY) {
+            throw new IllegalArgumentException("The player has to be X or O.");
+        }
+        if (gridModel.getNumberOfColumns() * gridModel.getNumberOfRows() != board.getNumberOfCells()
+            || gridModel.getNumberOfColumns() != board.getColumns()) {
+            throw new IllegalArgumentException("The grid has a different size than the board of the search engine.");
+        }
+
+        board.read(gridModel, player);
+        if (board.isFull()) {
+            throw new IllegalStateException("There is no empty cell left.");
+        }
+
+        final int move = search(gridModel.getForkJoinPool());
+
+        return gridModel.getCell(move % board.getColumns(), move / board.getColumns());
+    }
+
+    private int search(ForkJoinPool pool) {
+        final long start = System.nanoTime();
+        deadline = start + timeBudget * 1_000_000;
+        aborted = false;
+        numberOfNodes.set(0);
+        lastDepth = 0;
+
+        final int[] moves = new int[board.getNumberOfCells()];
+        final int numberOfMoves = board.generateMoves(moves);
+        final int[] rootMoves = new int[numberOfMoves];
+        System.arraycopy(moves, 0, rootMoves, 0, numberOfMoves);
+
+        final Searcher searcher = new Searcher(board);
+        searcher.orderMoves(rootMoves, numberOfMoves, NO_MOVE, 0);
+
+        int bestMove = rootMoves[0];
+        lastScore = 0;
+
+        if (numberOfMoves == 1) {
+            return bestMove;
+        }
+
+        final int lastIteration = Math.min(board.getNumberOfEmptyCells(), maxDepth);
+        for (int depth = 1; depth <= lastIteration; depth++) {
+            final long result = parallel ? searchRootInParallel(pool, searcher, rootMoves, depth) : searchRoot(searcher, rootMoves, depth);
+
+            if (aborted) {
+                break;
+            }
+
+            bestMove = (int) (result >>> 32);
+            lastScore = (int) result;
+            lastDepth = depth;
+
+            // the best move of this iteration is searched first in the next one
+            for (int i = 0; i < rootMoves.length; i++) {
+                if (rootMoves[i] == bestMove) {
+                    System.arraycopy(rootMoves, 0, rootMoves, 1, i);
+                    rootMoves[0] = bestMove;
+                    break;
+                }
+            }
+
+            if (Math.abs(lastScore) >= MIN_WIN) {
+                // the game is decided, deeper searches can't change anything
+                break;
+            }
+
+            // the next iteration takes several times as long as this one and would hardly ever be finished
+            if (System.nanoTime() - start > timeBudget * 500_000) {
+                break;
+            }
+        }
+
+        return bestMove;
+    }
+
+    /**
+     * @return the best move in the upper 32 bits and its score in the lower 32 bits.
+     */
+    private long searchRoot(Searcher searcher, int[] rootMoves, int depth) {
+        int alpha = -INFINITY;
+        int bestMove = rootMoves[0];
+
+        for (int move : rootMoves) {
+            final int score = searcher.searchMove(move, depth, alpha);
+
+            if (aborted) {
+                break;
+            }
+
+            if (score > alpha) {
+                alpha = score;
+                bestMove = move;
+            }
+        }
+
+        searcher.flushNodes();
+        return ((long) bestMove << 32) | (alpha & 0xFFFFFFFFL);
+    }
+
+    private long searchRootInParallel(ForkJoinPool pool, Searcher searcher, int[] rootMoves, int depth) {
+        // the first move is searched alone so that all other moves can be searched with a good bound
+        final int firstScore = searcher.searchMove(rootMoves[0], depth, -INFINITY);
+        searcher.flushNodes();
+
+        if (aborted) {
+            return 0;
+        }
+
+        final AtomicInteger alpha = new AtomicInteger(firstScore);
+        final int[] scores = new int[rootMoves.length];
+        final int[] bounds = new int[rootMoves.length];
+        scores[0] = firstScore;
+        bounds[0] = -INFINITY;
+
+        final List<RootMoveTask> tasks = new ArrayList<>();
+        for (int i = 1; i < rootMoves.length; i++) {
+            tasks.add(new RootMoveTask(rootMoves, i, depth, alpha, scores, bounds));
+        }
+
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+
+        final int bestIndex = selectBestRootMove(scores, bounds);
+
+        return ((long) rootMoves[bestIndex] << 32) | (scores[bestIndex] & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Selects the best of the root moves that were searched in parallel.
+     * <p>
+     * A score that isn't above the bound at the start of its search is only an upper bound of the real score, even if
+     * it is equal to the best exact score. Only exact scores can be the best. The first move is always searched with
+     * an open window, so its score is exact.
+     *
+     * @return the index of the best move.
+     */
+    static int selectBestRootMove(int[] scores, int[] bounds) {
+        int bestIndex = 0;
+        for (int i = 1; i < scores.length; i++) {
+            if (scores[i] > bounds[i] && scores[i] > scores[bestIndex]) {
+                bestIndex = i;
+            }
+        }
+        return bestIndex;
+    }
+
+    /**
+     * The search time in milliseconds per move. The default is 90 ms.
+     */
+    public void setTimeBudget(long timeBudget) {
+        if (timeBudget < 1) {
+            throw new IllegalArgumentException("The time budget has to be at least 1 ms.");
+        }
+        this.timeBudget = timeBudget;
+    }
+
+    public long getTimeBudget() {
+        return timeBudget;
+    }
+
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Forgets all results of previous searches.
+     */
+    public void clear() {
+        table.clear();
+    }
+
+    /**
+     * Limits the depth of the iterative deepening, e.g. to compare searches of a fixed depth.
+     */
+    void setMaxDepth(int maxDepth) {
+        this.maxDepth = Math.max(1, Math.min(MAX_DEPTH, maxDepth));
+    }
+
+    /**
+     * @return the depth of the last finished iteration of the last search.
+     */
+    int getLastDepth() {
+        return lastDepth;
+    }
+
+    /**
+     * @return the score of the last search from the point of view of the player that moved.
+     */
+    int getLastScore() {
+        return lastScore;
+    }
+
+    long getNumberOfNodes() {
+        return numberOfNodes.get();
+    }
+
+    private class RootMoveTask extends RecursiveAction {
+
+        private final int[] rootMoves;
+        private final int index;
+        private final int depth;
+        private final AtomicInteger alpha;
+        private final int[] scores;
+        private final int[] bounds;
+
+        private RootMoveTask(int[] rootMoves, int index, int depth, AtomicInteger alpha, int[] scores, int[] bounds) {
+            this.rootMoves = rootMoves;
+            this.index = index;
+            this.depth = depth;
+            this.alpha = alpha;
+            this.scores = scores;
+            this.bounds = bounds;
+        }
+
+        @Override
+        protected void compute() {
+            final Searcher searcher = new Searcher(board.copy());
+
+            final int bound = alpha.get();
+            final int score = searcher.searchMove(rootMoves[index], depth, bound);
+            searcher.flushNodes();
+
+            scores[index] = score;
+            bounds[index] = bound;
+            alpha.accumulateAndGet(score, Math::max);
+        }
+    }
+
+    /**
+     * The search on one board. Every thread has its own searcher.
+     */
+    private class Searcher {
+
+        private final Bitboard board;
+
+        /**
+         * Moves and their ordering values for every ply, allocated when the search gets that deep.
+         */
+        private final int[][] moves;
+        private final int[][] values;
+
+        private long nodes;
+
+        private Searcher(Bitboard board) {
+            this.board = board;
+
+            moves = new int[board.getNumberOfCells() + 1][];
+            values = new int[board.getNumberOfCells() + 1][];
+        }
+
+        /**
+         * Searches a root move.
+         *
+         * @return the score of the move or something below alpha if the move isn't better than alpha.
+         */
+        private int searchMove(int move, int depth, int alpha) {
+            final int score;
+            if (board.make(move)) {
+                score = WIN - 1;
+            } else {
+                score = -negamax(depth - 1, -INFINITY, -alpha, 1);
+            }
+            board.unmake(move);
+
+            return score;
+        }
+
+        private int negamax(int depth, int alpha, int beta, int ply) {
+            if ((++nodes & TIME_CHECK_INTERVAL_MASK) == 0 && System.nanoTime() > deadline) {
+                aborted = true;
+            }
+            if (aborted) {
+                return 0;
+            }
+
+            if (board.isFull()) {
+                return 0;
+            }
+            if (depth == 0) {
+                return board.evaluate();
+            }
+
+            final int originalAlpha = alpha;
+            final long hash = board.getHash();
+
+            int tableMove = NO_MOVE;
+            final long entry = table.probe(hash);
+            if (entry != 0) {
+                tableMove = TranspositionTable.move(entry);
+
+                if (TranspositionTable.depth(entry) >= depth) {
+                    final int score = fromTable(TranspositionTable.score(entry), ply);
+
+                    switch (TranspositionTable.flag(entry)) {
+                        case TranspositionTable.EXACT:
+                            return score;
+                        case TranspositionTable.LOWER_BOUND:
+                            alpha = Math.max(alpha, score);
+                            break;
+                        case TranspositionTable.UPPER_BOUND:
+                            beta = Math.min(beta, score);
+                            break;
+                    }
+
+                    if (alpha >= beta) {
+                        return score;
+                    }
+                }
+            }
+
+            if (moves[ply] == null) {
+                moves[ply] = new int[board.getNumberOfCells()];
+                values[ply] = new int[board.getNumberOfCells()];
+            }
+            final int[] plyMoves = moves[ply];
+            final int numberOfMoves = board.generateMoves(plyMoves);
+            orderMoves(plyMoves, numberOfMoves, tableMove, ply);
+
+            int best = -INFINITY;
+            int bestMove = NO_MOVE;
+
+            for (int i = 0; i < numberOfMoves; i++) {
+                final int move = plyMoves[i];
+
+                final int score;
+                if (board.make(move)) {
+                    score = WIN - ply - 1;
+                } else {
+                    score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+                }
+                board.unmake(move);
+
+                if (aborted) {
+                    return 0;
+                }
+
+                if (score > best) {
+                    best = score;
+                    bestMove = move;
+                }
+                if (best > alpha) {
+                    alpha = best;
+                }
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+
+            final int flag = best <= originalAlpha ? TranspositionTable.UPPER_BOUND
+                : best >= beta ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT;
+            table.store(hash, depth, flag, toTable(best, ply), bestMove);
+
+            return best;
+        }
+
+        /**
+         * Sorts the moves by their ordering value, the move from the transposition table first.
+         */
+        private void orderMoves(int[] moves, int numberOfMoves, int tableMove, int ply) {
+            if (values[ply] == null) {
+                values[ply] = new int[board.getNumberOfCells()];
+            }
+            final int[] plyValues = values[ply];
+
+            for (int i = 0; i < numberOfMoves; i++) {
+                plyValues[i] = moves[i] == tableMove ? Integer.MAX_VALUE : board.moveValue(moves[i]);
+            }
+
+            // insertion sort, the lists are short
+            for (int i = 1; i < numberOfMoves; i++) {
+                final int move = moves[i];
+                final int value = plyValues[i];
+
+                int j = i - 1;
+                while (j >= 0 && plyValues[j] < value) {
+                    moves[j + 1] = moves[j];
+                    plyValues[j + 1] = plyValues[j];
+                    j--;
+                }
+                moves[j + 1] = move;
+                plyValues[j + 1] = value;
+            }
+        }
+
+        private void flushNodes() {
+            numberOfNodes.addAndGet(nodes);
+            nodes = 0;
+        }
+    }
+
+    /**
+     * Win scores depend on the distance to the root. The table stores them relative to the position instead.
+     */
+    private static int toTable(int score, int ply) {
+        if (score >= MIN_WIN) {
+            return score + ply;
+        }
+        if (score <= -MIN_WIN) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MIN_WIN) {
+            return score - ply;
+        }
+        if (score <= -MIN_WIN) {
+            return score + ply;
+        }
+        return score;
+    }
+}
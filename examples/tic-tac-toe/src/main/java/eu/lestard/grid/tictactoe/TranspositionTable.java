@@ -0,0 +1,68 @@
+package eu.lestard.grid.tictactoe;
+
+import java.util.Arrays;
+
+/**
+ * A hash table for search results, indexed by the zobrist hash of a position.
+ * <p>
+ * Every entry is stored in two longs: the data and the key xor the data. A reader accepts an entry only if both
+ * longs fit to each other. This way threads can share the table without locks: an entry that is torn by
+ * concurrent writes is simply not found.
+ */
+final class TranspositionTable {
+
+    static final int EXACT = 0;
+    static final int LOWER_BOUND = 1;
+    static final int UPPER_BOUND = 2;
+
+    private final long[] entries;
+
+    private final int mask;
+
+    /**
+     * @param sizeInBits the table has 2^sizeInBits entries of 16 bytes.
+     */
+    TranspositionTable(int sizeInBits) {
+        entries = new long[2 << sizeInBits];
+        mask = (1 << sizeInBits) - 1;
+    }
+
+    /**
+     * @return the data of the entry for the hash or 0 if there is none. Use the static accessors to read the data.
+     */
+    long probe(long hash) {
+        final int index = ((int) (hash ^ (hash >>> 32)) & mask) << 1;
+
+        final long data = entries[index + 1];
+        return (entries[index] ^ data) == hash && data != 0 ? data : 0;
+    }
+
+    void store(long hash, int depth, int flag, int score, int move) {
+        final int index = ((int) (hash ^ (hash >>> 32)) & mask) << 1;
+
+        final long data = ((long) score << 32) | ((long) (move & 0xFFFF) << 16) | ((depth & 0xFF) << 8) | (flag << 1) | 1;
+
+        entries[index] = hash ^ data;
+        entries[index + 1] = data;
+    }
+
+    void clear() {
+        Arrays.fill(entries, 0);
+    }
+
+    static int score(long data) {
+        return (int) (data >> 32);
+    }
+
+    static int move(long data) {
+        return (int) (data >>> 16) & 0xFFFF;
+    }
+
+    static int depth(long data) {
+        return (int) (data >>> 8) & 0xFF;
+    }
+
+    static int flag(long data) {
+        return (int) (data >>> 1) & 0x3;
+    }
+}
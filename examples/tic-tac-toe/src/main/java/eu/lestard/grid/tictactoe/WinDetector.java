@@ -0,0 +1,158 @@
+package eu.lestard.grid.tictactoe;
+
+import java.util.Arrays;
+
+/**
+ * Detects N-in-a-row wins on a board of any size.
+ * <p>
+ * Only the four lines through the last placed stone can contain a new win, so a move only looks at these lines.
+ * For every line direction the length of each run of stones of one player is stored at both ends of the run. A new
+ * stone joins the runs that end next to it, which means that a move takes constant time independent of the size
+ * of the board and of N. The number of empty cells is counted down with every move instead of scanning the board.
+ */
+public class WinDetector {
+
+    /**
+     * The four line directions (horizontal, vertical and the two diagonals) as column and row steps.
+     */
+    private static final int[][] DIRECTIONS = {{1, 0}, {0, 1}, {1, 1}, {1, -1}};
+
+    private final int columns;
+    private final int rows;
+    private final int winLength;
+
+    private final States[] board;
+
+    /**
+     * runs[direction][position] is the length of the run in this direction if the position is one of the ends of
+     * the run. For positions inside of a run the value is outdated and must not be used.
+     */
+    private final int[][] runs;
+
+    private int numberOfEmptyCells;
+
+    private States winner;
+
+    public WinDetector(int columns, int rows, int winLength) {
+        if (columns < 1 || rows < 1) {
+            throw new IllegalArgumentException("The board needs at least one column and one row.");
+        }
+        if (winLength < 1 || winLength > Math.max(columns, rows)) {
+            throw new IllegalArgumentException("The win length has to be between 1 and " + Math.max(columns, rows) + ".");
+        }
+
+        this.columns = columns;
+        this.rows = rows;
+        this.winLength = winLength;
+
+        board = new States[columns * rows];
+        runs = new int[DIRECTIONS.length][columns * rows];
+
+        reset();
+    }
+
+    /**
+     * Removes all stones from the board.
+     */
+    public void reset() {
+        Arrays.fill(board, States.EMPTY);
+        for (int[] run : runs) {
+            Arrays.fill(run, 0);
+        }
+        numberOfEmptyCells = board.length;
+        winner = null;
+    }
+
+    /**
+     * Places a stone of the given player on an empty cell.
+     *
+     * @return <code>true</code> if this stone completes a line of at least N stones of the player.
+     */
+    public boolean place(int column, int row, States player) {
+        if (player == States.EMPTY) {
+            throw new IllegalArgumentException("Only stones of X or O can be placed.");
+        }
+
+        final int position = position(column, row);
+        if (board[position] != States.EMPTY) {
+            throw new IllegalStateException("The cell [" + column + "," + row + "] is already occupied.");
+        }
+
+        board[position] = player;
+        numberOfEmptyCells--;
+
+        boolean won = false;
+
+        for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+            final int columnStep = DIRECTIONS[direction][0];
+            final int rowStep = DIRECTIONS[direction][1];
+
+            final int before = runLength(direction, column - columnStep, row - rowStep, player);
+            final int after = runLength(direction, column + columnStep, row + rowStep, player);
+
+            final int length = before + 1 + after;
+
+            // only the two ends of the joined run are updated
+            runs[direction][position(column - columnStep * before, row - rowStep * before)] = length;
+            runs[direction][position(column + columnStep * after, row + rowStep * after)] = length;
+
+            if (length >= winLength) {
+                won = true;
+            }
+        }
+
+        if (won && winner == null) {
+            winner = player;
+        }
+
+        return won;
+    }
+
+    /**
+     * The length of the run of the given player that ends at the given cell. As the cell is next to a cell that
+     * was empty up to now it is always an end of its run.
+     */
+    private int runLength(int direction, int column, int row, States player) {
+        if (column < 0 || column >= columns || row < 0 || row >= rows) {
+            return 0;
+        }
+
+        final int position = position(column, row);
+        return board[position] == player ? runs[direction][position] : 0;
+    }
+
+    private int position(int column, int row) {
+        return row * columns + column;
+    }
+
+    public States getState(int column, int row) {
+        return board[position(column, row)];
+    }
+
+    /**
+     * @return the player that completed the first line or <code>null</code> if nobody has won yet.
+     */
+    public States getWinner() {
+        return winner;
+    }
+
+    public int getNumberOfEmptyCells() {
+        return numberOfEmptyCells;
+    }
+
+    public boolean isBoardFull() {
+        return numberOfEmptyCells == 0;
+    }
+
+    public int getNumberOfColumns() {
+        return columns;
+    }
+
+    public int getNumberOfRows() {
+        return rows;
+    }
+
+    public int getWinLength() {
+        return winLength;
+    }
+}
@@ -0,0 +1,134 @@
+package eu.lestard.grid.tictactoe;
+
+import eu.lestard.grid.GridModel;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class BitboardTest {
+
+    private static int[] snapshotCounts(Bitboard board) {
+        final int[] counts = new int[2 * board.getNumberOfWindows()];
+        for (int window = 0; window < board.getNumberOfWindows(); window++) {
+            counts[2 * window] = board.countStones(Bitboard.X, window);
+            counts[2 * window + 1] = board.countStones(Bitboard.O, window);
+        }
+        return counts;
+    }
+
+    @Test
+    public void testUnmakeRestoresThePosition(){
+        Bitboard board = new Bitboard(9, 7, 4);
+        Random random = new Random(11);
+
+        List<Integer> cells = new ArrayList<>();
+        for (int cell = 0; cell < board.getNumberOfCells(); cell++) {
+            cells.add(cell);
+        }
+        Collections.shuffle(cells, random);
+
+        final List<Long> hashes = new ArrayList<>();
+        final List<Integer> evaluations = new ArrayList<>();
+        final List<int[]> counts = new ArrayList<>();
+
+        for (int cell : cells) {
+            hashes.add(board.getHash());
+            evaluations.add(board.evaluate());
+            counts.add(snapshotCounts(board));
+
+            board.make(cell);
+            assertThat(board.isEmpty(cell)).isFalse();
+        }
+        assertThat(board.isFull()).isTrue();
+
+        for (int i = cells.size() - 1; i >= 0; i--) {
+            board.unmake(cells.get(i));
+
+            assertThat(board.isEmpty(cells.get(i))).isTrue();
+            assertThat(board.getHash()).isEqualTo(hashes.get(i));
+            assertThat(board.evaluate()).isEqualTo(evaluations.get(i));
+            assertThat(snapshotCounts(board)).isEqualTo(counts.get(i));
+        }
+
+        assertThat(board.getNumberOfEmptyCells()).isEqualTo(63);
+        assertThat(board.getHash()).isEqualTo(0);
+        assertThat(board.evaluate()).isEqualTo(0);
+    }
+
+    @Test
+    public void testMakeDetectsWins(){
+        Bitboard board = new Bitboard(5, 5, 3);
+
+        // X: (0,0), O: (4,4), X: (1,1), O: (4,3), X: (2,2) wins diagonally
+        assertThat(board.make(0)).isFalse();
+        assertThat(board.make(24)).isFalse();
+        assertThat(board.make(6)).isFalse();
+        assertThat(board.make(19)).isFalse();
+        assertThat(board.make(12)).isTrue();
+    }
+
+    @Test
+    public void testHashDependsOnThePositionOnly(){
+        Bitboard first = new Bitboard(4, 4, 3);
+        first.make(0);
+        first.make(5);
+        first.make(10);
+        first.make(15);
+
+        Bitboard second = new Bitboard(4, 4, 3);
+        second.make(10);
+        second.make(15);
+        second.make(0);
+        second.make(5);
+
+        assertThat(second.getHash()).isEqualTo(first.getHash());
+        assertThat(second.evaluate()).isEqualTo(first.evaluate());
+
+        // the same stones with the other player to move
+        Bitboard third = first.copy();
+        third.make(1);
+        third.unmake(1);
+        assertThat(third.getHash()).isEqualTo(first.getHash());
+
+        GridModel<States> gridModel = new GridModel<>();
+        gridModel.setDefaultState(States.EMPTY);
+        gridModel.setNumberOfColumns(4);
+        gridModel.setNumberOfRows(4);
+        gridModel.getCell(0, 0).changeState(States.X);
+        gridModel.getCell(1, 1).changeState(States.O);
+        gridModel.getCell(2, 2).changeState(States.X);
+        gridModel.getCell(3, 3).changeState(States.O);
+
+        Bitboard read = new Bitboard(4, 4, 3);
+        read.read(gridModel, States.X);
+        assertThat(read.getHash()).isEqualTo(first.getHash());
+        assertThat(read.evaluate()).isEqualTo(first.evaluate());
+
+        read.read(gridModel, States.O);
+        assertThat(read.getHash()).isNotEqualTo(first.getHash());
+        assertThat(read.evaluate()).isEqualTo(-first.evaluate());
+    }
+
+    @Test
+    public void testMovesOnBigBoardsAreNextToStones(){
+        Bitboard board = new Bitboard(19, 19, 5);
+        int[] moves = new int[board.getNumberOfCells()];
+
+        // an empty board: only the center
+        assertThat(board.generateMoves(moves)).isEqualTo(1);
+        assertThat(moves[0]).isEqualTo(9 * 19 + 9);
+
+        board.make(0);
+        assertThat(board.generateMoves(moves)).isEqualTo(3);
+
+        // small boards: all empty cells
+        Bitboard small = new Bitboard(3, 3, 3);
+        small.make(0);
+        assertThat(small.generateMoves(new int[9])).isEqualTo(8);
+    }
+}
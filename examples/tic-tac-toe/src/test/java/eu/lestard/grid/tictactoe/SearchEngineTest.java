@@ -0,0 +1,179 @@
+package eu.lestard.grid.tictactoe;
+
+import eu.lestard.grid.Cell;
+import eu.lestard.grid.GridModel;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class SearchEngineTest {
+
+    private static GridModel<States> createBoard(String... rows) {
+        GridModel<States> gridModel = new GridModel<>();
+        gridModel.setDefaultState(States.EMPTY);
+        gridModel.setNumberOfColumns(rows[0].length());
+        gridModel.setNumberOfRows(rows.length);
+
+        for (int row = 0; row < rows.length; row++) {
+            for (int column = 0; column < rows[row].length(); column++) {
+                final char c = rows[row].charAt(column);
+                if (c != '.') {
+                    gridModel.getCell(column, row).changeState(c == 'X' ? States.X : States.O);
+                }
+            }
+        }
+        return gridModel;
+    }
+
+    @Test
+    public void testTakesAnImmediateWin(){
+        GridModel<States> gridModel = createBoard(
+            ".......",
+            ".XXX...",
+            ".......",
+            "..OOO..",
+            ".......",
+            ".......",
+            ".......");
+
+        SearchEngine engine = new SearchEngine(7, 7, 4);
+
+        // O could block X, but winning is better
+        Cell<States> move = engine.findBestMove(gridModel, States.O);
+        assertThat(move.getRow()).isEqualTo(3);
+        assertThat(move.getColumn()).isIn(1, 5);
+        assertThat(engine.getLastScore()).isEqualTo(SearchEngine.WIN - 1);
+    }
+
+    @Test
+    public void testBlocksAnImmediateLoss(){
+        GridModel<States> gridModel = createBoard(
+            ".......",
+            "OXXX...",
+            ".......",
+            "...O...",
+            ".......",
+            ".......",
+            ".......");
+
+        SearchEngine engine = new SearchEngine(7, 7, 4);
+
+        Cell<States> move = engine.findBestMove(gridModel, States.O);
+        assertThat(move).isSameAs(gridModel.getCell(4, 1));
+
+        // the same on a small board where all empty cells are moves
+        GridModel<States> small = createBoard(
+            "XX.",
+            ".O.",
+            "...");
+
+        assertThat(new SearchEngine(3, 3, 3).findBestMove(small, States.O)).isSameAs(small.getCell(2, 0));
+    }
+
+    @Test
+    public void testSelfPlayOnThreeByThreeIsADraw(){
+        GridModel<States> gridModel = createBoard("...", "...", "...");
+        WinDetector detector = new WinDetector(3, 3, 3);
+
+        SearchEngine engine = new SearchEngine(3, 3, 3);
+        engine.setTimeBudget(10_000);
+
+        States player = States.X;
+        while (!detector.isBoardFull()) {
+            Cell<States> move = engine.findBestMove(gridModel, player);
+            assertThat(move.getState()).isEqualTo(States.EMPTY);
+
+            move.changeState(player);
+            assertThat(detector.place(move.getColumn(), move.getRow(), player)).isFalse();
+
+            player = player == States.X ? States.O : States.X;
+        }
+
+        assertThat(detector.getWinner()).isNull();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFullBoard(){
+        new SearchEngine(2, 1, 2).findBestMove(createBoard("XO"), States.X);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongBoardSize(){
+        new SearchEngine(3, 3, 3).findBestMove(createBoard("....", "....", "....", "...."), States.X);
+    }
+
+    @Test
+    public void testParallelAndSequentialSearchFindMovesWithTheSameScore(){
+        // a symmetric position has many moves with the same score
+        String[][] positions = {
+            {".......", ".......", ".......", "...X...", ".......", ".......", "......."},
+            {".......", ".......", "..O....", "...X...", "....X..", ".......", "......."},
+            {".......", "..X.O..", "...X...", "..OXO..", ".......", ".......", "......."}};
+
+        for (String[] position : positions) {
+            for (int depth = 2; depth <= 3; depth++) {
+                GridModel<States> gridModel = createBoard(position);
+                gridModel.setForkJoinPool(new ForkJoinPool(4));
+
+                SearchEngine sequential = createEngineWithFixedDepth(depth);
+                SearchEngine parallel = createEngineWithFixedDepth(depth);
+                parallel.setParallel(true);
+
+                final Cell<States> sequentialMove = sequential.findBestMove(gridModel, States.O);
+                final Cell<States> parallelMove = parallel.findBestMove(gridModel, States.O);
+
+                assertThat(parallel.getLastScore()).isEqualTo(sequential.getLastScore());
+                if (!isWinOrLoss(sequential.getLastScore())) {
+                    // decided games are not searched to the full depth
+                    assertThat(parallel.getLastDepth()).isEqualTo(depth);
+                }
+
+                // the chosen moves really have this score: the opponent gets the negated score after them
+                assertThat(scoreOfMove(gridModel, sequentialMove, depth)).isEqualTo(sequential.getLastScore());
+                assertThat(scoreOfMove(gridModel, parallelMove, depth)).isEqualTo(sequential.getLastScore());
+            }
+        }
+    }
+
+    @Test
+    public void testUpperBoundsAreNotSelectedAsBestRootMove(){
+        // move 1 was searched with the bound 10 and failed low: 10 is an upper bound only.
+        // Move 2 was searched with the bound 5 and has the exact score 10.
+        assertThat(SearchEngine.selectBestRootMove(new int[]{5, 10, 10}, new int[]{0, 10, 5})).isEqualTo(2);
+
+        // an exact score below another exact score
+        assertThat(SearchEngine.selectBestRootMove(new int[]{5, 7, 9}, new int[]{0, 5, 5})).isEqualTo(2);
+
+        // all other moves failed low
+        assertThat(SearchEngine.selectBestRootMove(new int[]{5, 5, 3}, new int[]{0, 5, 5})).isEqualTo(0);
+    }
+
+    private static SearchEngine createEngineWithFixedDepth(int depth) {
+        SearchEngine engine = new SearchEngine(7, 7, 4);
+        engine.setMaxDepth(depth);
+        engine.setTimeBudget(60_000);
+        return engine;
+    }
+
+    private static int scoreOfMove(GridModel<States> gridModel, Cell<States> move, int depth) {
+        move.changeState(States.O);
+
+        SearchEngine opponent = createEngineWithFixedDepth(depth - 1);
+        opponent.findBestMove(gridModel, States.X);
+
+        move.changeState(States.EMPTY);
+
+        // wins and losses are one move further away from the first move than from the answer of the opponent
+        final int score = -opponent.getLastScore();
+        if (isWinOrLoss(score)) {
+            return score > 0 ? score - 1 : score + 1;
+        }
+        return score;
+    }
+
+    private static boolean isWinOrLoss(int score) {
+        return Math.abs(score) > SearchEngine.MAX_EVALUATION;
+    }
+}
@@ -0,0 +1,56 @@
+package eu.lestard.grid.tictactoe;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class TranspositionTableTest {
+
+    private TranspositionTable table = new TranspositionTable(4);
+
+    @Test
+    public void testEntriesRoundTrip(){
+        table.store(0x1234_5678_9ABC_DEF0L, 7, TranspositionTable.LOWER_BOUND, -123456, 42);
+
+        final long entry = table.probe(0x1234_5678_9ABC_DEF0L);
+
+        assertThat(entry).isNotEqualTo(0);
+        assertThat(TranspositionTable.score(entry)).isEqualTo(-123456);
+        assertThat(TranspositionTable.depth(entry)).isEqualTo(7);
+        assertThat(TranspositionTable.flag(entry)).isEqualTo(TranspositionTable.LOWER_BOUND);
+        assertThat(TranspositionTable.move(entry)).isEqualTo(42);
+    }
+
+    @Test
+    public void testExtremeValues(){
+        table.store(-1L, 255, TranspositionTable.UPPER_BOUND, -SearchEngine.WIN, SearchEngine.NO_MOVE);
+
+        long entry = table.probe(-1L);
+        assertThat(TranspositionTable.score(entry)).isEqualTo(-SearchEngine.WIN);
+        assertThat(TranspositionTable.depth(entry)).isEqualTo(255);
+        assertThat(TranspositionTable.flag(entry)).isEqualTo(TranspositionTable.UPPER_BOUND);
+        assertThat(TranspositionTable.move(entry)).isEqualTo(SearchEngine.NO_MOVE);
+
+        table.store(-1L, 0, TranspositionTable.EXACT, SearchEngine.WIN, 0);
+
+        entry = table.probe(-1L);
+        assertThat(TranspositionTable.score(entry)).isEqualTo(SearchEngine.WIN);
+        assertThat(TranspositionTable.depth(entry)).isEqualTo(0);
+        assertThat(TranspositionTable.flag(entry)).isEqualTo(TranspositionTable.EXACT);
+        assertThat(TranspositionTable.move(entry)).isEqualTo(0);
+    }
+
+    @Test
+    public void testOtherHashesAreNotFound(){
+        assertThat(table.probe(5)).isEqualTo(0);
+
+        table.store(5, 1, TranspositionTable.EXACT, 0, 0);
+
+        // same slot, different hash
+        assertThat(table.probe(5 + 16)).isEqualTo(0);
+        assertThat(table.probe(5)).isNotEqualTo(0);
+
+        table.clear();
+        assertThat(table.probe(5)).isEqualTo(0);
+    }
+}
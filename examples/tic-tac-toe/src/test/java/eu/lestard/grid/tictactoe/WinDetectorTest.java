@@ -0,0 +1,161 @@
+package eu.lestard.grid.tictactoe;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class WinDetectorTest {
+
+    @Test
+    public void testHorizontal(){
+        WinDetector detector = new WinDetector(5, 5, 3);
+
+        assertThat(detector.place(1, 2, States.X)).isFalse();
+        assertThat(detector.place(2, 2, States.X)).isFalse();
+        assertThat(detector.place(3, 2, States.X)).isTrue();
+
+        assertThat(detector.getWinner()).isEqualTo(States.X);
+    }
+
+    @Test
+    public void testVertical(){
+        WinDetector detector = new WinDetector(5, 5, 3);
+
+        assertThat(detector.place(4, 0, States.O)).isFalse();
+        assertThat(detector.place(4, 1, States.O)).isFalse();
+        assertThat(detector.place(4, 2, States.O)).isTrue();
+
+        assertThat(detector.getWinner()).isEqualTo(States.O);
+    }
+
+    @Test
+    public void testDiagonal(){
+        WinDetector detector = new WinDetector(5, 5, 3);
+
+        assertThat(detector.place(0, 0, States.X)).isFalse();
+        assertThat(detector.place(1, 1, States.X)).isFalse();
+        assertThat(detector.place(2, 2, States.X)).isTrue();
+    }
+
+    @Test
+    public void testAntiDiagonal(){
+        WinDetector detector = new WinDetector(5, 5, 3);
+
+        assertThat(detector.place(4, 0, States.X)).isFalse();
+        assertThat(detector.place(3, 1, States.X)).isFalse();
+        assertThat(detector.place(2, 2, States.X)).isTrue();
+    }
+
+    @Test
+    public void testStonesOfTheOtherPlayerInterruptALine(){
+        WinDetector detector = new WinDetector(5, 1, 3);
+
+        detector.place(0, 0, States.X);
+        detector.place(1, 0, States.X);
+        detector.place(2, 0, States.O);
+
+        assertThat(detector.place(3, 0, States.X)).isFalse();
+        assertThat(detector.getWinner()).isNull();
+    }
+
+    @Test
+    public void testAStoneJoinsTwoRuns(){
+        WinDetector detector = new WinDetector(7, 7, 5);
+
+        // two runs of two stones with a gap: X X . X X
+        detector.place(0, 3, States.X);
+        detector.place(1, 3, States.X);
+        detector.place(3, 3, States.X);
+        assertThat(detector.place(4, 3, States.X)).isFalse();
+
+        // five in a row is only reached by joining both runs
+        assertThat(detector.place(2, 3, States.X)).isTrue();
+    }
+
+    @Test
+    public void testJoinedRunsAreExtendedFurther(){
+        WinDetector detector = new WinDetector(9, 9, 6);
+
+        // diagonal: X . X X, then fill the gap and extend both ends of the joined run
+        detector.place(1, 1, States.O);
+        detector.place(3, 3, States.O);
+        detector.place(4, 4, States.O);
+        assertThat(detector.place(2, 2, States.O)).isFalse();
+
+        assertThat(detector.place(5, 5, States.O)).isFalse();
+        assertThat(detector.place(0, 0, States.O)).isTrue();
+    }
+
+    @Test
+    public void testBoardEdgesAndNonSquareBoards(){
+        WinDetector detector = new WinDetector(4, 2, 2);
+
+        // a run at the right edge doesn't wrap around into the next row
+        assertThat(detector.place(3, 0, States.X)).isFalse();
+        assertThat(detector.place(0, 1, States.X)).isFalse();
+
+        // a vertical line at the left edge
+        assertThat(detector.place(1, 0, States.O)).isFalse();
+        assertThat(detector.place(0, 0, States.X)).isTrue();
+
+        // a line that is longer than the number of rows is only possible horizontally
+        WinDetector wide = new WinDetector(6, 2, 4);
+        wide.place(5, 0, States.X);
+        wide.place(5, 1, States.X);
+        wide.place(4, 1, States.X);
+        wide.place(3, 1, States.O);
+        assertThat(wide.place(4, 0, States.X)).isFalse();
+        wide.place(3, 0, States.X);
+        assertThat(wide.place(2, 0, States.X)).isTrue();
+    }
+
+    @Test
+    public void testWinLengthOne(){
+        WinDetector detector = new WinDetector(3, 3, 1);
+
+        assertThat(detector.place(1, 1, States.O)).isTrue();
+        assertThat(detector.getWinner()).isEqualTo(States.O);
+
+        // the first winner stays the winner
+        assertThat(detector.place(0, 0, States.X)).isTrue();
+        assertThat(detector.getWinner()).isEqualTo(States.O);
+    }
+
+    @Test
+    public void testEmptyCellsAndFullBoard(){
+        WinDetector detector = new WinDetector(3, 2, 3);
+        assertThat(detector.getNumberOfEmptyCells()).isEqualTo(6);
+
+        // X O X
+        // X O O  (no line of three)
+        detector.place(0, 0, States.X);
+        detector.place(1, 0, States.O);
+        detector.place(2, 0, States.X);
+        detector.place(0, 1, States.X);
+        detector.place(1, 1, States.O);
+        assertThat(detector.getNumberOfEmptyCells()).isEqualTo(1);
+        assertThat(detector.isBoardFull()).isFalse();
+
+        assertThat(detector.place(2, 1, States.O)).isFalse();
+        assertThat(detector.getNumberOfEmptyCells()).isEqualTo(0);
+        assertThat(detector.isBoardFull()).isTrue();
+        assertThat(detector.getWinner()).isNull();
+
+        detector.reset();
+        assertThat(detector.getNumberOfEmptyCells()).isEqualTo(6);
+        assertThat(detector.getState(0, 0)).isEqualTo(States.EMPTY);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testOccupiedCell(){
+        WinDetector detector = new WinDetector(3, 3, 3);
+
+        detector.place(1, 1, States.X);
+        detector.place(1, 1, States.O);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWinLengthLongerThanTheBoard(){
+        new WinDetector(3, 2, 4);
+    }
+}
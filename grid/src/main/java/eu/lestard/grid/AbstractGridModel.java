@@ -0,0 +1,383 @@
+package eu.lestard.grid;
+
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.value.ChangeListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * The common base of all grid models. It defines how the states of the cells are read and changed and how
+ * these changes can be observed. The {@link GridView} and the algorithms that work on a grid ({@link Regions},
+ * {@link PathFinder}, {@link HierarchicalPathFinder}, {@link CellularAutomaton}, {@link GridFormat}, ...) accept
+ * every grid model.
+ *
+ * There are two kinds of grid models:
+ * <ul>
+ *     <li>The {@link GridModel} creates a {@link Cell} for every coordinate of the grid and keeps an index of the
+ *     cells with a specific state.</li>
+ *     <li>The {@link LazyGridModel}s ({@link CompactGridModel}, {@link SparseGridModel}, {@link MappedGridModel})
+ *     only store the states and create cells when they are requested. They are used for very big grids.</li>
+ * </ul>
+ *
+ * The states can be read and changed with {@link #getState(int, int)} and {@link #setState(int, int, Object)}
+ * without requesting cells. This way the lazy grid models don't have to create a cell for every coordinate.
+ *
+ * @param <State> the type of the states.
+ */
+public abstract class AbstractGridModel<State> {
+
+    private final IntegerProperty numberOfRows = new SimpleIntegerProperty();
+    private final IntegerProperty numberOfColumns = new SimpleIntegerProperty();
+
+    /**
+     * The cells of this grid model delegate state changes to this owner.
+     */
+    final Cell.Owner<State> cellOwner = this::changeState;
+
+    private final List<Consumer<List<Cell<State>>>> stateChangeListeners = new ArrayList<>();
+
+    /**
+     * The nesting depth of {@link #beginUpdate()} calls.
+     */
+    private int updateDepth = 0;
+
+    private ForkJoinPool forkJoinPool = ForkJoinPool.commonPool();
+
+    AbstractGridModel() {
+        ChangeListener<Number> sizeChanged = (obs, oldValue, newValue) -> resize();
+
+        numberOfColumns.addListener(sizeChanged);
+        numberOfRows.addListener(sizeChanged);
+    }
+
+    /**
+     * This method is called every time the size of the grid changes.
+     */
+    abstract void resize();
+
+    /**
+     * This method is called by the cells of this grid model when their state is changed.
+     */
+    abstract void changeState(Cell<State> cell, State newState);
+
+    /**
+     * This method is called when the outermost update is committed (see {@link #commit()}).
+     * The state change listeners have to be notified with all cells that were changed in the update.
+     */
+    abstract void commitUpdate();
+
+    /**
+     * Return the cell with the given coordinates.
+     *
+     * @param column the column of the cell.
+     * @param row the row of the cell.
+     * @return the cell or <code>null</code> if there is no cell with the given coordinates.
+     */
+    public abstract Cell<State> getCell(int column, int row);
+
+    /**
+     * Return the state of the cell with the given coordinates. No cell instance is created for this.
+     *
+     * @param column the column of the cell.
+     * @param row the row of the cell.
+     * @return the state of the cell.
+     * @throws IndexOutOfBoundsException if the coordinates are outside of the grid.
+     */
+    public abstract State getState(int column, int row);
+
+    /**
+     * Change the state of the cell with the given coordinates. This is the same as calling
+     * {@link Cell#changeState(Object)} on the cell with the given coordinates but no cell instance is created for this.
+     *
+     * @param column the column of the cell.
+     * @param row the row of the cell.
+     * @param state the new state.
+     * @throws IndexOutOfBoundsException if the coordinates are outside of the grid.
+     */
+    public abstract void setState(int column, int row, State state);
+
+    /**
+     * Specify the state that should be used as default when the grid grows.
+     *
+     * @param defaultState the default state.
+     */
+    public abstract void setDefaultState(State defaultState);
+
+    /**
+     * @return <code>true</code> if the given cell belongs to this grid model, otherwise <code>false</code>.
+     */
+    boolean isOwnerOf(Cell<State> cell) {
+        return cell.getOwner() == cellOwner;
+    }
+
+    /**
+     * @return the cell at the given row-major position or <code>null</code> if there is no cell.
+     */
+    Cell<State> cellAt(int position) {
+        final int columns = getNumberOfColumns();
+        return getCell(position % columns, position / columns);
+    }
+
+    /**
+     * @return <code>true</code> if there is a cell at the given row-major position. Only the cells of a {@link GridModel}
+     * can be missing when they were removed from the outside.
+     */
+    boolean hasCellAt(int position) {
+        return true;
+    }
+
+    /**
+     * @return the state of the cell at the given row-major position.
+     */
+    State stateAt(int position) {
+        final int columns = getNumberOfColumns();
+        return getState(position % columns, position / columns);
+    }
+
+    /**
+     * Change the state of the cell at the given row-major position.
+     */
+    void setStateAt(int position, State state) {
+        final int columns = getNumberOfColumns();
+        setState(position % columns, position / columns, state);
+    }
+
+    /**
+     * @return <code>true</code> if the cell with the given coordinates exists without being created by
+     * {@link #getCell(int, int)}.
+     */
+    boolean isMaterialized(int column, int row) {
+        return true;
+    }
+
+    /**
+     * The given cell isn't used anymore by the caller that has requested it. Grid models that create cells on
+     * demand can forget it.
+     */
+    void releaseCell(Cell<State> cell) {
+    }
+
+    /**
+     * Returns all cells that have the given state. The cells are in row-major order.
+     *
+     * @param state the state of the cells.
+     * @return a list of all cells with the given state.
+     */
+    public List<Cell<State>> getCellsWithState(State state) {
+        List<Cell<State>> result = new ArrayList<>();
+
+        for (int row = 0; row < getNumberOfRows(); row++) {
+            for (int column = 0; column < getNumberOfColumns(); column++) {
+                if (Objects.equals(getState(column, row), state)) {
+                    result.add(getCell(column, row));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of cells that have the given state.
+     *
+     * @param state the state of the cells that are counted.
+     * @return the number of cells with the given state.
+     */
+    public int countCellsWithState(State state) {
+        int count = 0;
+
+        for (int row = 0; row < getNumberOfRows(); row++) {
+            for (int column = 0; column < getNumberOfColumns(); column++) {
+                if (Objects.equals(getState(column, row), state)) {
+                    count++;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Take a snapshot of the states of all cells. The states of all cells are copied.
+     *
+     * @return the snapshot.
+     */
+    public GridSnapshot<State> snapshot() {
+        final int columns = getNumberOfColumns();
+        final int rows = getNumberOfRows();
+        final int tilesPerRow = GridSnapshot.numberOfTiles(columns);
+
+        Object[][] tiles = new Object[tilesPerRow * GridSnapshot.numberOfTiles(rows)][];
+        int[] tileHashes = new int[tiles.length];
+
+        for (int tileIndex = 0; tileIndex < tiles.length; tileIndex++) {
+            tiles[tileIndex] = new Object[GridSnapshot.TILE_SIZE * GridSnapshot.TILE_SIZE];
+        }
+
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                tiles[GridSnapshot.tileIndex(column, row, columns)][GridSnapshot.indexInTile(column, row)] = getState(column, row);
+            }
+        }
+
+        for (int tileIndex = 0; tileIndex < tiles.length; tileIndex++) {
+            tileHashes[tileIndex] = GridSnapshot.tileHash(tiles[tileIndex]);
+        }
+
+        return new GridSnapshot<>(columns, rows, tiles, tileHashes);
+    }
+
+    /**
+     * Apply the states of the given snapshot to this grid model. If the snapshot has a different size,
+     * the size of this grid model is changed first. All state changes are applied in a single update
+     * (see {@link #update(Runnable)}).
+     *
+     * @param snapshot the snapshot.
+     */
+    public void restore(GridSnapshot<State> snapshot) {
+        setNumberOfColumns(snapshot.getNumberOfColumns());
+        setNumberOfRows(snapshot.getNumberOfRows());
+
+        update(() -> {
+            for (int row = 0; row < snapshot.getNumberOfRows(); row++) {
+                for (int column = 0; column < snapshot.getNumberOfColumns(); column++) {
+                    setState(column, row, snapshot.getState(column, row));
+                }
+            }
+        });
+    }
+
+    /**
+     * Start an update of the grid model. All state changes of cells after this call are collected
+     * and applied together when {@link #commit()} is called. Until then the state properties of the cells
+     * keep their old values while {@link Cell#getState()} already returns the new state.
+     *
+     * When a cell is changed multiple times in an update only the last state is applied.
+     * Cells whose state is the same as before the update don't get any notification at all.
+     *
+     * Updates can be nested. The changes are applied when the outermost update is committed.
+     */
+    public void beginUpdate() {
+        updateDepth++;
+    }
+
+    /**
+     * Commit the update that was started with {@link #beginUpdate()}. The state properties of all
+     * changed cells are updated and the state change listeners (see {@link #addStateChangeListener(Consumer)})
+     * are notified once with all changed cells.
+     *
+     * @throws IllegalStateException if there is no update in progress.
+     */
+    public void commit() {
+        if (updateDepth == 0) {
+            throw new IllegalStateException("There is no update in progress. Call beginUpdate() first.");
+        }
+
+        updateDepth--;
+
+        if (updateDepth == 0) {
+            commitUpdate();
+        }
+    }
+
+    /**
+     * Run the given action inside of an update. This is a shortcut for calling {@link #beginUpdate()}
+     * and {@link #commit()}.
+     *
+     * <pre>
+     *     gridModel.update(() {@code ->} {
+     *         gridModel.getCell(0, 0).changeState(States.A);
+     *         gridModel.getCell(1, 0).changeState(States.B);
+     *     });
+     * </pre>
+     *
+     * @param action the action that changes the states of cells.
+     */
+    public void update(Runnable action) {
+        beginUpdate();
+        try {
+            action.run();
+        } finally {
+            commit();
+        }
+    }
+
+    /**
+     * @return <code>true</code> if there is an update in progress, otherwise <code>false</code>.
+     */
+    public boolean isUpdating() {
+        return updateDepth > 0;
+    }
+
+    /**
+     * Add a listener that is notified when the states of cells have changed. Outside of an update
+     * the listener gets every single change. Inside of an update (see {@link #beginUpdate()}) the listener
+     * is called only once with all changed cells when the update is committed.
+     *
+     * Every cell is contained only once in the list and only cells whose state is actually different are included.
+     *
+     * @param listener the listener.
+     */
+    public void addStateChangeListener(Consumer<List<Cell<State>>> listener) {
+        stateChangeListeners.add(Objects.requireNonNull(listener));
+    }
+
+    /**
+     * Remove a listener that was added with {@link #addStateChangeListener(Consumer)}.
+     *
+     * @param listener the listener.
+     */
+    public void removeStateChangeListener(Consumer<List<Cell<State>>> listener) {
+        stateChangeListeners.remove(listener);
+    }
+
+    boolean hasStateChangeListeners() {
+        return !stateChangeListeners.isEmpty();
+    }
+
+    void fireStateChanged(List<Cell<State>> changedCells) {
+        new ArrayList<>(stateChangeListeners).forEach(listener -> listener.accept(changedCells));
+    }
+
+    /**
+     * Specify the pool that is used for the parallel operations. By default the common pool is used.
+     *
+     * @param forkJoinPool the pool.
+     */
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = Objects.requireNonNull(forkJoinPool);
+    }
+
+    public ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+
+    public IntegerProperty numberOfColumns(){
+        return numberOfColumns;
+    }
+
+    public int getNumberOfColumns(){
+        return numberOfColumns.get();
+    }
+
+    public void setNumberOfColumns(int value){
+        numberOfColumns.set(value);
+    }
+
+    public IntegerProperty numberOfRows(){
+        return numberOfRows;
+    }
+
+    public int getNumberOfRows(){
+        return numberOfRows.get();
+    }
+
+    public void setNumberOfRows(int value){
+        numberOfRows.set(value);
+    }
+}
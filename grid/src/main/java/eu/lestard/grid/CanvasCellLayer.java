@@ -0,0 +1,147 @@
+package eu.lestard.grid;
+
+import javafx.event.EventHandler;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.paint.Paint;
+
+import java.util.Collection;
+
+/**
+ * This class paints the cells of a {@link eu.lestard.grid.GridView} on a single {@link Canvas}.
+ * It is used for the {@link RenderMode#CANVAS} mode.
+ *
+ * Mouse events on the canvas are mapped back to the cell under the mouse cursor so that the handlers
+ * of {@link Cell#setOnClick(EventHandler)} and {@link Cell#setOnMouseOver(EventHandler)} are still called.
+ *
+ * @param <State> the generic enum type of the states.
+ */
+class CanvasCellLayer<State> {
+
+    private final GridView<State> gridView;
+
+    private final Canvas canvas = new Canvas();
+
+    /**
+     * The cell that is under the mouse cursor at the moment. It is used to fire the mouse over handler only
+     * when the mouse enters a new cell.
+     */
+    private Cell<State> hoveredCell;
+
+    CanvasCellLayer(GridView<State> gridView) {
+        this.gridView = gridView;
+
+        canvas.widthProperty().addListener((obs, oldValue, newValue) -> gridView.requestFullRepaint());
+        canvas.heightProperty().addListener((obs, oldValue, newValue) -> gridView.requestFullRepaint());
+
+        canvas.addEventHandler(MouseEvent.MOUSE_CLICKED, event -> {
+            final Cell<State> cell = getCellAt(event.getX(), event.getY());
+            if (cell != null) {
+                fireEventHandler(event, cell.getOnClick());
+            }
+        });
+
+        // while a mouse button is pressed the canvas gets MOUSE_DRAGGED events instead of MOUSE_MOVED events.
+        final EventHandler<MouseEvent> mouseMoveHandler = event -> {
+            final Cell<State> cell = getCellAt(event.getX(), event.getY());
+            if (cell != hoveredCell) {
+                hoveredCell = cell;
+                if (cell != null) {
+                    fireEventHandler(event, cell.getOnMouseOver());
+                }
+            }
+        };
+        canvas.addEventHandler(MouseEvent.MOUSE_MOVED, mouseMoveHandler);
+        canvas.addEventHandler(MouseEvent.MOUSE_DRAGGED, mouseMoveHandler);
+        canvas.addEventHandler(MouseEvent.MOUSE_EXITED, event -> hoveredCell = null);
+    }
+
+    Canvas getCanvas() {
+        return canvas;
+    }
+
+    /**
+     * @return the cell at the given coordinates (relative to the canvas) or <code>null</code> if there is no cell.
+     */
+    Cell<State> getCellAt(double x, double y) {
+        final AbstractGridModel<State> gridModel = gridView.getGridModel();
+        final double cellSize = gridView.cellSizeProperty().get();
+
+        if (gridModel == null || cellSize <= 0 || x < 0 || y < 0) {
+            return null;
+        }
+
+        return gridModel.getCell((int) (x / cellSize), (int) (y / cellSize));
+    }
+
+    /**
+     * Repaint the whole canvas.
+     */
+    void paintAll() {
+        final GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+
+        final AbstractGridModel<State> gridModel = gridView.getGridModel();
+        final double cellSize = gridView.cellSizeProperty().get();
+
+        if (gridModel == null || cellSize <= 0) {
+            return;
+        }
+
+        prepareBorderStroke(gc);
+
+        // the states are read directly so that grid models that create cells on demand don't create them for this.
+        final int columns = gridModel.getNumberOfColumns();
+        for (int row = 0; row < gridModel.getNumberOfRows(); row++) {
+            for (int column = 0; column < columns; column++) {
+                final int position = row * columns + column;
+                if (gridModel.hasCellAt(position)) {
+                    paintCell(gc, column, row, gridModel.stateAt(position), cellSize);
+                }
+            }
+        }
+    }
+
+    /**
+     * Repaint only the given cells.
+     */
+    void paintCells(Collection<Cell<State>> cells) {
+        final double cellSize = gridView.cellSizeProperty().get();
+
+        if (cellSize <= 0) {
+            return;
+        }
+
+        final GraphicsContext gc = canvas.getGraphicsContext2D();
+        prepareBorderStroke(gc);
+
+        cells.forEach(cell -> paintCell(gc, cell.getColumn(), cell.getRow(), cell.getState(), cellSize));
+    }
+
+    private void prepareBorderStroke(GraphicsContext gc) {
+        final Paint borderColor = gridView.cellBorderColorProperty().get();
+        gc.setStroke(borderColor);
+        gc.setLineWidth(gridView.cellBorderWidthProperty().get());
+    }
+
+    private void paintCell(GraphicsContext gc, int column, int row, State state, double cellSize) {
+        final double x = column * cellSize;
+        final double y = row * cellSize;
+
+        gc.setFill(gridView.getCellColor(state));
+        gc.fillRect(x, y, cellSize, cellSize);
+
+        // like the border of a region the stroke is placed inside of the cell.
+        final double borderWidth = gc.getLineWidth();
+        if (borderWidth > 0 && cellSize > borderWidth) {
+            gc.strokeRect(x + borderWidth / 2, y + borderWidth / 2, cellSize - borderWidth, cellSize - borderWidth);
+        }
+    }
+
+    private void fireEventHandler(MouseEvent event, EventHandler<MouseEvent> handler) {
+        if (handler != null) {
+            handler.handle(event);
+        }
+    }
+}
@@ -6,22 +6,53 @@ import javafx.beans.property.SimpleObjectProperty;
 import javafx.event.EventHandler;
 import javafx.scene.input.MouseEvent;
 
+import java.util.Objects;
+
 /**
  * This class represents a single Cell of the grid. It is created and managed by the {@link eu.lestard.grid.GridModel}.
  *
+ * The properties of a cell are only created when they are requested. As long as nobody is interested
+ * in the properties the cell only holds the plain values.
+ *
  * @param <State> the generic type of states that the cell can have. The state needs to be an enum.
  */
 public class Cell <State> {
 
+    /**
+     * The grid model (or another container) that manages a cell. The owner is notified when the state of the cell is
+     * changed via {@link #changeState(Object)} and decides when the new state is applied.
+     */
+    interface Owner<State> {
+        void changeState(Cell<State> cell, State newState);
+    }
+
     private final int column;
 
     private final int row;
 
-    private ObjectProperty<EventHandler<MouseEvent>> onClick = new SimpleObjectProperty<>();
+    private EventHandler<MouseEvent> onClickHandler;
+    private ObjectProperty<EventHandler<MouseEvent>> onClick;
 
-    private ObjectProperty<EventHandler<MouseEvent>> onMouseOver = new SimpleObjectProperty<>();
+    private EventHandler<MouseEvent> onMouseOverHandler;
+    private ObjectProperty<EventHandler<MouseEvent>> onMouseOver;
+
+    /**
+     * The state is stored in this field until somebody requests the {@link #stateProperty()}.
+     */
+    private State stateValue;
+    private ObjectProperty<State> state;
+
+    /**
+     * The owner this cell belongs to. Is <code>null</code> as long as the cell isn't part of a grid model.
+     */
+    private Owner<State> owner;
 
-    private ObjectProperty<State> state = new SimpleObjectProperty<>();
+    /**
+     * The state that was set while the grid model is in an update (see {@link GridModel#beginUpdate()}).
+     * It will be applied to the state property when the update is committed.
+     */
+    private State pendingState;
+    private boolean pending = false;
 
     /**
      * New cells my not be created by the user. They are created by the {@link eu.lestard.grid.GridModel} only.
@@ -38,23 +69,89 @@ public class Cell <State> {
      * @return the state as read only property.
      */
     public ReadOnlyObjectProperty<State> stateProperty(){
+        if(state == null){
+            state = new SimpleObjectProperty<>(stateValue);
+            stateValue = null;
+        }
         return state;
     }
 
     /**
-     * @return the current state of this cell.
+     * @return the current state of this cell. While the grid model is in an update this is the last state that was set,
+     * even if it isn't committed to the {@link #stateProperty()} yet.
      */
     public State getState(){
-        return state.get();
+        return pending ? pendingState : getCommittedState();
+    }
+
+    /**
+     * @return the state of the {@link #stateProperty()}, without a pending state.
+     */
+    State getCommittedState(){
+        return state == null ? stateValue : state.get();
     }
 
     /**
      * This method is used to change the state of this cell.
      *
+     * If the grid model of this cell is in an update (see {@link GridModel#beginUpdate()}) the state
+     * property is only changed when the update is committed.
+     *
      * @param newState the new state.
      */
     public void changeState(State newState){
-        state.setValue(newState);
+        if(owner == null){
+            applyState(newState);
+        }else{
+            owner.changeState(this, newState);
+        }
+    }
+
+    /**
+     * Set the state without notifying the owner.
+     *
+     * @return <code>true</code> if the state was changed, otherwise <code>false</code>.
+     */
+    boolean applyState(State newState){
+        final State oldState = getCommittedState();
+
+        if(state == null){
+            stateValue = newState;
+        }else{
+            state.setValue(newState);
+        }
+
+        return !Objects.equals(oldState, newState);
+    }
+
+    void setPendingState(State newState){
+        pendingState = newState;
+        pending = true;
+    }
+
+    boolean hasPendingState(){
+        return pending;
+    }
+
+    /**
+     * Apply the pending state to the state property.
+     *
+     * @return <code>true</code> if the state was changed, otherwise <code>false</code>.
+     */
+    boolean commitPendingState(){
+        final State newState = pendingState;
+        pendingState = null;
+        pending = false;
+
+        return applyState(newState);
+    }
+
+    Owner<State> getOwner(){
+        return owner;
+    }
+
+    void setOwner(Owner<State> owner){
+        this.owner = owner;
     }
 
     /**
@@ -77,13 +174,28 @@ public class Cell <State> {
      * @param eventHandler the event handler.
      */
     public void setOnClick(EventHandler<MouseEvent> eventHandler){
-        this.onClick.set(eventHandler);
+        if(onClick == null){
+            onClickHandler = eventHandler;
+        }else{
+            onClick.set(eventHandler);
+        }
+    }
+
+    /**
+     * @return the onClick handler or <code>null</code> if there is none.
+     */
+    EventHandler<MouseEvent> getOnClick(){
+        return onClick == null ? onClickHandler : onClick.get();
     }
 
     /**
      * @return an Object property containing the onClick handler.
      */
     ObjectProperty<EventHandler<MouseEvent>> onClickProperty(){
+        if(onClick == null){
+            onClick = new SimpleObjectProperty<>(onClickHandler);
+            onClickHandler = null;
+        }
         return onClick;
     }
 
@@ -94,14 +206,28 @@ public class Cell <State> {
      * @param eventHandler the event handler.
      */
     public void setOnMouseOver(EventHandler<MouseEvent> eventHandler){
-        this.onMouseOver.set(eventHandler);
+        if(onMouseOver == null){
+            onMouseOverHandler = eventHandler;
+        }else{
+            onMouseOver.set(eventHandler);
+        }
     }
 
+    /**
+     * @return the onMouseOver handler or <code>null</code> if there is none.
+     */
+    EventHandler<MouseEvent> getOnMouseOver(){
+        return onMouseOver == null ? onMouseOverHandler : onMouseOver.get();
+    }
 
     /**
      * @return an Object property containing the onMouseOver handler.
      */
     ObjectProperty<EventHandler<MouseEvent>> onMouseOverProperty(){
+        if(onMouseOver == null){
+            onMouseOver = new SimpleObjectProperty<>(onMouseOverHandler);
+            onMouseOverHandler = null;
+        }
         return onMouseOver;
     }
 
@@ -0,0 +1,444 @@
+package eu.lestard.grid;
+
+import javafx.beans.value.ChangeListener;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * Runs a cellular automaton (like Conway's "Game of Life") on a grid model (see {@link AbstractGridModel}).
+ *
+ * The new state of every cell is computed by a {@link Rule} from the current state of the cell and the states
+ * of its neighbours in the given {@link Neighbourhood}. All cells are computed on a compact copy of the states
+ * (one int per cell) with double buffering, so the cells of the grid model aren't touched while a generation is computed.
+ * After that the changed cells are published to the grid model in a single update (see {@link AbstractGridModel#update(Runnable)}).
+ *
+ * <pre>
+ *     CellularAutomaton{@code<States>} gameOfLife = new CellularAutomaton{@code<>}(gridModel, Neighbourhood.moore(),
+ *         (state, neighbours) {@code ->} {
+ *             int alive = neighbours.count(States.ALIVE);
+ *             if (alive == 3 || (alive == 2 {@code &&} state == States.ALIVE)) {
+ *                 return States.ALIVE;
+ *             }
+ *             return States.DEAD;
+ *         });
+ *
+ *     gameOfLife.step();
+ * </pre>
+ *
+ * The rows of the grid can be computed in parallel (see {@link #setParallel(boolean)}). In this case the rule is called
+ * from multiple threads and has to be side-effect free.
+ *
+ * The automaton has to be used from the same thread as the grid model. The automaton is meant for a small number of
+ * different states (like the constants of an enum).
+ *
+ * @param <State> the type of the states.
+ */
+public class CellularAutomaton<State> {
+
+    /**
+     * Computes the next state of a cell.
+     *
+     * @param <State> the type of the states.
+     */
+    @FunctionalInterface
+    public interface Rule<State> {
+
+        /**
+         * @param state the current state of the cell.
+         * @param neighbours the current states of the neighbours of the cell. The instance is reused for the next
+         *                   cell so it may not be stored.
+         * @return the state of the cell in the next generation.
+         */
+        State apply(State state, Neighbours<State> neighbours);
+    }
+
+    /**
+     * The states of the neighbours of a cell. Only existing neighbours are included so cells at the edges
+     * of the grid have less neighbours unless the neighbourhood is {@link Neighbourhood#toroidal() toroidal}.
+     *
+     * @param <State> the type of the states.
+     */
+    public static final class Neighbours<State> {
+
+        private final CellularAutomaton<State> automaton;
+
+        private final int[] ids;
+        private int size;
+
+        private State lastCountedState;
+        private int lastCountedId = -1;
+
+        private Neighbours(CellularAutomaton<State> automaton, int capacity) {
+            this.automaton = automaton;
+            this.ids = new int[capacity];
+        }
+
+        /**
+         * @return the number of neighbours.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @param index the index of the neighbour in the order of the offsets of the neighbourhood.
+         * @return the state of the neighbour with the given index.
+         */
+        public State get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return automaton.stateOf(ids[index]);
+        }
+
+        /**
+         * @param state the state.
+         * @return the number of neighbours with the given state.
+         */
+        public int count(State state) {
+            if (state != lastCountedState || lastCountedId < 0) {
+                lastCountedState = state;
+                lastCountedId = automaton.idOf(state);
+            }
+            final int id = lastCountedId;
+
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    private final AbstractGridModel<State> gridModel;
+    private final Neighbourhood neighbourhood;
+    private final Rule<State> rule;
+
+    /**
+     * The known states. The id of a state is its index in this array. New states are added with
+     * copy on write so the array can be read from multiple threads without locking.
+     */
+    private volatile Object[] states = new Object[0];
+    private final Map<State, Integer> ids = new HashMap<>();
+
+    /**
+     * The ids of the states of all cells in row-major order.
+     */
+    private int[] current = new int[0];
+
+    /**
+     * The buffer for the next generation.
+     */
+    private int[] next = new int[0];
+
+    private int columns;
+    private int rows;
+
+    /**
+     * <code>true</code> when the {@link #current} buffer has to be read from the grid model again.
+     */
+    private boolean stale = true;
+
+    /**
+     * <code>true</code> while a generation is published to the grid model. The own changes don't need to be
+     * written back to the buffer.
+     */
+    private boolean publishing = false;
+
+    private boolean parallel = false;
+
+    private long generation = 0;
+
+    private final Consumer<List<Cell<State>>> stateChangeListener = this::cellsChanged;
+    private final ChangeListener<Number> sizeListener = (obs, oldValue, newValue) -> stale = true;
+
+    /**
+     * @param gridModel the grid model whose cells are computed.
+     * @param neighbourhood the neighbourhood that defines the neighbours that are passed to the rule.
+     * @param rule the rule that computes the next state of a cell.
+     */
+    public CellularAutomaton(AbstractGridModel<State> gridModel, Neighbourhood neighbourhood, Rule<State> rule) {
+        this.gridModel = gridModel;
+        this.neighbourhood = neighbourhood;
+        this.rule = rule;
+
+        gridModel.addStateChangeListener(stateChangeListener);
+        gridModel.numberOfColumns().addListener(sizeListener);
+        gridModel.numberOfRows().addListener(sizeListener);
+    }
+
+    /**
+     * Compute the next generation and apply it to the grid model in a single update.
+     */
+    public void step() {
+        step(1);
+    }
+
+    /**
+     * Compute the given number of generations. Only the last generation is applied to the grid model
+     * so the intermediate generations don't lead to any state changes of cells.
+     *
+     * @param generations the number of generations.
+     */
+    public void step(int generations) {
+        if (generations < 1) {
+            return;
+        }
+
+        if (stale) {
+            readGridModel();
+        }
+
+        final int[] start = generations == 1 ? current : current.clone();
+
+        for (int i = 0; i < generations; i++) {
+            computeGeneration();
+
+            final int[] temp = current;
+            current = next;
+            next = temp;
+
+            generation++;
+        }
+
+        publish(start, current);
+    }
+
+    /**
+     * @return the number of generations that were computed so far.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Specify whether the rows of the grid are computed in parallel with the
+     * {@link AbstractGridModel#getForkJoinPool() fork join pool} of the grid model.
+     *
+     * @param parallel <code>true</code> to compute in parallel.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Detach this automaton from the grid model. The automaton may not be used after this.
+     */
+    public void dispose() {
+        gridModel.removeStateChangeListener(stateChangeListener);
+        gridModel.numberOfColumns().removeListener(sizeListener);
+        gridModel.numberOfRows().removeListener(sizeListener);
+    }
+
+    private void readGridModel() {
+        columns = Math.max(0, gridModel.getNumberOfColumns());
+        rows = Math.max(0, gridModel.getNumberOfRows());
+
+        current = new int[columns * rows];
+        next = new int[columns * rows];
+
+        for (int position = 0; position < columns * rows; position++) {
+            current[position] = idOf(gridModel.hasCellAt(position) ? gridModel.stateAt(position) : null);
+        }
+
+        stale = false;
+    }
+
+    /**
+     * Changes of cells from the outside are written to the buffer.
+     */
+    private void cellsChanged(List<Cell<State>> changedCells) {
+        if (publishing || stale) {
+            return;
+        }
+
+        changedCells.forEach(cell -> {
+            if (cell.getColumn() < columns && cell.getRow() < rows) {
+                current[cell.getRow() * columns + cell.getColumn()] = idOf(cell.getState());
+            }
+        });
+    }
+
+    private void computeGeneration() {
+        if (parallel && rows > 1) {
+            final ForkJoinPool pool = gridModel.getForkJoinPool();
+            final int threshold = Math.max(1, rows / (pool.getParallelism() * 4));
+            pool.invoke(new StripeTask(0, rows, threshold));
+        } else {
+            computeRows(0, rows);
+        }
+    }
+
+    /**
+     * Computes the next generation for the rows from <code>fromRow</code> (inclusive) to <code>toRow</code> (exclusive).
+     *
+     * For the cells in the interior of the grid all neighbours exist so their positions are computed with fixed
+     * deltas. Only the cells near the edges need bounds checks (or wrap around for toroidal neighbourhoods).
+     */
+    private void computeRows(int fromRow, int toRow) {
+        final Neighbours<State> neighbours = new Neighbours<>(this, neighbourhood.size());
+        final int[] neighbourIds = neighbours.ids;
+
+        final int[] evenRowDeltas = positionDeltas(neighbourhood.getOffsets(0));
+        final int[] oddRowDeltas = positionDeltas(neighbourhood.getOffsets(1));
+
+        final int columnReach = Math.max(reach(neighbourhood.getOffsets(0), 0), reach(neighbourhood.getOffsets(1), 0));
+        final int rowReach = Math.max(reach(neighbourhood.getOffsets(0), 1), reach(neighbourhood.getOffsets(1), 1));
+
+        final int[] source = current;
+        final int[] target = next;
+
+        for (int row = fromRow; row < toRow; row++) {
+            final boolean interiorRow = row >= rowReach && row < rows - rowReach;
+            final int[] deltas = (row & 1) == 0 ? evenRowDeltas : oddRowDeltas;
+
+            for (int column = 0; column < columns; column++) {
+                final int position = row * columns + column;
+
+                if (interiorRow && column >= columnReach && column < columns - columnReach) {
+                    for (int i = 0; i < deltas.length; i++) {
+                        neighbourIds[i] = source[position + deltas[i]];
+                    }
+                    neighbours.size = deltas.length;
+                } else {
+                    neighbours.size = collectEdgeNeighbours(source, column, row, neighbourIds);
+                }
+
+                target[position] = idOf(rule.apply(stateOf(source[position]), neighbours));
+            }
+        }
+    }
+
+    private int collectEdgeNeighbours(int[] source, int column, int row, int[] neighbourIds) {
+        final int[] offsets = neighbourhood.getOffsets(row);
+        final boolean toroidal = neighbourhood.isToroidal();
+
+        int size = 0;
+
+        for (int i = 0; i < offsets.length; i += 2) {
+            int neighbourColumn = column + offsets[i];
+            int neighbourRow = row + offsets[i + 1];
+
+            if (neighbourColumn < 0 || neighbourColumn >= columns) {
+                if (!toroidal) {
+                    continue;
+                }
+                neighbourColumn = Math.floorMod(neighbourColumn, columns);
+            }
+
+            if (neighbourRow < 0 || neighbourRow >= rows) {
+                if (!toroidal) {
+                    continue;
+                }
+                neighbourRow = Math.floorMod(neighbourRow, rows);
+            }
+
+            neighbourIds[size++] = source[neighbourRow * columns + neighbourColumn];
+        }
+
+        return size;
+    }
+
+    /**
+     * @return the offsets converted to differences of positions in the state array.
+     */
+    private int[] positionDeltas(int[] offsets) {
+        int[] deltas = new int[offsets.length / 2];
+        for (int i = 0; i < deltas.length; i++) {
+            deltas[i] = offsets[2 * i + 1] * columns + offsets[2 * i];
+        }
+        return deltas;
+    }
+
+    /**
+     * @return the largest absolute column offset (<code>axis = 0</code>) or row offset (<code>axis = 1</code>).
+     */
+    private static int reach(int[] offsets, int axis) {
+        int reach = 0;
+        for (int i = axis; i < offsets.length; i += 2) {
+            reach = Math.max(reach, Math.abs(offsets[i]));
+        }
+        return reach;
+    }
+
+    private void publish(int[] before, int[] after) {
+        publishing = true;
+        try {
+            gridModel.update(() -> {
+                for (int position = 0; position < after.length; position++) {
+                    if (before[position] != after[position]) {
+                        gridModel.setStateAt(position, stateOf(after[position]));
+                    }
+                }
+            });
+        } finally {
+            publishing = false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private State stateOf(int id) {
+        return (State) states[id];
+    }
+
+    private int idOf(State state) {
+        final Object[] knownStates = states;
+        for (int id = 0; id < knownStates.length; id++) {
+            if (knownStates[id] == state) {
+                return id;
+            }
+        }
+        return register(state);
+    }
+
+    private synchronized int register(State state) {
+        final Integer existingId = ids.get(state);
+        if (existingId != null) {
+            return existingId;
+        }
+
+        final int id = states.length;
+
+        Object[] newStates = Arrays.copyOf(states, id + 1);
+        newStates[id] = state;
+        states = newStates;
+
+        ids.put(state, id);
+        return id;
+    }
+
+    private class StripeTask extends RecursiveAction {
+
+        private final int fromRow;
+        private final int toRow;
+        private final int threshold;
+
+        StripeTask(int fromRow, int toRow, int threshold) {
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (toRow - fromRow <= threshold) {
+                computeRows(fromRow, toRow);
+            } else {
+                final int middle = (fromRow + toRow) >>> 1;
+                invokeAll(new StripeTask(fromRow, middle, threshold), new StripeTask(middle, toRow, threshold));
+            }
+        }
+    }
+}
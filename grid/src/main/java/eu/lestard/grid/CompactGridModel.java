@@ -0,0 +1,151 @@
+package eu.lestard.grid;
+
+import java.util.Arrays;
+
+/**
+ * A memory efficient alternative to the {@link eu.lestard.grid.GridModel} for enum states.
+ *
+ * Instead of a {@link Cell} with properties for every coordinate this model only stores the ordinals of the states
+ * in a primitive array (one byte per cell for enums with up to 254 constants, two bytes per cell otherwise).
+ * Cells are only created when they are requested (see {@link LazyGridModel}).
+ *
+ * The states are stored in row-major order. The number of cells is limited to {@link Integer#MAX_VALUE}.
+ *
+ * @param <State> the enum type of the states.
+ */
+public class CompactGridModel<State extends Enum<State>> extends LazyGridModel<State> {
+
+    /**
+     * The stored value for cells with a state of <code>null</code>. All other states are stored as ordinal + 1.
+     */
+    private static final int NO_STATE = 0;
+
+    private final State[] states;
+
+    private final boolean byteStorage;
+
+    private byte[] byteOrdinals = new byte[0];
+    private short[] shortOrdinals = new short[0];
+
+    /**
+     * The number of columns of the arrays.
+     */
+    private int columns;
+
+    private State defaultState;
+
+    /**
+     * @param stateType the class of the enum that defines the states.
+     */
+    public CompactGridModel(Class<State> stateType) {
+        states = stateType.getEnumConstants();
+
+        if (states.length >= 0xFFFF) {
+            throw new IllegalArgumentException("The enum " + stateType.getName() + " has too many constants.");
+        }
+
+        byteStorage = states.length < 255;
+    }
+
+    @Override
+    void resizeStorage(int oldColumns, int oldRows, int columns, int rows) {
+        final long size = (long) columns * rows;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The grid may not contain more than " + Integer.MAX_VALUE + " cells.");
+        }
+
+        final int keptColumns = Math.min(columns, oldColumns);
+        final int keptRows = Math.min(rows, oldRows);
+
+        final int defaultValue = toStoredValue(defaultState);
+
+        if (byteStorage) {
+            byte[] newOrdinals = new byte[(int) size];
+            if (defaultValue != NO_STATE) {
+                Arrays.fill(newOrdinals, (byte) defaultValue);
+            }
+            for (int row = 0; row < keptRows; row++) {
+                System.arraycopy(byteOrdinals, row * oldColumns, newOrdinals, row * columns, keptColumns);
+            }
+            byteOrdinals = newOrdinals;
+        } else {
+            short[] newOrdinals = new short[(int) size];
+            if (defaultValue != NO_STATE) {
+                Arrays.fill(newOrdinals, (short) defaultValue);
+            }
+            for (int row = 0; row < keptRows; row++) {
+                System.arraycopy(shortOrdinals, row * oldColumns, newOrdinals, row * columns, keptColumns);
+            }
+            shortOrdinals = newOrdinals;
+        }
+
+        this.columns = columns;
+    }
+
+    private int toStoredValue(State state) {
+        return state == null ? NO_STATE : state.ordinal() + 1;
+    }
+
+    private State toState(int value) {
+        return value == NO_STATE ? null : states[value - 1];
+    }
+
+    /**
+     * @return the stored value (<code>0</code> for <code>null</code>, ordinal + 1 otherwise) of the cell at the
+     * given row-major position.
+     */
+    private int getStoredValue(int position) {
+        return byteStorage ? (byteOrdinals[position] & 0xFF) : (shortOrdinals[position] & 0xFFFF);
+    }
+
+    private void setStoredValue(int position, int value) {
+        if (byteStorage) {
+            byteOrdinals[position] = (byte) value;
+        } else {
+            shortOrdinals[position] = (short) value;
+        }
+    }
+
+    @Override
+    State readState(int column, int row) {
+        return toState(getStoredValue(row * columns + column));
+    }
+
+    @Override
+    void writeState(int column, int row, State state) {
+        setStoredValue(row * columns + column, toStoredValue(state));
+    }
+
+    @Override
+    State stateAt(int position) {
+        return toState(getStoredValue(position));
+    }
+
+    /**
+     * Specify the state that should be used as default when the grid grows.
+     *
+     * All cells that have a state of <code>null</code> at the moment will also get
+     * the new state applied.
+     *
+     * @param defaultState the default state.
+     */
+    @Override
+    public void setDefaultState(State defaultState) {
+        this.defaultState = defaultState;
+
+        if (defaultState == null) {
+            return;
+        }
+
+        final int size = byteStorage ? byteOrdinals.length : shortOrdinals.length;
+        final int value = toStoredValue(defaultState);
+
+        for (int position = 0; position < size; position++) {
+            if (getStoredValue(position) == NO_STATE) {
+                setStoredValue(position, value);
+            }
+        }
+
+        refreshMaterializedCells();
+    }
+}
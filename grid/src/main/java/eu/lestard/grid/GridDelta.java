@@ -0,0 +1,172 @@
+package eu.lestard.grid;
+
+import java.util.Arrays;
+
+/**
+ * A set of state changes of cells. Every change consists of the coordinates of the cell, the old state and
+ * the new state.
+ *
+ * Deltas are created by comparing two snapshots (see {@link GridSnapshot#diff(GridSnapshot)}) or by the grid model
+ * itself for every committed change (see {@link GridModel#addDeltaListener(java.util.function.Consumer)}).
+ * A delta can be applied to another grid model with {@link #applyTo(AbstractGridModel)}. This way grids can be mirrored
+ * without transferring all cells.
+ *
+ * Deltas are immutable and can be used from any thread.
+ *
+ * @param <State> the type of the states.
+ */
+public final class GridDelta<State> {
+
+    private final int numberOfColumns;
+    private final int numberOfRows;
+
+    /**
+     * The coordinates as pairs of column and row.
+     */
+    private final int[] coordinates;
+
+    private final Object[] oldStates;
+    private final Object[] newStates;
+
+    private GridDelta(int numberOfColumns, int numberOfRows, int[] coordinates, Object[] oldStates, Object[] newStates) {
+        this.numberOfColumns = numberOfColumns;
+        this.numberOfRows = numberOfRows;
+        this.coordinates = coordinates;
+        this.oldStates = oldStates;
+        this.newStates = newStates;
+    }
+
+    /**
+     * @return the number of changed cells.
+     */
+    public int size() {
+        return oldStates.length;
+    }
+
+    public boolean isEmpty() {
+        return oldStates.length == 0;
+    }
+
+    /**
+     * @param index the index of the change.
+     * @return the column of the changed cell.
+     */
+    public int getColumn(int index) {
+        checkIndex(index);
+        return coordinates[2 * index];
+    }
+
+    /**
+     * @param index the index of the change.
+     * @return the row of the changed cell.
+     */
+    public int getRow(int index) {
+        checkIndex(index);
+        return coordinates[2 * index + 1];
+    }
+
+    /**
+     * @param index the index of the change.
+     * @return the state of the cell before the change.
+     */
+    @SuppressWarnings("unchecked")
+    public State getOldState(int index) {
+        checkIndex(index);
+        return (State) oldStates[index];
+    }
+
+    /**
+     * @param index the index of the change.
+     * @return the state of the cell after the change.
+     */
+    @SuppressWarnings("unchecked")
+    public State getNewState(int index) {
+        checkIndex(index);
+        return (State) newStates[index];
+    }
+
+    /**
+     * @return the number of columns of the grid after the changes.
+     */
+    public int getNumberOfColumns() {
+        return numberOfColumns;
+    }
+
+    /**
+     * @return the number of rows of the grid after the changes.
+     */
+    public int getNumberOfRows() {
+        return numberOfRows;
+    }
+
+    /**
+     * Apply the changes to the given grid model. If the grid model has a different size, it is resized first.
+     * All changes are applied in a single update (see {@link AbstractGridModel#update(Runnable)}).
+     *
+     * @param gridModel the grid model.
+     */
+    @SuppressWarnings("unchecked")
+    public void applyTo(AbstractGridModel<State> gridModel) {
+        gridModel.setNumberOfColumns(numberOfColumns);
+        gridModel.setNumberOfRows(numberOfRows);
+
+        gridModel.update(() -> {
+            for (int index = 0; index < newStates.length; index++) {
+                gridModel.setState(coordinates[2 * index], coordinates[2 * index + 1], (State) newStates[index]);
+            }
+        });
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= oldStates.length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + oldStates.length);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "delta[" + numberOfColumns + "x" + numberOfRows + ", " + size() + " changes]";
+    }
+
+    /**
+     * Collects changes for a new delta.
+     */
+    static class Builder<State> {
+
+        private final int numberOfColumns;
+        private final int numberOfRows;
+
+        private int[] coordinates = new int[16];
+        private Object[] oldStates = new Object[8];
+        private Object[] newStates = new Object[8];
+        private int size = 0;
+
+        Builder(int numberOfColumns, int numberOfRows) {
+            this.numberOfColumns = numberOfColumns;
+            this.numberOfRows = numberOfRows;
+        }
+
+        void add(int column, int row, State oldState, State newState) {
+            if (size == oldStates.length) {
+                coordinates = Arrays.copyOf(coordinates, coordinates.length * 2);
+                oldStates = Arrays.copyOf(oldStates, oldStates.length * 2);
+                newStates = Arrays.copyOf(newStates, newStates.length * 2);
+            }
+
+            coordinates[2 * size] = column;
+            coordinates[2 * size + 1] = row;
+            oldStates[size] = oldState;
+            newStates[size] = newState;
+            size++;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        GridDelta<State> build() {
+            return new GridDelta<>(numberOfColumns, numberOfRows,
+                Arrays.copyOf(coordinates, 2 * size), Arrays.copyOf(oldStates, size), Arrays.copyOf(newStates, size));
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package eu.lestard.grid;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A compact binary file format for the states of a grid model (see {@link AbstractGridModel}) with enum states.
+ *
+ * The file starts with a header that contains the size of the grid and the names of the enum constants.
+ * When a file is loaded the states are looked up by their names so the order of the enum constants may change
+ * between saving and loading. The header is followed by the states of all cells in row-major order.
+ * Every state is stored as <code>0</code> for <code>null</code> or as ordinal + 1. The values are packed
+ * with the smallest number of bits that is needed for the enum (f.e. 2 bits for an enum with 3 constants).
+ * Alternatively the values can be stored run-length encoded which is much smaller for grids with big areas of
+ * the same state.
+ *
+ * <pre>
+ *     GridFormat.save(gridModel, States.class, Paths.get("level.grid"), true);
+ *
+ *     GridFormat.load(otherGridModel, States.class, Paths.get("level.grid"));
+ * </pre>
+ *
+ * For very big grids the {@link CompactGridModel} should be used because no cell instances are created
+ * when it is loaded.
+ */
+public final class GridFormat {
+
+    /**
+     * "GRID" in ASCII.
+     */
+    private static final int MAGIC = 0x47524944;
+
+    private static final byte VERSION = 1;
+
+    private static final byte FLAG_RUN_LENGTH_ENCODED = 1;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private GridFormat() {
+    }
+
+    /**
+     * Save the states of the given grid model to the given file. An existing file is overwritten.
+     *
+     * @param gridModel the grid model.
+     * @param stateType the enum class of the states.
+     * @param path the file.
+     * @param runLengthEncoded <code>true</code> if the states should be stored run-length encoded.
+     * @param <State> the type of the states.
+     * @throws IOException if the file can't be written.
+     */
+    public static <State extends Enum<State>> void save(AbstractGridModel<State> gridModel, Class<State> stateType,
+                                                        Path path, boolean runLengthEncoded) throws IOException {
+        final int columns = Math.max(0, gridModel.getNumberOfColumns());
+        final int rows = Math.max(0, gridModel.getNumberOfRows());
+
+        write(path, stateType, columns, rows, runLengthEncoded, position -> {
+            final State state = gridModel.stateAt(position);
+            return state == null ? 0 : state.ordinal() + 1;
+        });
+    }
+
+    /**
+     * Load the states from the given file into the given grid model. The grid model is resized to the size
+     * that is stored in the file. All state changes are applied in a single update (see {@link AbstractGridModel#update(Runnable)}).
+     *
+     * @param gridModel the grid model.
+     * @param stateType the enum class of the states.
+     * @param path the file.
+     * @param <State> the type of the states.
+     * @throws IOException if the file can't be read, has an invalid format or contains states that don't exist
+     *          in the given enum.
+     */
+    public static <State extends Enum<State>> void load(AbstractGridModel<State> gridModel, Class<State> stateType, Path path) throws IOException {
+        final State[] constants = stateType.getEnumConstants();
+
+        try (Input input = new Input(path)) {
+            final Header header = readHeader(input, stateType);
+
+            gridModel.setNumberOfColumns(header.columns);
+            gridModel.setNumberOfRows(header.rows);
+
+            IOException[] error = new IOException[1];
+
+            gridModel.update(() -> {
+                try {
+                    readValues(input, header, (position, value) -> gridModel.setStateAt(position, value == 0 ? null : constants[value - 1]));
+                } catch (IOException e) {
+                    error[0] = e;
+                }
+            });
+
+            if (error[0] != null) {
+                throw error[0];
+            }
+        }
+    }
+
+    private static <State extends Enum<State>> void write(Path path, Class<State> stateType, int columns, int rows,
+                                                          boolean runLengthEncoded, IntUnaryOperator values) throws IOException {
+        final State[] constants = stateType.getEnumConstants();
+        final int bitWidth = bitWidth(constants.length);
+        final int size = columns * rows;
+
+        try (Output output = new Output(path)) {
+            output.ensure(14)
+                .putInt(MAGIC)
+                .put(VERSION)
+                .put(runLengthEncoded ? FLAG_RUN_LENGTH_ENCODED : 0)
+                .putInt(columns)
+                .putInt(rows);
+
+            output.ensure(2).putShort((short) constants.length);
+            for (State constant : constants) {
+                final byte[] name = constant.name().getBytes(StandardCharsets.UTF_8);
+                output.ensure(2 + name.length).putShort((short) name.length).put(name);
+            }
+
+            if (runLengthEncoded) {
+                writeRuns(output, size, bitWidth, values);
+            } else {
+                writePacked(output, size, bitWidth, values);
+            }
+        }
+    }
+
+    private static void writePacked(Output output, int size, int bitWidth, IntUnaryOperator values) throws IOException {
+        long bits = 0;
+        int numberOfBits = 0;
+
+        for (int position = 0; position < size; position++) {
+            final long value = values.applyAsInt(position);
+
+            bits |= value << numberOfBits;
+            numberOfBits += bitWidth;
+
+            if (numberOfBits >= 64) {
+                output.ensure(8).putLong(bits);
+
+                numberOfBits -= 64;
+                bits = numberOfBits == 0 ? 0 : value >>> (bitWidth - numberOfBits);
+            }
+        }
+
+        if (numberOfBits > 0) {
+            output.ensure(8).putLong(bits);
+        }
+    }
+
+    /**
+     * Every run is stored as the length of the run (as variable length integer) followed by the value
+     * (one byte for up to 8 bits, two bytes otherwise).
+     */
+    private static void writeRuns(Output output, int size, int bitWidth, IntUnaryOperator values) throws IOException {
+        int position = 0;
+
+        while (position < size) {
+            final int value = values.applyAsInt(position);
+
+            int runLength = 1;
+            while (position + runLength < size && values.applyAsInt(position + runLength) == value) {
+                runLength++;
+            }
+
+            ByteBuffer buffer = output.ensure(7);
+
+            int remaining = runLength;
+            while ((remaining & ~0x7F) != 0) {
+                buffer.put((byte) ((remaining & 0x7F) | 0x80));
+                remaining >>>= 7;
+            }
+            buffer.put((byte) remaining);
+
+            if (bitWidth <= 8) {
+                buffer.put((byte) value);
+            } else {
+                buffer.putShort((short) value);
+            }
+
+            position += runLength;
+        }
+    }
+
+    private static <State extends Enum<State>> Header readHeader(Input input, Class<State> stateType) throws IOException {
+        ByteBuffer buffer = input.require(16);
+
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("The file is not a grid file.");
+        }
+
+        final byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IOException("The version " + version + " of the grid file is not supported.");
+        }
+
+        Header header = new Header();
+        header.runLengthEncoded = (buffer.get() & FLAG_RUN_LENGTH_ENCODED) != 0;
+        header.columns = buffer.getInt();
+        header.rows = buffer.getInt();
+
+        if (header.columns < 0 || header.rows < 0 || (long) header.columns * header.rows > Integer.MAX_VALUE) {
+            throw new IOException("The grid file has an invalid size of " + header.columns + "x" + header.rows + ".");
+        }
+
+        final int numberOfConstants = buffer.getShort() & 0xFFFF;
+
+        header.bitWidth = bitWidth(numberOfConstants);
+
+        // translates the stored values to the values of the current enum.
+        header.translation = new int[numberOfConstants + 1];
+
+        for (int i = 0; i < numberOfConstants; i++) {
+            final int length = input.require(2).getShort() & 0xFFFF;
+
+            byte[] name = new byte[length];
+            input.require(length).get(name);
+
+            final String constantName = new String(name, StandardCharsets.UTF_8);
+            try {
+                header.translation[i + 1] = Enum.valueOf(stateType, constantName).ordinal() + 1;
+            } catch (IllegalArgumentException e) {
+                throw new IOException("The state " + constantName + " doesn't exist in " + stateType.getName() + ".", e);
+            }
+        }
+
+        return header;
+    }
+
+    private static void readValues(Input input, Header header, ValueConsumer consumer) throws IOException {
+        final int size = header.columns * header.rows;
+        final int[] translation = header.translation;
+
+        if (header.runLengthEncoded) {
+            int position = 0;
+
+            while (position < size) {
+                int runLength = 0;
+                int shift = 0;
+                byte next;
+                do {
+                    next = input.require(1).get();
+                    runLength |= (next & 0x7F) << shift;
+                    shift += 7;
+                } while ((next & 0x80) != 0);
+
+                final int storedValue = header.bitWidth <= 8 ? input.require(1).get() & 0xFF : input.require(2).getShort() & 0xFFFF;
+                final int value = translate(translation, storedValue);
+
+                if (runLength <= 0 || runLength > size - position) {
+                    throw new IOException("The grid file contains an invalid run length.");
+                }
+
+                for (int i = 0; i < runLength; i++) {
+                    consumer.accept(position++, value);
+                }
+            }
+        } else {
+            final int bitWidth = header.bitWidth;
+            final long mask = (1L << bitWidth) - 1;
+
+            long bits = 0;
+            int numberOfBits = 0;
+
+            for (int position = 0; position < size; position++) {
+                final int storedValue;
+
+                if (numberOfBits >= bitWidth) {
+                    storedValue = (int) (bits & mask);
+                    bits >>>= bitWidth;
+                    numberOfBits -= bitWidth;
+                } else {
+                    final long next = input.require(8).getLong();
+                    final int missingBits = bitWidth - numberOfBits;
+
+                    storedValue = (int) ((bits | (next << numberOfBits)) & mask);
+                    bits = next >>> missingBits;
+                    numberOfBits = 64 - missingBits;
+                }
+
+                consumer.accept(position, translate(translation, storedValue));
+            }
+        }
+    }
+
+    private static int translate(int[] translation, int storedValue) throws IOException {
+        if (storedValue >= translation.length) {
+            throw new IOException("The grid file contains the invalid state value " + storedValue + ".");
+        }
+        return translation[storedValue];
+    }
+
+    /**
+     * @return the number of bits that are needed to store the values from 0 to <code>numberOfConstants</code>.
+     */
+    private static int bitWidth(int numberOfConstants) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(numberOfConstants));
+    }
+
+    @FunctionalInterface
+    private interface ValueConsumer {
+        void accept(int position, int value);
+    }
+
+    private static class Header {
+        int columns;
+        int rows;
+        boolean runLengthEncoded;
+        int bitWidth;
+        int[] translation;
+    }
+
+    /**
+     * Writes to a file channel through a buffer.
+     */
+    private static class Output implements AutoCloseable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        Output(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        /**
+         * @return the buffer with at least the given number of bytes remaining.
+         */
+        ByteBuffer ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+            return buffer;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Reads from a file channel through a buffer.
+     */
+    private static class Input implements AutoCloseable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        Input(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            buffer.limit(0);
+        }
+
+        /**
+         * @return the buffer with at least the given number of bytes remaining.
+         * @throws EOFException if the end of the file is reached before.
+         */
+        ByteBuffer require(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                if (bytes > buffer.capacity()) {
+                    throw new IOException("The grid file contains an invalid length.");
+                }
+
+                buffer.compact();
+                while (buffer.position() < bytes) {
+                    if (channel.read(buffer) < 0) {
+                        throw new EOFException("Unexpected end of the grid file.");
+                    }
+                }
+                buffer.flip();
+            }
+            return buffer;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -1,60 +1,341 @@
 package eu.lestard.grid;
 
-import javafx.beans.property.IntegerProperty;
-import javafx.beans.property.SimpleIntegerProperty;
-import javafx.beans.value.ChangeListener;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
-
-public class GridModel<State> {
+import java.util.function.Predicate;
+
+/**
+ * A grid model that creates a {@link Cell} for every coordinate of the grid. The cells are kept in the observable
+ * list {@link #cells()} and in an index so that the cell with given coordinates and the cells with a given state
+ * are found without searching the list.
+ *
+ * For very big grids one of the {@link LazyGridModel}s can be used instead.
+ *
+ * @param <State> the type of the states.
+ */
+public class GridModel<State> extends AbstractGridModel<State> {
 
     private final ObservableList<Cell<State>> cells = FXCollections.observableArrayList();
-    private final IntegerProperty numberOfRows = new SimpleIntegerProperty();
-    private final IntegerProperty numberOfColumns = new SimpleIntegerProperty();
 
     private Optional<Consumer<Cell<State>>> onCellAddedHandler = Optional.empty();
 
     private State defaultState;
 
+    /**
+     * Row-major index of all cells of the grid. The cell with the coordinates (column, row) is stored at
+     * position <code>row * indexColumns + column</code>. This way cells can be looked up in constant time
+     * instead of searching the {@link #cells} list.
+     */
+    private Object[] cellIndex = new Object[0];
+    private int indexColumns;
+    private int indexRows;
+
+    /**
+     * The positions in the {@link #cellIndex} of the cells with a specific state. The index is updated
+     * on every state change so that the cells with a given state can be found without looking at every cell.
+     */
+    private final Map<State, StatePositions> stateIndex = new HashMap<>();
+
+    /**
+     * The last snapshot that was taken. The tiles of this snapshot that haven't changed since then
+     * are reused by the next snapshot.
+     */
+    private GridSnapshot<State> lastSnapshot;
+
+    /**
+     * The tiles (see {@link GridSnapshot#TILE_SIZE}) that contain cells that were changed since the last snapshot.
+     */
+    private final BitSet changedTiles = new BitSet();
+
+    private final List<Consumer<GridDelta<State>>> deltaListeners = new ArrayList<>();
+
+    /**
+     * The cells whose state was changed during the current update.
+     */
+    private List<Cell<State>> pendingCells = new ArrayList<>();
+
+    /**
+     * The minimal number of cells that are processed by a single task of the parallel operations.
+     */
+    private static final int MIN_CELLS_PER_TASK = 4096;
 
     public GridModel() {
-        ChangeListener<Number> sizeChanged = (obs, oldValue, newValue) -> init();
+        // cells can be added or removed from the outside too so we have to keep the index in sync.
+        cells.addListener((ListChangeListener<Cell<State>>) change -> {
+            while (change.next()) {
+                if (change.wasRemoved()) {
+                    change.getRemoved().forEach(cell -> {
+                        removeFromIndex(cell);
+                        if (cell.getOwner() == cellOwner) {
+                            cell.setOwner(null);
+                        }
+                    });
+                }
 
-        numberOfColumns.addListener(sizeChanged);
-        numberOfRows.addListener(sizeChanged);
+                if (change.wasAdded()) {
+                    change.getAddedSubList().forEach(cell -> {
+                        addToIndex(cell);
+                        cell.setOwner(cellOwner);
+                    });
+                }
+            }
+        });
     }
 
-    private void init() {
-        List<Cell<State>> cellsToRemove = new ArrayList<>();
-        cellsToRemove.addAll(cells);
+    /**
+     * This method is called every time the size of the grid changes. Only the cells of the
+     * rows and columns that are newly exposed are created and only the cells of the truncated rows and columns
+     * are removed. All other cells stay untouched.
+     *
+     * The {@link #cells} list gets at most one remove change and one add change.
+     */
+    @Override
+    void resize() {
+        final int columns = Math.max(0, getNumberOfColumns());
+        final int rows = Math.max(0, getNumberOfRows());
+
+        final int oldColumns = indexColumns;
+        final int oldRows = indexRows;
 
-        for (int column = 0; column < numberOfColumns.get(); column++) {
-            for (int row = 0; row < numberOfRows.get(); row++) {
-                Cell<State> existingCell = getCell(column, row);
-                if(existingCell == null){
-                    Cell<State> cell = new Cell<>(column, row);
-                    if(onCellAddedHandler.isPresent()){
-                        onCellAddedHandler.get().accept(cell);
-                    }
+        final int keptColumns = Math.min(columns, oldColumns);
+        final int keptRows = Math.min(rows, oldRows);
+
+        Set<Cell<State>> cellsToRemove = new HashSet<>();
+
+        // the truncated columns on the right side
+        for (int row = 0; row < oldRows; row++) {
+            for (int column = keptColumns; column < oldColumns; column++) {
+                addIfNotNull(cellsToRemove, getCell(column, row));
+            }
+        }
+
+        // the truncated rows at the bottom. The cells of the truncated columns are already handled.
+        for (int row = keptRows; row < oldRows; row++) {
+            for (int column = 0; column < keptColumns; column++) {
+                addIfNotNull(cellsToRemove, getCell(column, row));
+            }
+        }
+
+        Object[] newIndex = new Object[columns * rows];
+
+        for (int row = 0; row < keptRows; row++) {
+            System.arraycopy(cellIndex, row * oldColumns, newIndex, row * columns, keptColumns);
+        }
+
+        // the kept cells move to their new positions, the truncated cells are dropped.
+        for (StatePositions positions : stateIndex.values()) {
+            positions.resize(oldColumns, columns, keptColumns, keptRows);
+        }
+
+        List<Cell<State>> cellsToAdd = new ArrayList<>();
+
+        for (int row = 0; row < rows; row++) {
+            final int firstNewColumn = row < keptRows ? keptColumns : 0;
+
+            for (int column = firstNewColumn; column < columns; column++) {
+                Cell<State> cell = createCell(column, row);
+
+                cellsToAdd.add(cell);
+
+                final int position = row * columns + column;
+                newIndex[position] = cell;
+                addToStateIndex(cell.getState(), position);
+            }
+        }
+
+        cellIndex = newIndex;
+        indexColumns = columns;
+        indexRows = rows;
+
+        // the tiles of the last snapshot don't match the new size of the grid.
+        lastSnapshot = null;
+        changedTiles.clear();
+
+        if (!cellsToRemove.isEmpty()) {
+            cells.removeAll(cellsToRemove);
+        }
+
+        if (!cellsToAdd.isEmpty()) {
+            cells.addAll(cellsToAdd);
+        }
+    }
+
+    private Cell<State> createCell(int column, int row) {
+        Cell<State> cell = new Cell<>(column, row);
+        if(onCellAddedHandler.isPresent()){
+            onCellAddedHandler.get().accept(cell);
+        }
+
+        if (defaultState != null) {
+            cell.changeState(defaultState);
+        }
+
+        return cell;
+    }
+
+    private boolean isInIndex(int column, int row) {
+        return column >= 0 && column < indexColumns && row >= 0 && row < indexRows;
+    }
+
+    private void addToIndex(Cell<State> cell) {
+        if (isInIndex(cell.getColumn(), cell.getRow())) {
+            final int position = cell.getRow() * indexColumns + cell.getColumn();
+
+            if (cellIndex[position] == null) {
+                cellIndex[position] = cell;
+                addToStateIndex(cell.getState(), position);
+                markTileChanged(cell.getColumn(), cell.getRow());
+            }
+        }
+    }
+
+    private void removeFromIndex(Cell<State> cell) {
+        if (isInIndex(cell.getColumn(), cell.getRow())) {
+            final int position = cell.getRow() * indexColumns + cell.getColumn();
+
+            if (cellIndex[position] == cell) {
+                cellIndex[position] = null;
+                removeFromStateIndex(cell.getState(), position);
+                markTileChanged(cell.getColumn(), cell.getRow());
+            }
+        }
+    }
+
+    /**
+     * @return the position of the given cell in the {@link #cellIndex} or <code>-1</code> if the cell isn't indexed.
+     */
+    private int indexPosition(Cell<State> cell) {
+        if (isInIndex(cell.getColumn(), cell.getRow())) {
+            final int position = cell.getRow() * indexColumns + cell.getColumn();
+
+            if (cellIndex[position] == cell) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private void addToStateIndex(State state, int position) {
+        stateIndex.computeIfAbsent(state, key -> new StatePositions()).add(position);
+    }
+
+    private void removeFromStateIndex(State state, int position) {
+        final StatePositions positions = stateIndex.get(state);
+        if (positions != null) {
+            positions.remove(position);
+        }
+    }
+
+    private void markTileChanged(int column, int row) {
+        if (lastSnapshot != null) {
+            changedTiles.set(GridSnapshot.tileIndex(column, row, indexColumns));
+        }
+    }
+
+    @Override
+    void changeState(Cell<State> cell, State newState) {
+        final State oldState = cell.getState();
+
+        if (!Objects.equals(oldState, newState)) {
+            final int position = indexPosition(cell);
+            if (position != -1) {
+                removeFromStateIndex(oldState, position);
+                addToStateIndex(newState, position);
+                markTileChanged(cell.getColumn(), cell.getRow());
+            }
+        }
+
+        if (isUpdating()) {
+            if (!cell.hasPendingState()) {
+                pendingCells.add(cell);
+            }
+            cell.setPendingState(newState);
+        } else {
+            if (cell.applyState(newState)) {
+                fireStateChanged(Collections.singletonList(cell));
+
+                if (!deltaListeners.isEmpty()) {
+                    GridDelta.Builder<State> delta = new GridDelta.Builder<>(indexColumns, indexRows);
+                    delta.add(cell.getColumn(), cell.getRow(), oldState, newState);
+                    fireDelta(delta.build());
+                }
+            }
+        }
+    }
+
+    @Override
+    void commitUpdate() {
+        if (!pendingCells.isEmpty()) {
+            final List<Cell<State>> cellsToCommit = pendingCells;
+            pendingCells = new ArrayList<>();
 
-                    if (defaultState != null) {
-                        cell.changeState(defaultState);
+            final GridDelta.Builder<State> delta = deltaListeners.isEmpty() ? null : new GridDelta.Builder<>(indexColumns, indexRows);
+
+            List<Cell<State>> changedCells = new ArrayList<>();
+            cellsToCommit.forEach(cell -> {
+                final State oldState = cell.getCommittedState();
+
+                if (cell.commitPendingState()) {
+                    changedCells.add(cell);
+
+                    if (delta != null) {
+                        delta.add(cell.getColumn(), cell.getRow(), oldState, cell.getState());
                     }
-                    cells.add(cell);
-                }else{
-                    cellsToRemove.remove(existingCell);
                 }
+            });
+
+            if (!changedCells.isEmpty()) {
+                fireStateChanged(Collections.unmodifiableList(changedCells));
+            }
+
+            if (delta != null && !delta.isEmpty()) {
+                fireDelta(delta.build());
             }
         }
+    }
 
-        cells.removeAll(cellsToRemove);
+    /**
+     * Add a listener that gets the state changes of cells as {@link GridDelta} with the old and new states.
+     * The listener is called at the same time as the state change listeners (see {@link #addStateChangeListener(Consumer)}):
+     * Once per committed update or once per change outside of an update.
+     *
+     * The deltas can be applied to other grid models (see {@link GridDelta#applyTo(AbstractGridModel)}) to mirror this grid model.
+     * Cells that are added when the grid grows get the default state without a delta.
+     *
+     * @param listener the listener.
+     */
+    public void addDeltaListener(Consumer<GridDelta<State>> listener) {
+        deltaListeners.add(Objects.requireNonNull(listener));
+    }
+
+    /**
+     * Remove a listener that was added with {@link #addDeltaListener(Consumer)}.
+     *
+     * @param listener the listener.
+     */
+    public void removeDeltaListener(Consumer<GridDelta<State>> listener) {
+        deltaListeners.remove(listener);
+    }
+
+    private void fireDelta(GridDelta<State> delta) {
+        new ArrayList<>(deltaListeners).forEach(listener -> listener.accept(delta));
     }
 
     /**
@@ -73,16 +354,57 @@ public class GridModel<State> {
 
     /**
      * Return the cell with the given coordinates.
-     * @param column
-     * @param row
-     * @return
+     *
+     * The lookup is done in constant time.
+     *
+     * @param column the column of the cell.
+     * @param row the row of the cell.
+     * @return the cell or <code>null</code> if there is no cell with the given coordinates.
      */
+    @Override
+    @SuppressWarnings("unchecked")
     public Cell<State> getCell(final int column, final int row) {
-        return cells.stream()
-            .filter(cell ->
-                (cell.getColumn() == column && cell.getRow() == row))
-            .findFirst()
-            .orElse(null);
+        if (!isInIndex(column, row)) {
+            return null;
+        }
+
+        return (Cell<State>) cellIndex[row * indexColumns + column];
+    }
+
+    /**
+     * Return the state of the cell with the given coordinates. If the cell was removed from the {@link #cells()}
+     * list, <code>null</code> is returned.
+     *
+     * @param column the column of the cell.
+     * @param row the row of the cell.
+     * @return the state of the cell.
+     * @throws IndexOutOfBoundsException if the coordinates are outside of the grid.
+     */
+    @Override
+    public State getState(int column, int row) {
+        checkBounds(column, row);
+        return stateAt(row * indexColumns + column);
+    }
+
+    /**
+     * Change the state of the cell with the given coordinates (see {@link Cell#changeState(Object)}). If the cell
+     * was removed from the {@link #cells()} list, nothing is changed.
+     *
+     * @param column the column of the cell.
+     * @param row the row of the cell.
+     * @param state the new state.
+     * @throws IndexOutOfBoundsException if the coordinates are outside of the grid.
+     */
+    @Override
+    public void setState(int column, int row, State state) {
+        checkBounds(column, row);
+        setStateAt(row * indexColumns + column, state);
+    }
+
+    private void checkBounds(int column, int row) {
+        if (!isInIndex(column, row)) {
+            throw new IndexOutOfBoundsException("The cell [" + column + "," + row + "] is outside of the grid.");
+        }
     }
 
 
@@ -105,14 +427,7 @@ public class GridModel<State> {
      * @return a collection of neighbour cells. This can be up to 4.
      */
     public List<Cell<State>> getNeighbours(int column, int row) {
-        List<Cell<State>> result = new ArrayList<>();
-
-        addIfNotNull(result, getCell(column + 1, row));
-        addIfNotNull(result, getCell(column - 1, row));
-        addIfNotNull(result, getCell(column, row + 1));
-        addIfNotNull(result, getCell(column, row - 1));
-
-        return result;
+        return getNeighbours(column, row, Neighbourhood.vonNeumann());
     }
 
     /**
@@ -127,6 +442,102 @@ public class GridModel<State> {
         return getNeighbours(cell.getColumn(), cell.getRow());
     }
 
+    /**
+     * Returns the neighbour cells of the cell with the given coordinates in the given neighbourhood.
+     *
+     * Only existing cells are included. If the neighbourhood is {@link Neighbourhood#toroidal() toroidal}
+     * the coordinates wrap around the edges of the grid.
+     *
+     * @param column the column no. of the reference cell
+     * @param row the row no. of the reference cell
+     * @param neighbourhood the neighbourhood that defines which cells are neighbours.
+     * @return a list of neighbour cells in the order of the offsets of the neighbourhood.
+     */
+    public List<Cell<State>> getNeighbours(int column, int row, Neighbourhood neighbourhood) {
+        List<Cell<State>> result = new ArrayList<>(neighbourhood.size());
+        getNeighbours(column, row, neighbourhood, result);
+        return result;
+    }
+
+    /**
+     * Fills the given list with the neighbour cells of the cell with the given coordinates.
+     * The list is cleared before. When the same list is used for many queries no new objects are created.
+     *
+     * See {@link #getNeighbours(int, int, Neighbourhood)} for a detailed explanation.
+     *
+     * @param column the column no. of the reference cell
+     * @param row the row no. of the reference cell
+     * @param neighbourhood the neighbourhood that defines which cells are neighbours.
+     * @param result the list that is filled with the neighbour cells.
+     */
+    public void getNeighbours(int column, int row, Neighbourhood neighbourhood, List<Cell<State>> result) {
+        result.clear();
+
+        final int[] offsets = neighbourhood.getOffsets(row);
+        for (int i = 0; i < offsets.length; i += 2) {
+            addIfNotNull(result, getNeighbour(column, row, offsets[i], offsets[i + 1], neighbourhood.isToroidal()));
+        }
+    }
+
+    /**
+     * Calls the given action for every neighbour cell of the cell with the given coordinates.
+     * Apart from the action itself no objects are created.
+     *
+     * See {@link #getNeighbours(int, int, Neighbourhood)} for a detailed explanation.
+     *
+     * @param column the column no. of the reference cell
+     * @param row the row no. of the reference cell
+     * @param neighbourhood the neighbourhood that defines which cells are neighbours.
+     * @param action the action that is called for every neighbour cell.
+     */
+    public void forEachNeighbour(int column, int row, Neighbourhood neighbourhood, Consumer<Cell<State>> action) {
+        final int[] offsets = neighbourhood.getOffsets(row);
+        for (int i = 0; i < offsets.length; i += 2) {
+            final Cell<State> neighbour = getNeighbour(column, row, offsets[i], offsets[i + 1], neighbourhood.isToroidal());
+            if (neighbour != null) {
+                action.accept(neighbour);
+            }
+        }
+    }
+
+    /**
+     * Counts the neighbour cells of the cell with the given coordinates that have the given state.
+     * No objects are created for this.
+     *
+     * See {@link #getNeighbours(int, int, Neighbourhood)} for a detailed explanation.
+     *
+     * @param column the column no. of the reference cell
+     * @param row the row no. of the reference cell
+     * @param neighbourhood the neighbourhood that defines which cells are neighbours.
+     * @param state the state of the neighbours that are counted.
+     * @return the number of neighbour cells with the given state.
+     */
+    public int countNeighboursWithState(int column, int row, Neighbourhood neighbourhood, State state) {
+        int count = 0;
+
+        final int[] offsets = neighbourhood.getOffsets(row);
+        for (int i = 0; i < offsets.length; i += 2) {
+            final Cell<State> neighbour = getNeighbour(column, row, offsets[i], offsets[i + 1], neighbourhood.isToroidal());
+            if (neighbour != null && Objects.equals(neighbour.getState(), state)) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private Cell<State> getNeighbour(int column, int row, int columnOffset, int rowOffset, boolean toroidal) {
+        int neighbourColumn = column + columnOffset;
+        int neighbourRow = row + rowOffset;
+
+        if (toroidal && indexColumns > 0 && indexRows > 0) {
+            neighbourColumn = Math.floorMod(neighbourColumn, indexColumns);
+            neighbourRow = Math.floorMod(neighbourRow, indexRows);
+        }
+
+        return getCell(neighbourColumn, neighbourRow);
+    }
+
 
     private <T> void addIfNotNull(Collection<T> collection, T element){
         if(element != null){
@@ -137,11 +548,43 @@ public class GridModel<State> {
     /**
      * Returns a list of cells that have the given state.
      *
+     * The cells are taken from an index that is maintained on every state change so the whole grid
+     * isn't scanned. The cells are returned in row-major order. While the grid model is in an update
+     * the state that was set last is used (see {@link Cell#getState()}).
+     *
      * @param state the state that should be used as filter
      * @return a collection of cells with the given state.
      */
+    @Override
+    @SuppressWarnings("unchecked")
     public List<Cell<State>> getCellsWithState(State state){
-        return cells.stream().filter(c->c.getState() == state).collect(Collectors.toList());
+        final StatePositions positions = stateIndex.get(state);
+
+        if (positions == null) {
+            return new ArrayList<>();
+        }
+
+        List<Cell<State>> result = new ArrayList<>(positions.count);
+
+        final BitSet bits = positions.bits;
+        for (int position = bits.nextSetBit(0); position >= 0; position = bits.nextSetBit(position + 1)) {
+            result.add((Cell<State>) cellIndex[position]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of cells that have the given state. The number is maintained on every state change
+     * so this method runs in constant time.
+     *
+     * @param state the state of the cells that are counted.
+     * @return the number of cells with the given state.
+     */
+    @Override
+    public int countCellsWithState(State state){
+        final StatePositions positions = stateIndex.get(state);
+        return positions == null ? 0 : positions.count;
     }
 
 
@@ -160,7 +603,15 @@ public class GridModel<State> {
      * @return a collection of cells of the given row.
      */
     public List<Cell<State>> getCellsOfRow(int rowNumber) {
-        return cells.stream().filter(cell -> cell.getRow() == rowNumber).collect(Collectors.toList());
+        List<Cell<State>> result = new ArrayList<>();
+
+        if (rowNumber >= 0 && rowNumber < indexRows) {
+            for (int column = 0; column < indexColumns; column++) {
+                addIfNotNull(result, getCell(column, rowNumber));
+            }
+        }
+
+        return result;
     }
 
     /**
@@ -170,7 +621,15 @@ public class GridModel<State> {
      * @return a collection of cells of the given row.
      */
     public List<Cell<State>> getCellsOfColumn(int columnNumber) {
-        return cells.stream().filter(cell -> cell.getColumn() == columnNumber).collect(Collectors.toList());
+        List<Cell<State>> result = new ArrayList<>();
+
+        if (columnNumber >= 0 && columnNumber < indexColumns) {
+            for (int row = 0; row < indexRows; row++) {
+                addIfNotNull(result, getCell(columnNumber, row));
+            }
+        }
+
+        return result;
     }
 
     /**
@@ -181,35 +640,349 @@ public class GridModel<State> {
      *
      * @param defaultState the default state.
      */
+    @Override
     public void setDefaultState(State defaultState) {
         this.defaultState = defaultState;
 
-        getCellsWithState(null).forEach(cell -> cell.changeState(defaultState));
+        update(() -> getCellsWithState(null).forEach(cell -> cell.changeState(defaultState)));
     }
 
-    public IntegerProperty numberOfColumns(){
-        return numberOfColumns;
+    /**
+     * Take a snapshot of the states of all cells. While the grid model is in an update the state that was set
+     * last is used (see {@link Cell#getState()}).
+     *
+     * Only the tiles of the grid that were changed since the last snapshot are copied. All other tiles are
+     * shared with the last snapshot (see {@link GridSnapshot}). This way snapshots can be taken often,
+     * for example once per frame.
+     *
+     * @return the snapshot.
+     */
+    @Override
+    public GridSnapshot<State> snapshot() {
+        final int tilesPerRow = GridSnapshot.numberOfTiles(indexColumns);
+        final int tilesPerColumn = GridSnapshot.numberOfTiles(indexRows);
+
+        Object[][] tiles = new Object[tilesPerRow * tilesPerColumn][];
+        int[] tileHashes = new int[tiles.length];
+
+        for (int tileIndex = 0; tileIndex < tiles.length; tileIndex++) {
+            if (lastSnapshot != null && !changedTiles.get(tileIndex)) {
+                tiles[tileIndex] = lastSnapshot.getTile(tileIndex);
+                tileHashes[tileIndex] = lastSnapshot.getTileHash(tileIndex);
+            } else {
+                tiles[tileIndex] = copyTile(tileIndex % tilesPerRow, tileIndex / tilesPerRow);
+                tileHashes[tileIndex] = GridSnapshot.tileHash(tiles[tileIndex]);
+            }
+        }
+
+        lastSnapshot = new GridSnapshot<>(indexColumns, indexRows, tiles, tileHashes);
+        changedTiles.clear();
+
+        return lastSnapshot;
     }
 
-    public int getNumberOfColumns(){
-        return numberOfColumns.get();
+    private Object[] copyTile(int tileColumn, int tileRow) {
+        Object[] tile = new Object[GridSnapshot.TILE_SIZE * GridSnapshot.TILE_SIZE];
+
+        final int firstColumn = tileColumn * GridSnapshot.TILE_SIZE;
+        final int firstRow = tileRow * GridSnapshot.TILE_SIZE;
+
+        final int lastColumn = Math.min(firstColumn + GridSnapshot.TILE_SIZE, indexColumns);
+        final int lastRow = Math.min(firstRow + GridSnapshot.TILE_SIZE, indexRows);
+
+        for (int row = firstRow; row < lastRow; row++) {
+            for (int column = firstColumn; column < lastColumn; column++) {
+                final Cell<State> cell = getCell(column, row);
+                if (cell != null) {
+                    tile[GridSnapshot.indexInTile(column, row)] = cell.getState();
+                }
+            }
+        }
+
+        return tile;
     }
 
-    public void setNumberOfColumns(int value){
-        numberOfColumns.set(value);
+    /**
+     * Apply the states of the given snapshot to the cells of this grid model. If the snapshot has
+     * a different size, the size of this grid model is changed first. All state changes are applied
+     * in a single update (see {@link #update(Runnable)}).
+     *
+     * Tiles that this grid model shares with the snapshot and that weren't changed since then are skipped.
+     *
+     * @param snapshot the snapshot.
+     */
+    @Override
+    public void restore(GridSnapshot<State> snapshot) {
+        setNumberOfColumns(snapshot.getNumberOfColumns());
+        setNumberOfRows(snapshot.getNumberOfRows());
+
+        final int tilesPerRow = GridSnapshot.numberOfTiles(indexColumns);
+
+        update(() -> {
+            for (int tileIndex = 0; tileIndex < snapshot.getNumberOfTiles(); tileIndex++) {
+                if (lastSnapshot != null && !changedTiles.get(tileIndex)
+                    && lastSnapshot.getTile(tileIndex) == snapshot.getTile(tileIndex)) {
+                    continue;
+                }
+
+                final int firstColumn = (tileIndex % tilesPerRow) * GridSnapshot.TILE_SIZE;
+                final int firstRow = (tileIndex / tilesPerRow) * GridSnapshot.TILE_SIZE;
+
+                final int lastColumn = Math.min(firstColumn + GridSnapshot.TILE_SIZE, indexColumns);
+                final int lastRow = Math.min(firstRow + GridSnapshot.TILE_SIZE, indexRows);
+
+                for (int row = firstRow; row < lastRow; row++) {
+                    for (int column = firstColumn; column < lastColumn; column++) {
+                        final Cell<State> cell = getCell(column, row);
+                        if (cell != null) {
+                            cell.changeState(snapshot.getState(column, row));
+                        }
+                    }
+                }
+            }
+        });
     }
 
-    public IntegerProperty numberOfRows(){
-        return numberOfRows;
+    /**
+     * Calls the given action for every cell of the grid. The grid is split into stripes of rows
+     * that are processed in parallel by the {@link #setForkJoinPool(ForkJoinPool) fork join pool}.
+     * The method returns when all cells are processed.
+     *
+     * The action is called from multiple threads at the same time. It may read the cells
+     * but it may not change their states. Use {@link #parallelReplaceAll(Predicate, Object)} for this.
+     *
+     * @param action the action that is called for every cell.
+     */
+    public void parallelForEach(Consumer<Cell<State>> action) {
+        parallelReduce((from, to) -> {
+            for (int position = from; position < to; position++) {
+                final Cell<State> cell = cellAt(position);
+                if (cell != null) {
+                    action.accept(cell);
+                }
+            }
+            return null;
+        }, (left, right) -> null);
+    }
+
+    /**
+     * Counts the cells that match the given predicate. The cells are tested in parallel
+     * (see {@link #parallelForEach(Consumer)}).
+     *
+     * @param predicate the predicate. Is called from multiple threads at the same time.
+     * @return the number of cells that match the predicate.
+     */
+    public long parallelCount(Predicate<Cell<State>> predicate) {
+        return parallelReduce((from, to) -> {
+            long count = 0;
+            for (int position = from; position < to; position++) {
+                final Cell<State> cell = cellAt(position);
+                if (cell != null && predicate.test(cell)) {
+                    count++;
+                }
+            }
+            return count;
+        }, Long::sum);
+    }
+
+    /**
+     * Changes the state of all cells that match the given predicate to the given state.
+     *
+     * The cells are tested in parallel (see {@link #parallelForEach(Consumer)}). After that the states
+     * of the matching cells are changed on the calling thread in a single update (see {@link #update(Runnable)})
+     * so listeners get only one notification.
+     *
+     * @param predicate the predicate. Is called from multiple threads at the same time.
+     * @param newState the new state for the matching cells.
+     * @return the number of cells that matched the predicate.
+     */
+    public int parallelReplaceAll(Predicate<Cell<State>> predicate, State newState) {
+        final List<Cell<State>> matchingCells = parallelReduce((from, to) -> {
+            List<Cell<State>> result = new ArrayList<>();
+            for (int position = from; position < to; position++) {
+                final Cell<State> cell = cellAt(position);
+                if (cell != null && predicate.test(cell)) {
+                    result.add(cell);
+                }
+            }
+            return result;
+        }, (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
+
+        update(() -> matchingCells.forEach(cell -> cell.changeState(newState)));
+
+        return matchingCells.size();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    Cell<State> cellAt(int position) {
+        return (Cell<State>) cellIndex[position];
+    }
+
+    @Override
+    boolean hasCellAt(int position) {
+        return cellIndex[position] != null;
     }
 
-    public int getNumberOfRows(){
-        return numberOfRows.get();
+    @Override
+    State stateAt(int position) {
+        final Cell<State> cell = cellAt(position);
+        return cell == null ? null : cell.getState();
     }
 
-    public void setNumberOfRows(int value){
-        numberOfRows.set(value);
+    @Override
+    void setStateAt(int position, State state) {
+        final Cell<State> cell = cellAt(position);
+        if (cell != null) {
+            cell.changeState(state);
+        }
+    }
+
+    /**
+     * Splits the positions of the {@link #cellIndex} into ranges that are processed in parallel
+     * and merges the results of the ranges in the order of the positions.
+     */
+    private <R> R parallelReduce(RangeFunction<R> rangeFunction, BinaryOperator<R> merge) {
+        final ForkJoinPool forkJoinPool = getForkJoinPool();
+        final int size = cellIndex.length;
+
+        // whole rows are processed together
+        final int rowsPerTask = Math.max(1, Math.max(MIN_CELLS_PER_TASK / Math.max(1, indexColumns),
+            indexRows / (forkJoinPool.getParallelism() * 4)));
+
+        final int cellsPerTask = Math.max(1, rowsPerTask * indexColumns);
+
+        return forkJoinPool.invoke(new RangeTask<>(0, size, cellsPerTask, rangeFunction, merge));
+    }
+
+    @FunctionalInterface
+    private interface RangeFunction<R> {
+        R apply(int from, int to);
+    }
+
+    private static class RangeTask<R> extends RecursiveTask<R> {
+
+        private final int from;
+        private final int to;
+        private final int cellsPerTask;
+
+        private final RangeFunction<R> rangeFunction;
+        private final BinaryOperator<R> merge;
+
+        RangeTask(int from, int to, int cellsPerTask, RangeFunction<R> rangeFunction, BinaryOperator<R> merge) {
+            this.from = from;
+            this.to = to;
+            this.cellsPerTask = cellsPerTask;
+            this.rangeFunction = rangeFunction;
+            this.merge = merge;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from <= cellsPerTask) {
+                return rangeFunction.apply(from, to);
+            }
+
+            // split at a multiple of cellsPerTask so that the ranges contain whole rows.
+            final int chunks = (to - from + cellsPerTask - 1) / cellsPerTask;
+            final int middle = from + (chunks / 2) * cellsPerTask;
+
+            RangeTask<R> left = new RangeTask<>(from, middle, cellsPerTask, rangeFunction, merge);
+            RangeTask<R> right = new RangeTask<>(middle, to, cellsPerTask, rangeFunction, merge);
+
+            right.fork();
+            final R leftResult = left.compute();
+            return merge.apply(leftResult, right.join());
+        }
     }
 
+    /**
+     * The positions of all cells with a specific state together with the number of these cells.
+     */
+    private static class StatePositions {
+
+        private BitSet bits = new BitSet();
+        private int count;
+
+        void add(int position) {
+            if (!bits.get(position)) {
+                bits.set(position);
+                count++;
+            }
+        }
+
+        void remove(int position) {
+            if (bits.get(position)) {
+                bits.clear(position);
+                count--;
+            }
+        }
+
+        /**
+         * Moves the positions to a grid with another size. The first <code>keptRows</code> rows keep their first
+         * <code>keptColumns</code> columns, all other positions are dropped.
+         * <p>
+         * When the number of columns stays the same the positions of the kept rows don't change and only the
+         * truncated rows are cleared. Otherwise the kept rows are copied word by word into their new place.
+         */
+        void resize(int oldColumns, int columns, int keptColumns, int keptRows) {
+            if (columns == oldColumns) {
+                final int end = bits.length();
+                if (end > keptRows * columns) {
+                    bits.clear(keptRows * columns, end);
+                    count = bits.cardinality();
+                }
+                return;
+            }
+
+            final long[] source = bits.toLongArray();
+            final long[] target = new long[(keptRows * columns + 63) >>> 6];
+
+            for (int row = 0; row < keptRows; row++) {
+                copyBits(source, row * oldColumns, target, row * columns, keptColumns);
+            }
+
+            bits = BitSet.valueOf(target);
+            count = bits.cardinality();
+        }
+
+        private static void copyBits(long[] source, int from, long[] target, int to, int length) {
+            for (int offset = 0; offset < length; offset += 64) {
+                final int chunk = Math.min(64, length - offset);
+                final long mask = chunk == 64 ? -1L : (1L << chunk) - 1;
 
+                final long value = readWord(source, from + offset) & mask;
+                if (value != 0) {
+                    writeWord(target, to + offset, value, chunk);
+                }
+            }
+        }
+
+        /**
+         * @return the 64 bits starting at the given bit.
+         */
+        private static long readWord(long[] words, int bit) {
+            final int word = bit >>> 6;
+            final int shift = bit & 63;
+
+            long value = word < words.length ? words[word] >>> shift : 0;
+            if (shift != 0 && word + 1 < words.length) {
+                value |= words[word + 1] << (64 - shift);
+            }
+            return value;
+        }
+
+        private static void writeWord(long[] words, int bit, long value, int length) {
+            final int word = bit >>> 6;
+            final int shift = bit & 63;
+
+            words[word] |= value << shift;
+            if (shift != 0 && shift + length > 64) {
+                words[word + 1] |= value >>> (64 - shift);
+            }
+        }
+    }
 }
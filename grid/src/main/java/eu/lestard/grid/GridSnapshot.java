@@ -0,0 +1,204 @@
+package eu.lestard.grid;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An immutable copy of the states of all cells of a grid model at a specific point in time.
+ * Snapshots are created with {@link AbstractGridModel#snapshot()} and can be applied to a grid model again
+ * with {@link AbstractGridModel#restore(GridSnapshot)}.
+ *
+ * The states are stored in square tiles of {@link #TILE_SIZE} x {@link #TILE_SIZE} cells. Tiles that haven't
+ * changed since the previous snapshot of the same {@link GridModel} are shared between the snapshots instead of
+ * being copied. This way taking a snapshot after only a few changes is cheap even for big grids.
+ *
+ * For every tile a hash of its states is stored (see {@link #getTileHash(int, int)}). The hashes are used to
+ * find unchanged tiles quickly when two snapshots are compared (see {@link #diff(GridSnapshot)}) and they can be
+ * sent to another process to find out which tiles of a mirrored grid are outdated.
+ *
+ * Snapshots are immutable and can be used from any thread.
+ *
+ * @param <State> the type of the states.
+ */
+public final class GridSnapshot<State> {
+
+    /**
+     * The width and height of the tiles.
+     */
+    public static final int TILE_SIZE = 32;
+
+    private final int numberOfColumns;
+    private final int numberOfRows;
+
+    private final int tilesPerRow;
+
+    /**
+     * The tiles in row-major order. The states inside of a tile are in row-major order too.
+     * The arrays may never be changed after the snapshot was created.
+     */
+    private final Object[][] tiles;
+
+    private final int[] tileHashes;
+
+    GridSnapshot(int numberOfColumns, int numberOfRows, Object[][] tiles, int[] tileHashes) {
+        this.numberOfColumns = numberOfColumns;
+        this.numberOfRows = numberOfRows;
+        this.tilesPerRow = numberOfTiles(numberOfColumns);
+        this.tiles = tiles;
+        this.tileHashes = tileHashes;
+    }
+
+    /**
+     * Computes the hash of the states of a tile. Enum states are hashed by their ordinal so that
+     * the hash is the same in every JVM.
+     */
+    static int tileHash(Object[] tile) {
+        int hash = 1;
+        for (Object state : tile) {
+            final int stateHash;
+            if (state == null) {
+                stateHash = 0;
+            } else if (state instanceof Enum) {
+                stateHash = ((Enum<?>) state).ordinal() + 1;
+            } else {
+                stateHash = state.hashCode();
+            }
+            hash = 31 * hash + stateHash;
+        }
+        return hash;
+    }
+
+    /**
+     * @return the number of tiles that are needed for the given number of cells in one direction.
+     */
+    static int numberOfTiles(int numberOfCells) {
+        return (numberOfCells + TILE_SIZE - 1) / TILE_SIZE;
+    }
+
+    /**
+     * @return the index of the tile that contains the cell with the given coordinates in a grid with
+     * the given number of columns.
+     */
+    static int tileIndex(int column, int row, int numberOfColumns) {
+        return (row / TILE_SIZE) * numberOfTiles(numberOfColumns) + column / TILE_SIZE;
+    }
+
+    /**
+     * @return the index of the cell with the given coordinates inside of its tile.
+     */
+    static int indexInTile(int column, int row) {
+        return (row % TILE_SIZE) * TILE_SIZE + column % TILE_SIZE;
+    }
+
+    /**
+     * Return the state that the cell with the given coordinates had when the snapshot was taken.
+     *
+     * @param column the column of the cell.
+     * @param row the row of the cell.
+     * @return the state of the cell.
+     * @throws IndexOutOfBoundsException if the coordinates are outside of the grid.
+     */
+    @SuppressWarnings("unchecked")
+    public State getState(int column, int row) {
+        if (column < 0 || column >= numberOfColumns || row < 0 || row >= numberOfRows) {
+            throw new IndexOutOfBoundsException("The cell [" + column + "," + row + "] is outside of the grid.");
+        }
+
+        return (State) tiles[(row / TILE_SIZE) * tilesPerRow + column / TILE_SIZE][indexInTile(column, row)];
+    }
+
+    /**
+     * Compare this snapshot with a newer one and return the changes that lead from this snapshot to the given one.
+     *
+     * Tiles that are shared between both snapshots or that have the same hash and the same states are skipped
+     * without looking at the single cells. If the snapshots have different sizes, cells that only exist in one of the
+     * snapshots are treated as having a state of <code>null</code> in the other one.
+     *
+     * @param newer the newer snapshot.
+     * @return the changes in row-major order of the tiles.
+     */
+    public GridDelta<State> diff(GridSnapshot<State> newer) {
+        GridDelta.Builder<State> delta = new GridDelta.Builder<>(newer.numberOfColumns, newer.numberOfRows);
+
+        final int columns = Math.max(numberOfColumns, newer.numberOfColumns);
+        final int rows = Math.max(numberOfRows, newer.numberOfRows);
+
+        final boolean sameSize = numberOfColumns == newer.numberOfColumns && numberOfRows == newer.numberOfRows;
+
+        for (int tileRow = 0; tileRow < numberOfTiles(rows); tileRow++) {
+            for (int tileColumn = 0; tileColumn < numberOfTiles(columns); tileColumn++) {
+
+                if (sameSize) {
+                    final int tileIndex = tileRow * tilesPerRow + tileColumn;
+
+                    final Object[] oldTile = tiles[tileIndex];
+                    final Object[] newTile = newer.tiles[tileIndex];
+
+                    if (oldTile == newTile || (tileHashes[tileIndex] == newer.tileHashes[tileIndex] && Arrays.equals(oldTile, newTile))) {
+                        continue;
+                    }
+                }
+
+                final int firstColumn = tileColumn * TILE_SIZE;
+                final int firstRow = tileRow * TILE_SIZE;
+
+                for (int row = firstRow; row < Math.min(firstRow + TILE_SIZE, rows); row++) {
+                    for (int column = firstColumn; column < Math.min(firstColumn + TILE_SIZE, columns); column++) {
+                        final State oldState = getStateOrNull(column, row);
+                        final State newState = newer.getStateOrNull(column, row);
+
+                        if (!Objects.equals(oldState, newState)) {
+                            delta.add(column, row, oldState, newState);
+                        }
+                    }
+                }
+            }
+        }
+
+        return delta.build();
+    }
+
+    private State getStateOrNull(int column, int row) {
+        if (column >= numberOfColumns || row >= numberOfRows) {
+            return null;
+        }
+        return getState(column, row);
+    }
+
+    /**
+     * Return the hash of the states of the tile with the given tile coordinates. The tile with the coordinates
+     * (0, 0) contains the cells of the columns and rows 0 to {@link #TILE_SIZE} - 1.
+     *
+     * For enum states the hash is the same in every JVM.
+     *
+     * @param tileColumn the column of the tile.
+     * @param tileRow the row of the tile.
+     * @return the hash of the tile.
+     */
+    public int getTileHash(int tileColumn, int tileRow) {
+        if (tileColumn < 0 || tileColumn >= tilesPerRow || tileRow < 0 || tileRow >= numberOfTiles(numberOfRows)) {
+            throw new IndexOutOfBoundsException("The tile [" + tileColumn + "," + tileRow + "] is outside of the grid.");
+        }
+        return tileHashes[tileRow * tilesPerRow + tileColumn];
+    }
+
+    public int getNumberOfColumns() {
+        return numberOfColumns;
+    }
+
+    public int getNumberOfRows() {
+        return numberOfRows;
+    }
+
+    int getNumberOfTiles() {
+        return tiles.length;
+    }
+
+    Object[] getTile(int tileIndex) {
+        return tiles[tileIndex];
+    }
+
+    int getTileHash(int tileIndex) {
+        return tileHashes[tileIndex];
+    }
+}
@@ -6,6 +6,7 @@ import javafx.beans.Observable;
 import javafx.beans.binding.Bindings;
 import javafx.beans.binding.NumberBinding;
 import javafx.beans.property.*;
+import javafx.beans.value.ChangeListener;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
@@ -14,14 +15,21 @@ import javafx.geometry.Insets;
 import javafx.scene.Node;
 import javafx.scene.input.MouseDragEvent;
 import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.Paint;
 import javafx.scene.shape.Line;
 import javafx.scene.shape.Rectangle;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 
@@ -29,22 +37,64 @@ import java.util.function.Function;
  * This class is the UI part of the grid and defines how the grid is shown in the view.
  *
  * To use this class you need to first create a {@link eu.lestard.grid.GridModel} and add it to this view class with the {@link #setGridModel} method.
+ * The grid models that create cells on demand (see {@link LazyGridModel}) can be shown in the {@link RenderMode#CANVAS}
+ * and {@link RenderMode#VIRTUALIZED} modes. In the virtualized mode only the cells of the visible region are requested.
  *
  * After that you can define what the grid will look like when a cell gets a specific State.
  *
+ * The grid view supports different rendering modes (see {@link RenderMode}). By default every cell is
+ * rendered as its own pane. For big grids the {@link RenderMode#CANVAS} mode can be used.
+ *
  * @param <State> the generic enum type that defines the states that the grid view can show.
  */
 public class GridView<State> extends StackPane {
 
+    private final RenderMode renderMode;
+
+    /**
+     * Paints the cells when the {@link RenderMode#CANVAS} mode is used. Is <code>null</code> in other modes.
+     */
+    private CanvasCellLayer<State> canvasLayer;
+
+    /**
+     * Manages the cell panes when the {@link RenderMode#VIRTUALIZED} mode is used. Is <code>null</code> in other modes.
+     */
+    private VirtualCellLayer<State> virtualLayer;
+
     private Pane rootPane = new Pane();
 
     private Pane guidelinePane = new Pane();
 
     private Map<State, Color> colorMapping = new HashMap<>();
 
+    /**
+     * The backgrounds of the cell panes for every state. All cells with the same state share the same
+     * background instance. The cache is cleared when the color mapping changes.
+     */
+    private Map<State, Background> backgroundCache = new HashMap<>();
+
     private Map<State, Function<Cell<State>, Node>> nodeMapping = new HashMap<>();
 
-    private ObjectProperty<GridModel<State>> gridModel = new SimpleObjectProperty<>();
+    private Map<State, BiFunction<Cell<State>, Node, Node>> recyclingNodeMapping = new HashMap<>();
+
+    /**
+     * Nodes that were created by recycling mappings (see {@link #addRecyclingNodeMapping(Object, BiFunction)})
+     * and are not used at the moment. The nodes are grouped by the state they were created for.
+     */
+    private Map<State, Deque<Node>> nodePool = new HashMap<>();
+
+    /**
+     * Is increased every time the node mappings are changed. Nodes that were created with older mappings
+     * are not recycled.
+     */
+    private int nodeMappingGeneration = 0;
+
+    /**
+     * The key that is used to store the {@link RecyclableNode} of a cell pane in the properties of the pane.
+     */
+    private static final String RECYCLABLE_NODE_KEY = "eu.lestard.grid.recyclableNode";
+
+    private ObjectProperty<AbstractGridModel<State>> gridModel = new SimpleObjectProperty<>();
 
     private Map<Cell<State>, Pane> rectangleMap = new HashMap<>();
 
@@ -69,17 +119,52 @@ public class GridView<State> extends StackPane {
     private DoubleProperty guidelineStrokeWidth = new SimpleDoubleProperty(5);
 
 
+    private DoubleProperty viewportCellSize = new SimpleDoubleProperty(30);
+    private DoubleProperty viewportX = new SimpleDoubleProperty(0);
+    private DoubleProperty viewportY = new SimpleDoubleProperty(0);
+
+
     private Rectangle gridBackground = new Rectangle();
 
     // don't inline these bindings to prevent errors with Garbage Collection
     private NumberBinding numberOfHorizontalMajorGuidelines;
     private NumberBinding numberOfVerticalMajorGuidelines;
+
+    // the size of the whole grid and of the visible part of it in pixels. Only used in the VIRTUALIZED mode.
+    private NumberBinding gridPixelWidth;
+    private NumberBinding gridPixelHeight;
+    private NumberBinding viewportWidth;
+    private NumberBinding viewportHeight;
+    private Rectangle guidelineClip = new Rectangle();
     private Function<Cell<State>, Node> nodeFactory;
+    private BiFunction<Cell<State>, Node, Node> recyclingNodeFactory;
+
+    /**
+     * Changed cells are not rendered immediately. Instead they are rendered once per pulse.
+     */
+    private final RepaintScheduler<State> repaintScheduler = new RepaintScheduler<>(this::renderCells, this::updateAllCells);
+
+    /**
+     * Marks the cells as dirty when the states of cells are changed. There is only a single listener on the
+     * grid model instead of one listener per cell so that batched updates (see {@link AbstractGridModel#beginUpdate()})
+     * result in a single notification.
+     */
+    private final Consumer<List<Cell<State>>> stateChangeListener = changedCells -> repaintScheduler.markDirty(changedCells);
 
     /**
-     * Create a new instance of the GridView.
+     * Create a new instance of the GridView that uses the {@link RenderMode#NODES} mode.
      */
     public GridView() {
+        this(RenderMode.NODES);
+    }
+
+    /**
+     * Create a new instance of the GridView that uses the given render mode.
+     *
+     * @param renderMode the mode that is used to render the cells.
+     */
+    public GridView(RenderMode renderMode) {
+        this.renderMode = renderMode;
 
         this.setMinWidth(0);
         this.setMinHeight(0);
@@ -90,7 +175,32 @@ public class GridView<State> extends StackPane {
         guidelinePane.setMouseTransparent(true);
         this.getChildren().add(guidelinePane);
 
+        if (renderMode == RenderMode.CANVAS) {
+            canvasLayer = new CanvasCellLayer<>(this);
+            rootPane.getChildren().add(canvasLayer.getCanvas());
+
+            cellSquareSize.addListener((obs, oldValue, newValue) -> requestFullRepaint());
+        }
+
+        if (renderMode == RenderMode.VIRTUALIZED) {
+            virtualLayer = new VirtualCellLayer<>(this);
+            rootPane.getChildren().add(virtualLayer.getContent());
+
+            this.addEventHandler(ScrollEvent.SCROLL, event -> {
+                if (event.isControlDown()) {
+                    zoomViewport(event.getDeltaY());
+                } else {
+                    scrollViewport(-event.getDeltaX(), -event.getDeltaY());
+                }
+                event.consume();
+            });
+        }
+
         gridModel.addListener((obs, oldValue, newValue) -> {
+            if (oldValue != null) {
+                oldValue.removeStateChangeListener(stateChangeListener);
+            }
+
             if (newValue != null) {
                 initGridModel();
             }
@@ -107,20 +217,29 @@ public class GridView<State> extends StackPane {
      *
      */
     private void initGridModel() {
-        NumberBinding widthPerCell = this.widthProperty()
-            .subtract(gridBorderWidth.multiply(2))
-            .divide(getGridModel().numberOfColumns());
-        NumberBinding heightPerCell = this.heightProperty()
-            .subtract(gridBorderWidth.multiply(2))
-            .divide(getGridModel().numberOfRows());
-
-        NumberBinding pxPerCell = Bindings.min(widthPerCell, heightPerCell);
+        NumberBinding availableWidth = this.widthProperty().subtract(gridBorderWidth.multiply(2));
+        NumberBinding availableHeight = this.heightProperty().subtract(gridBorderWidth.multiply(2));
+
+        final NumberBinding pxPerCell;
+        if (virtualLayer != null) {
+            // in the virtualized mode the cells have a fixed size.
+            pxPerCell = Bindings.max(viewportCellSize, 1);
+        } else {
+            NumberBinding widthPerCell = availableWidth.divide(getGridModel().numberOfColumns());
+            NumberBinding heightPerCell = availableHeight.divide(getGridModel().numberOfRows());
+
+            pxPerCell = Bindings.min(widthPerCell, heightPerCell);
+        }
 
         cellSquareSize.bind(pxPerCell);
 
 
-        NumberBinding rootWidth = pxPerCell.multiply(getGridModel().numberOfColumns());
-        NumberBinding rootHeight = pxPerCell.multiply(getGridModel().numberOfRows());
+        NumberBinding gridWidth = pxPerCell.multiply(getGridModel().numberOfColumns());
+        NumberBinding gridHeight = pxPerCell.multiply(getGridModel().numberOfRows());
+
+        // in the virtualized mode only the part of the grid that fits into the view is shown.
+        NumberBinding rootWidth = virtualLayer == null ? gridWidth : Bindings.max(0, Bindings.min(gridWidth, availableWidth));
+        NumberBinding rootHeight = virtualLayer == null ? gridHeight : Bindings.max(0, Bindings.min(gridHeight, availableHeight));
 
         rootPane.maxWidthProperty().bind(rootWidth);
         rootPane.maxHeightProperty().bind(rootHeight);
@@ -148,7 +267,7 @@ public class GridView<State> extends StackPane {
                 major.startYProperty().bind(guidelineStrokeWidth.divide(2));
                 major.startXProperty().bind(cellSquareSize.multiply(row));
 
-                major.endYProperty().bind(gridBackground.heightProperty().subtract(guidelineStrokeWidth));
+                major.endYProperty().bind(gridHeight.add(gridBorderWidth.multiply(2)).subtract(guidelineStrokeWidth));
                 major.endXProperty().bind(cellSquareSize.multiply(row));
 
                 major.strokeProperty().bind(guidelineColor);
@@ -164,7 +283,7 @@ public class GridView<State> extends StackPane {
                 major.startXProperty().bind(guidelineStrokeWidth.divide(2));
 
                 major.endYProperty().bind(cellSquareSize.multiply(column));
-                major.endXProperty().bind(gridBackground.widthProperty().subtract(guidelineStrokeWidth));
+                major.endXProperty().bind(gridWidth.add(gridBorderWidth.multiply(2)).subtract(guidelineStrokeWidth));
 
                 major.strokeProperty().bind(guidelineColor);
                 major.strokeWidthProperty().bind(guidelineStrokeWidth);
@@ -176,11 +295,25 @@ public class GridView<State> extends StackPane {
         horizontalGuidelines.addListener(guidelineRepaintListener);
         verticalGuidelines.addListener(guidelineRepaintListener);
 
-        gridModel.get().getCells().forEach(cell -> {
+        gridModel.get().addStateChangeListener(stateChangeListener);
+
+        if (canvasLayer != null) {
+            initCanvasLayer(rootWidth, rootHeight);
+            return;
+        }
+
+        if (virtualLayer != null) {
+            initVirtualLayer(gridWidth, gridHeight, rootWidth, rootHeight);
+            return;
+        }
+
+        final GridModel<State> model = (GridModel<State>) gridModel.get();
+
+        model.getCells().forEach(cell -> {
             addedCell(pxPerCell, cell);
         });
 
-        gridModel.get().cells().addListener((ListChangeListener<Cell<State>>) change -> {
+        model.cells().addListener((ListChangeListener<Cell<State>>) change -> {
             while (change.next()) {
 
                 if (change.wasAdded()) {
@@ -202,6 +335,103 @@ public class GridView<State> extends StackPane {
 
     }
 
+    private void initCanvasLayer(NumberBinding rootWidth, NumberBinding rootHeight) {
+        canvasLayer.getCanvas().widthProperty().bind(rootWidth);
+        canvasLayer.getCanvas().heightProperty().bind(rootHeight);
+
+        requestFullRepaint();
+
+        // the cells have changed because of a resize of the grid
+        addCellsChangedListener(this::requestFullRepaint);
+    }
+
+    private void initVirtualLayer(NumberBinding gridWidth, NumberBinding gridHeight, NumberBinding rootWidth, NumberBinding rootHeight) {
+        gridPixelWidth = gridWidth;
+        gridPixelHeight = gridHeight;
+        viewportWidth = rootWidth;
+        viewportHeight = rootHeight;
+
+        Rectangle rootClip = new Rectangle();
+        rootClip.widthProperty().bind(rootWidth);
+        rootClip.heightProperty().bind(rootHeight);
+        rootPane.setClip(rootClip);
+
+        // the guidelines are moved together with the cells
+        guidelineClip.widthProperty().bind(rootWidth);
+        guidelineClip.heightProperty().bind(rootHeight);
+        guidelinePane.setClip(guidelineClip);
+
+        ChangeListener<Object> viewportListener = (obs, oldValue, newValue) -> refreshViewport();
+
+        gridWidth.addListener(viewportListener);
+        gridHeight.addListener(viewportListener);
+        rootWidth.addListener(viewportListener);
+        rootHeight.addListener(viewportListener);
+        viewportX.addListener(viewportListener);
+        viewportY.addListener(viewportListener);
+
+        // the cells have changed because of a resize of the grid
+        addCellsChangedListener(this::refreshViewport);
+
+        refreshViewport();
+    }
+
+    /**
+     * Call the given action when cells are added to or removed from the grid model. The cells of a {@link GridModel}
+     * can also be removed from the outside. All other grid models only change their cells when they are resized.
+     */
+    private void addCellsChangedListener(Runnable action) {
+        final AbstractGridModel<State> model = gridModel.get();
+
+        if (model instanceof GridModel) {
+            ((GridModel<State>) model).cells().addListener((ListChangeListener<Cell<State>>) change -> action.run());
+        } else {
+            InvalidationListener sizeListener = observable -> action.run();
+
+            model.numberOfColumns().addListener(sizeListener);
+            model.numberOfRows().addListener(sizeListener);
+        }
+    }
+
+    /**
+     * Update the visible cells in the {@link RenderMode#VIRTUALIZED} mode.
+     */
+    private void refreshViewport() {
+        final double width = viewportWidth.doubleValue();
+        final double height = viewportHeight.doubleValue();
+
+        final double x = clamp(viewportX.get(), gridPixelWidth.doubleValue() - width);
+        final double y = clamp(viewportY.get(), gridPixelHeight.doubleValue() - height);
+
+        guidelinePane.setTranslateX(-x);
+        guidelinePane.setTranslateY(-y);
+        guidelineClip.setX(x);
+        guidelineClip.setY(y);
+
+        virtualLayer.refresh(x, y, width, height);
+    }
+
+    private void scrollViewport(double deltaX, double deltaY) {
+        if (gridPixelWidth == null) {
+            return;
+        }
+
+        viewportX.set(clamp(viewportX.get() + deltaX, gridPixelWidth.doubleValue() - viewportWidth.doubleValue()));
+        viewportY.set(clamp(viewportY.get() + deltaY, gridPixelHeight.doubleValue() - viewportHeight.doubleValue()));
+    }
+
+    private void zoomViewport(double delta) {
+        if (delta > 0) {
+            viewportCellSize.set(viewportCellSize.get() * 1.1);
+        } else if (delta < 0) {
+            viewportCellSize.set(viewportCellSize.get() / 1.1);
+        }
+    }
+
+    private static double clamp(double value, double max) {
+        return Math.max(0, Math.min(value, max));
+    }
+
     private void initMajorGuidelinesBindings(){
         numberOfHorizontalMajorGuidelines = NumberBindings.divideSafe(getGridModel().numberOfRows().subtract(1), horizontalGuidelineUnit);
 
@@ -237,34 +467,60 @@ public class GridView<State> extends StackPane {
         NumberBinding xStart = pxPerCell.multiply(cell.getColumn());
         NumberBinding yStart = pxPerCell.multiply(cell.getRow());
 
-        Pane pane = new StackPane();
+        Pane pane = createCellPane();
         pane.layoutXProperty().bind(xStart);
         pane.layoutYProperty().bind(yStart);
 
-        pane.minWidthProperty().bind(pxPerCell);
-        pane.maxWidthProperty().bind(pxPerCell);
+        attachCellPane(cell, pane);
 
-        pane.minHeightProperty().bind(pxPerCell);
-        pane.maxHeightProperty().bind(pxPerCell);
-
-        updateCellFill(pane, cell);
+        rootPane.getChildren().add(pane);
+    }
 
-        pane.borderProperty().bind(cellBorder);
+    /**
+     * Create a new pane for a cell. The pane is not connected to a specific cell. Instead the
+     * mouse handlers use the cell that is stored as user data of the pane (see {@link #attachCellPane(Cell, Pane)}).
+     * This way panes can be reused for other cells in the {@link RenderMode#VIRTUALIZED} mode.
+     */
+    Pane createCellPane() {
+        Pane pane = new StackPane();
 
-        cell.stateProperty().addListener((obs, oldValue, newValue) -> updateCellFill(pane, cell));
+        pane.minWidthProperty().bind(cellSquareSize);
+        pane.maxWidthProperty().bind(cellSquareSize);
 
+        pane.minHeightProperty().bind(cellSquareSize);
+        pane.maxHeightProperty().bind(cellSquareSize);
 
+        pane.borderProperty().bind(cellBorder);
 
 
-        initMouseOverFilter(pane, cell);
+        initMouseOverFilter(pane);
 
 
         // mouse click handler
-        pane.addEventHandler(MouseEvent.MOUSE_CLICKED, event -> fireEventHandler(event, cell.onClickProperty()));
+        pane.addEventHandler(MouseEvent.MOUSE_CLICKED, event -> fireCellEventHandler(event, pane, Cell::getOnClick));
+
+        return pane;
+    }
 
+    /**
+     * Use the given pane to show the given cell.
+     */
+    void attachCellPane(Cell<State> cell, Pane pane) {
+        pane.setUserData(cell);
         rectangleMap.put(cell, pane);
 
-        rootPane.getChildren().add(pane);
+        updateCellFill(pane, cell);
+    }
+
+    /**
+     * The pane of the given cell isn't used to show the cell anymore.
+     */
+    Pane detachCellPane(Cell<State> cell) {
+        final Pane pane = rectangleMap.remove(cell);
+        if (pane != null) {
+            pane.setUserData(null);
+        }
+        return pane;
     }
 
     /**
@@ -272,11 +528,10 @@ public class GridView<State> extends StackPane {
      *
      *
      * @param pane
-     * @param cell
      */
-    private void initMouseOverFilter(Pane pane, Cell<State> cell){
+    private void initMouseOverFilter(Pane pane){
         // When no mouse button is pressed, this event handler is used.
-        pane.addEventHandler(MouseEvent.MOUSE_ENTERED, event-> fireEventHandler(event, cell.onMouseOverProperty()));
+        pane.addEventHandler(MouseEvent.MOUSE_ENTERED, event-> fireCellEventHandler(event, pane, Cell::getOnMouseOver));
 
 
         // when a mouse button is pressed, we need a special treatment because JavaFX switches to Drag-And-Drop gesture.
@@ -286,37 +541,112 @@ public class GridView<State> extends StackPane {
             pane.startFullDrag();
             pane.setMouseTransparent(true);
 
-            fireEventHandler(event, cell.onMouseOverProperty());
+            fireCellEventHandler(event, pane, Cell::getOnMouseOver);
         });
 
         pane.addEventFilter(MouseEvent.MOUSE_RELEASED, event-> pane.setMouseTransparent(false));
-        pane.addEventFilter(MouseDragEvent.MOUSE_DRAG_ENTERED, event-> fireEventHandler(event, cell.onMouseOverProperty()));
+        pane.addEventFilter(MouseDragEvent.MOUSE_DRAG_ENTERED, event-> fireCellEventHandler(event, pane, Cell::getOnMouseOver));
+
+    }
 
+    @SuppressWarnings("unchecked")
+    private void fireCellEventHandler(MouseEvent event, Pane pane, Function<Cell<State>, EventHandler<MouseEvent>> handler){
+        final Cell<State> cell = (Cell<State>) pane.getUserData();
+        if(cell != null){
+            fireEventHandler(event, handler.apply(cell));
+        }
     }
 
-    private void fireEventHandler(MouseEvent event, ObjectProperty<EventHandler<MouseEvent>> handler){
-        if(handler.isNotNull().get()){
-            handler.get().handle(event);
+    private void fireEventHandler(MouseEvent event, EventHandler<MouseEvent> handler){
+        if(handler != null){
+            handler.handle(event);
         }
     }
 
+    /**
+     * Render the given cells. This is called by the {@link RepaintScheduler} once per pulse.
+     */
+    private void renderCells(List<Cell<State>> cells) {
+        if (canvasLayer != null) {
+            final AbstractGridModel<State> model = getGridModel();
+
+            // cells that were removed from the grid in the meantime may not be painted
+            cells.removeIf(cell -> !model.isOwnerOf(cell));
+
+            canvasLayer.paintCells(cells);
+        } else {
+            cells.forEach(cell -> {
+                final Pane pane = rectangleMap.get(cell);
+                if (pane != null) {
+                    updateCellFill(pane, cell);
+                }
+            });
+        }
+    }
+
+    /**
+     * All cells will be rendered again with the next pulse.
+     */
+    void requestFullRepaint() {
+        repaintScheduler.markAllDirty();
+    }
+
+    /**
+     * Render all changes that are waiting for the next pulse immediately.
+     */
+    void flushRepaint() {
+        repaintScheduler.flush();
+    }
+
     private void updateAllCells() {
-        rectangleMap.forEach((cell, pane) -> updateCellFill(pane, cell));
+        // all pending changes are rendered now
+        repaintScheduler.clear();
+
+        if (canvasLayer != null) {
+            canvasLayer.paintAll();
+        } else {
+            rectangleMap.forEach((cell, pane) -> updateCellFill(pane, cell));
+        }
     }
 
 
+    /**
+     * Returns the pane that represents the given cell in the view.
+     *
+     * In the {@link RenderMode#CANVAS} mode there are no panes for the cells so <code>null</code> is returned.
+     * In the {@link RenderMode#VIRTUALIZED} mode only the cells in the visible region have a pane.
+     *
+     * @param cell the cell.
+     * @return the pane of the cell.
+     */
     public Pane getCellPane(Cell<State> cell) {
         return rectangleMap.get(cell);
     }
 
+    /**
+     * @return the color that is used for cells with the given state.
+     */
+    Color getCellColor(State state) {
+        final Color color = colorMapping.get(state);
+
+        return color == null ? Color.WHITE : color; // default color
+    }
+
+    /**
+     * @return the background that is used for cells with the given state.
+     */
+    Background getCellBackground(State state) {
+        return backgroundCache.computeIfAbsent(state, key ->
+            new Background(new BackgroundFill(getCellColor(key), CornerRadii.EMPTY, Insets.EMPTY)));
+    }
+
     private void updateCellFill(Pane pane, Cell<State> cell) {
-        Color backgroundColor = Color.WHITE; // default color
-        if(colorMapping.containsKey(cell.getState())){
-            backgroundColor = colorMapping.get(cell.getState());
+        pane.setBackground(getCellBackground(cell.getState()));
+
+        if (updateRecyclableNode(pane, cell)) {
+            return;
         }
 
-        pane.setBackground(new Background(new BackgroundFill(backgroundColor, CornerRadii.EMPTY,
-            Insets.EMPTY)));
         pane.getChildren().clear();
         final Function<Cell<State>, Node> nodeSupplier = nodeMapping.get(cell.getState());
 
@@ -332,23 +662,121 @@ public class GridView<State> extends StackPane {
         }
     }
 
+    /**
+     * Update the node of the cell pane if a recycling mapping is defined for the state of the cell.
+     *
+     * The node that was created for the previous state of the cell is put into the node pool. If a recycling mapping
+     * is defined for the new state it gets a node from the pool. If the state of the cell is the same as before,
+     * the current node of the cell is passed to the mapping.
+     *
+     * @return <code>true</code> if the node was created by a recycling mapping, otherwise <code>false</code>.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean updateRecyclableNode(Pane pane, Cell<State> cell) {
+        final State state = cell.getState();
+        final BiFunction<Cell<State>, Node, Node> mappingFunction = getRecyclingMappingFunction(state);
+
+        Node recycledNode = null;
+
+        final RecyclableNode<State> currentNode = (RecyclableNode<State>) pane.getProperties().remove(RECYCLABLE_NODE_KEY);
+        if (currentNode != null && currentNode.generation == nodeMappingGeneration) {
+            if (mappingFunction != null && Objects.equals(currentNode.state, state)) {
+                recycledNode = currentNode.node;
+            } else {
+                nodePool.computeIfAbsent(currentNode.state, key -> new ArrayDeque<>()).push(currentNode.node);
+            }
+        }
+
+        if (mappingFunction == null) {
+            return false;
+        }
+
+        if (recycledNode == null) {
+            final Deque<Node> pool = nodePool.get(state);
+            if (pool != null) {
+                recycledNode = pool.poll();
+            }
+        }
+
+        final Node node = mappingFunction.apply(cell, recycledNode);
+
+        if (node == null) {
+            pane.getChildren().clear();
+        } else {
+            if (pane.getChildren().size() != 1 || pane.getChildren().get(0) != node) {
+                pane.getChildren().setAll(node);
+            }
+            pane.getProperties().put(RECYCLABLE_NODE_KEY, new RecyclableNode<>(state, node, nodeMappingGeneration));
+        }
+
+        return true;
+    }
+
+    /**
+     * @return the recycling mapping function for the given state or <code>null</code> if the nodes
+     * for this state are not created by a recycling mapping.
+     */
+    private BiFunction<Cell<State>, Node, Node> getRecyclingMappingFunction(State state) {
+        if (recyclingNodeMapping.containsKey(state)) {
+            return recyclingNodeMapping.get(state);
+        }
+
+        if (nodeMapping.containsKey(state)) {
+            return null;
+        }
+
+        return recyclingNodeFactory;
+    }
+
+    /**
+     * The node mappings have changed so the nodes in the pool can't be reused anymore.
+     */
+    private void nodeMappingsChanged() {
+        nodeMappingGeneration++;
+        nodePool.clear();
+    }
+
     private void updateCellBorder() {
         BorderWidths widths = new BorderWidths(cellBorderWidth.get());
         BorderStroke stroke = new BorderStroke(cellBorderColor.get(), BorderStrokeStyle.SOLID, CornerRadii.EMPTY,
             widths);
         cellBorder.set(new Border(stroke));
+
+        if (canvasLayer != null) {
+            requestFullRepaint();
+        }
+    }
+
+    /**
+     * @return the render mode that is used by this grid view.
+     */
+    public RenderMode getRenderMode() {
+        return renderMode;
     }
 
-    public void setGridModel(GridModel<State> gridModel) {
+    /**
+     * Show the given grid model.
+     *
+     * @param gridModel the grid model.
+     * @throws IllegalArgumentException if the grid model isn't a {@link GridModel} and the {@link RenderMode#NODES}
+     * mode is used. This mode needs a pane for every cell of the grid.
+     */
+    public void setGridModel(AbstractGridModel<State> gridModel) {
+        if (renderMode == RenderMode.NODES && gridModel != null && !(gridModel instanceof GridModel)) {
+            throw new IllegalArgumentException("The " + RenderMode.NODES + " mode can only show a GridModel. "
+                + "Use the " + RenderMode.CANVAS + " or " + RenderMode.VIRTUALIZED + " mode instead.");
+        }
+
         this.gridModel.set(gridModel);
     }
 
-    public GridModel<State> getGridModel() {
+    public AbstractGridModel<State> getGridModel() {
         return gridModel.get();
     }
 
     public void addColorMapping(State state, Color color) {
         this.colorMapping.put(state, color);
+        backgroundCache.remove(state);
         updateAllCells();
     }
 
@@ -388,7 +816,39 @@ public class GridView<State> extends StackPane {
      * @param mappingFunction the mapping function.
      */
     public void addNodeMapping(State state, Function<Cell<State>, Node> mappingFunction) {
+        this.recyclingNodeMapping.remove(state);
         this.nodeMapping.put(state, mappingFunction);
+        nodeMappingsChanged();
+        updateAllCells();
+    }
+
+    /**
+     * This is an alternative to {@link #addNodeMapping(Object, Function)} that reuses the nodes of cells.
+     *
+     * The mapping function gets the cell and a node that was created by this function before and isn't used
+     * anymore because the cell that it was created for has changed its state. If no such node is available,
+     * <code>null</code> is passed. The function can update the given node in place and return it instead of creating
+     * a new node every time.
+     *
+     * The recycled node is always a node that was created for the same state.
+     *
+     * <pre>
+     *
+     *      gridView.addRecyclingNodeMapping(States.A, (cell, recycledNode){@code ->} {
+     *          Label label = recycledNode == null ? new Label() : (Label) recycledNode;
+     *          label.setText(cell.getColumn() + "," + cell.getRow());
+     *          return label;
+     *      });
+     *
+     * </pre>
+     *
+     * @param state           the state for that the mapping function is used.
+     * @param mappingFunction the mapping function.
+     */
+    public void addRecyclingNodeMapping(State state, BiFunction<Cell<State>, Node, Node> mappingFunction) {
+        this.nodeMapping.remove(state);
+        this.recyclingNodeMapping.put(state, mappingFunction);
+        nodeMappingsChanged();
         updateAllCells();
     }
 
@@ -407,7 +867,28 @@ public class GridView<State> extends StackPane {
      * @param nodeFactory a function that returns a node instance for a given cell.
      */
     public void setNodeFactory(Function<Cell<State>, Node> nodeFactory) {
+        this.recyclingNodeFactory = null;
         this.nodeFactory = nodeFactory;
+        nodeMappingsChanged();
+        updateAllCells();
+    }
+
+    /**
+     * This is an alternative to {@link #setNodeFactory(Function)} that reuses the nodes of cells in the same
+     * way as {@link #addRecyclingNodeMapping(Object, BiFunction)}.
+     *
+     * The factory gets the cell and a node that was created by the factory for another cell with the same state
+     * that isn't used anymore (or <code>null</code> if no such node is available).
+     *
+     * Like with {@link #setNodeFactory(Function)} the factory has a lower priority than the mappings for specific states
+     * and it is safe to return <code>null</code>.
+     *
+     * @param nodeFactory a function that returns a node instance for a given cell and a recycled node.
+     */
+    public void setRecyclingNodeFactory(BiFunction<Cell<State>, Node, Node> nodeFactory) {
+        this.nodeFactory = null;
+        this.recyclingNodeFactory = nodeFactory;
+        nodeMappingsChanged();
         updateAllCells();
     }
 
@@ -521,4 +1002,61 @@ public class GridView<State> extends StackPane {
     public DoubleProperty guidelineStrokeWidth(){
         return guidelineStrokeWidth;
     }
+
+    /**
+     * The size of a single cell in the {@link RenderMode#VIRTUALIZED} mode. This can be used
+     * to zoom in and out. In other modes the size of the cells is defined by the available space.
+     *
+     * When the control key is pressed, scrolling changes this value.
+     *
+     * Default value is: 30.
+     *
+     * @return the size as double property.
+     */
+    public DoubleProperty viewportCellSizeProperty(){
+        return viewportCellSize;
+    }
+
+    /**
+     * The horizontal position of the visible region in the {@link RenderMode#VIRTUALIZED} mode in pixels.
+     * It is changed when the user scrolls over the grid.
+     *
+     * Default value is: 0.
+     *
+     * @return the position as double property.
+     */
+    public DoubleProperty viewportXProperty(){
+        return viewportX;
+    }
+
+    /**
+     * The vertical position of the visible region in the {@link RenderMode#VIRTUALIZED} mode in pixels.
+     * It is changed when the user scrolls over the grid.
+     *
+     * Default value is: 0.
+     *
+     * @return the position as double property.
+     */
+    public DoubleProperty viewportYProperty(){
+        return viewportY;
+    }
+
+    VirtualCellLayer<State> getVirtualLayer() {
+        return virtualLayer;
+    }
+
+    /**
+     * A node of a cell pane that was created by a recycling mapping.
+     */
+    private static class RecyclableNode<State> {
+        private final State state;
+        private final Node node;
+        private final int generation;
+
+        RecyclableNode(State state, Node node, int generation) {
+            this.state = state;
+            this.node = node;
+            this.generation = generation;
+        }
+    }
 }
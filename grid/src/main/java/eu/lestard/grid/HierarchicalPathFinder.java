@@ -0,0 +1,621 @@
+package eu.lestard.grid;
+
+import javafx.beans.value.ChangeListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Finds paths on big grids with hierarchical path finding (HPA*).
+ *
+ * The grid is split into square clusters of {@link #getClusterSize()} x {@link #getClusterSize()} cells. On the border
+ * between two neighbouring clusters every run of cells that can be entered on both sides gets one entrance (two for
+ * long runs). The entrances are the nodes of an abstract graph. The distances between the entrances of the same cluster
+ * are precomputed. A query only searches the abstract graph and then refines the found route cluster by cluster,
+ * so the number of visited cells doesn't depend on the size of the grid.
+ *
+ * Only horizontal and vertical moves are used and every move costs 1 (like the default of {@link PathFinder}).
+ * The paths are close to the shortest paths but they are not guaranteed to be optimal. Use {@link PathFinder} if
+ * optimal paths are needed.
+ *
+ * <pre>
+ *     HierarchicalPathFinder{@code<States>} pathFinder = new HierarchicalPathFinder{@code<>}(gridModel, state {@code ->} state != States.WALL);
+ *     List{@code<Cell<States>>} path = pathFinder.findPath(0, 0, 3000, 2000);
+ * </pre>
+ *
+ * When a cell changes its state so that it can be entered or not anymore, only its cluster is marked as outdated
+ * (and the neighbouring cluster when the cell is on the border). Outdated clusters are rebuilt when the next query
+ * reaches them, so the clusters in areas that aren't searched are never rebuilt. State changes that don't change
+ * the walkability of a cell don't rebuild anything.
+ *
+ * The path finder has to be used from the same thread as the grid model.
+ *
+ * @param <State> the type of the states.
+ */
+public class HierarchicalPathFinder<State> {
+
+    private static final int DEFAULT_CLUSTER_SIZE = 32;
+
+    /**
+     * Runs of entrance cells that are at least this long get two entrances instead of one.
+     */
+    private static final int LONG_ENTRANCE = 6;
+
+    private static final int UNREACHABLE = -1;
+
+    private static final int NO_NODE = -1;
+
+    /**
+     * The heuristic is weighted a tiny bit more than the costs so that of two nodes with the same estimate the one
+     * that is closer to the goal is expanded first.
+     */
+    private static final double TIE_BREAKING = 1.001;
+
+    private final AbstractGridModel<State> gridModel;
+
+    private final Predicate<State> walkable;
+
+    private final int clusterSize;
+
+    /**
+     * The maximal number of entrances of a single cluster. The abstract node of the entrance with the index
+     * <code>i</code> of the cluster <code>c</code> gets the id <code>c * maxEntrances + i</code>.
+     */
+    private final int maxEntrances;
+
+    private int columns;
+    private int rows;
+
+    private int clusterColumns;
+    private int clusterRows;
+
+    /**
+     * <code>true</code> when everything has to be read from the grid model again.
+     */
+    private boolean stale = true;
+
+    private final BitSet walkableCells = new BitSet();
+
+    private Cluster[] clusters = new Cluster[0];
+
+    private final BitSet outdatedClusters = new BitSet();
+
+    private long rebuiltClusters = 0;
+
+    // the buffers of the searches inside of a single cluster. The cells of the cluster are copied into a local grid
+    // with a border of blocked cells, so the searches don't need any bounds checks.
+    private final int localWidth;
+    private final int[] localOffsets;
+    private final boolean[] localWalkable;
+    private int loadedCluster = NO_NODE;
+    private final int[] localDistances;
+    private final int[] localParents;
+    private final int[] localQueue;
+    private final int[] localStamps;
+    private int stamp = 0;
+    private final int[] entranceBuffer;
+
+    // the buffers of the abstract search
+    private final BitSet seen = new BitSet();
+    private final BitSet closed = new BitSet();
+    private int[] costs = new int[0];
+    private int[] parents = new int[0];
+    private final PositionHeap openSet = new PositionHeap();
+    private final int[] startDistances;
+    private final int[] goalDistances;
+
+    private final Consumer<List<Cell<State>>> stateChangeListener = this::cellsChanged;
+    private final ChangeListener<Number> sizeListener = (obs, oldValue, newValue) -> stale = true;
+
+    /**
+     * The entrances of a cluster and the distances between them.
+     */
+    private static class Cluster {
+
+        /**
+         * The positions of the entrance cells in ascending order.
+         */
+        int[] entrances;
+
+        /**
+         * The distances between the entrances inside of the cluster: <code>distances[i * entrances.length + j]</code>.
+         */
+        int[] distances;
+    }
+
+    /**
+     * @param gridModel the grid model.
+     * @param walkable decides whether a cell with the given state can be entered.
+     */
+    public HierarchicalPathFinder(AbstractGridModel<State> gridModel, Predicate<State> walkable) {
+        this(gridModel, walkable, DEFAULT_CLUSTER_SIZE);
+    }
+
+    /**
+     * @param gridModel the grid model.
+     * @param walkable decides whether a cell with the given state can be entered.
+     * @param clusterSize the width and height of the clusters. Small clusters are rebuilt faster, big clusters make
+     *                    the abstract graph smaller.
+     */
+    public HierarchicalPathFinder(AbstractGridModel<State> gridModel, Predicate<State> walkable, int clusterSize) {
+        if (clusterSize < 2) {
+            throw new IllegalArgumentException("The cluster size has to be at least 2 but was " + clusterSize + ".");
+        }
+
+        this.gridModel = Objects.requireNonNull(gridModel);
+        this.walkable = Objects.requireNonNull(walkable);
+        this.clusterSize = clusterSize;
+        this.maxEntrances = 4 * clusterSize;
+
+        localWidth = clusterSize + 2;
+        localOffsets = new int[]{1, -1, localWidth, -localWidth};
+        localWalkable = new boolean[localWidth * localWidth];
+        localDistances = new int[localWidth * localWidth];
+        localParents = new int[localWidth * localWidth];
+        localQueue = new int[localWidth * localWidth];
+        localStamps = new int[localWidth * localWidth];
+        entranceBuffer = new int[maxEntrances];
+        startDistances = new int[maxEntrances];
+        goalDistances = new int[maxEntrances];
+
+        gridModel.addStateChangeListener(stateChangeListener);
+        gridModel.numberOfColumns().addListener(sizeListener);
+        gridModel.numberOfRows().addListener(sizeListener);
+    }
+
+    public int getClusterSize() {
+        return clusterSize;
+    }
+
+    /**
+     * Detach this path finder from the grid model. The path finder may not be used after this.
+     */
+    public void dispose() {
+        gridModel.removeStateChangeListener(stateChangeListener);
+        gridModel.numberOfColumns().removeListener(sizeListener);
+        gridModel.numberOfRows().removeListener(sizeListener);
+    }
+
+    /**
+     * @return the number of clusters that were built so far. Is used to check the incremental updates.
+     */
+    long getNumberOfRebuiltClusters() {
+        return rebuiltClusters;
+    }
+
+    private void readGridModel() {
+        columns = Math.max(0, gridModel.getNumberOfColumns());
+        rows = Math.max(0, gridModel.getNumberOfRows());
+
+        walkableCells.clear();
+        for (int position = 0; position < columns * rows; position++) {
+            if (gridModel.hasCellAt(position) && walkable.test(gridModel.stateAt(position))) {
+                walkableCells.set(position);
+            }
+        }
+
+        clusterColumns = (columns + clusterSize - 1) / clusterSize;
+        clusterRows = (rows + clusterSize - 1) / clusterSize;
+
+        clusters = new Cluster[clusterColumns * clusterRows];
+        for (int i = 0; i < clusters.length; i++) {
+            clusters[i] = new Cluster();
+        }
+        outdatedClusters.clear();
+        outdatedClusters.set(0, clusters.length);
+        loadedCluster = NO_NODE;
+
+        final int numberOfNodes = clusters.length * maxEntrances + 2;
+        costs = new int[numberOfNodes];
+        parents = new int[numberOfNodes];
+        openSet.resize(numberOfNodes);
+
+        stale = false;
+    }
+
+    private void cellsChanged(List<Cell<State>> changedCells) {
+        if (stale) {
+            return;
+        }
+
+        changedCells.forEach(cell -> {
+            final int column = cell.getColumn();
+            final int row = cell.getRow();
+
+            if (column >= columns || row >= rows) {
+                return;
+            }
+
+            final int position = row * columns + column;
+            final boolean isWalkable = walkable.test(cell.getState());
+
+            if (walkableCells.get(position) == isWalkable) {
+                return;
+            }
+            walkableCells.set(position, isWalkable);
+            loadedCluster = NO_NODE;
+
+            final int clusterColumn = column / clusterSize;
+            final int clusterRow = row / clusterSize;
+            outdatedClusters.set(clusterRow * clusterColumns + clusterColumn);
+
+            // the entrances on a border belong to both clusters
+            if (column % clusterSize == 0 && clusterColumn > 0) {
+                outdatedClusters.set(clusterRow * clusterColumns + clusterColumn - 1);
+            }
+            if (column % clusterSize == clusterSize - 1 && clusterColumn < clusterColumns - 1) {
+                outdatedClusters.set(clusterRow * clusterColumns + clusterColumn + 1);
+            }
+            if (row % clusterSize == 0 && clusterRow > 0) {
+                outdatedClusters.set((clusterRow - 1) * clusterColumns + clusterColumn);
+            }
+            if (row % clusterSize == clusterSize - 1 && clusterRow < clusterRows - 1) {
+                outdatedClusters.set((clusterRow + 1) * clusterColumns + clusterColumn);
+            }
+        });
+    }
+
+    private boolean isWalkable(int column, int row) {
+        return column >= 0 && column < columns && row >= 0 && row < rows && walkableCells.get(row * columns + column);
+    }
+
+    private int clusterOf(int position) {
+        return (position / columns / clusterSize) * clusterColumns + (position % columns) / clusterSize;
+    }
+
+    /**
+     * Rebuilds the given cluster if it is outdated. The clusters are rebuilt when a search reaches them for the
+     * first time, so outdated clusters that aren't needed by any search cost nothing.
+     *
+     * @return the cluster.
+     */
+    private Cluster cluster(int clusterIndex) {
+        if (outdatedClusters.get(clusterIndex)) {
+            buildCluster(clusterIndex);
+            outdatedClusters.clear(clusterIndex);
+        }
+        return clusters[clusterIndex];
+    }
+
+    private void buildCluster(int clusterIndex) {
+        final int firstColumn = (clusterIndex % clusterColumns) * clusterSize;
+        final int firstRow = (clusterIndex / clusterColumns) * clusterSize;
+        final int width = Math.min(clusterSize, columns - firstColumn);
+        final int height = Math.min(clusterSize, rows - firstRow);
+
+        int count = 0;
+        if (firstColumn > 0) {
+            count = addEntrances(count, firstColumn, firstRow, 0, 1, height, -1, 0);
+        }
+        if (firstColumn + width < columns) {
+            count = addEntrances(count, firstColumn + width - 1, firstRow, 0, 1, height, 1, 0);
+        }
+        if (firstRow > 0) {
+            count = addEntrances(count, firstColumn, firstRow, 1, 0, width, 0, -1);
+        }
+        if (firstRow + height < rows) {
+            count = addEntrances(count, firstColumn, firstRow + height - 1, 1, 0, width, 0, 1);
+        }
+
+        // corner cells can be entrances of two borders
+        Arrays.sort(entranceBuffer, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || entranceBuffer[unique - 1] != entranceBuffer[i]) {
+                entranceBuffer[unique++] = entranceBuffer[i];
+            }
+        }
+
+        final Cluster cluster = clusters[clusterIndex];
+        cluster.entrances = Arrays.copyOf(entranceBuffer, unique);
+        cluster.distances = new int[unique * unique];
+
+        for (int i = 0; i < unique; i++) {
+            searchInCluster(clusterIndex, cluster.entrances[i]);
+            for (int j = 0; j < unique; j++) {
+                cluster.distances[i * unique + j] = localDistance(localIndex(clusterIndex, cluster.entrances[j]));
+            }
+        }
+
+        rebuiltClusters++;
+    }
+
+    /**
+     * Adds the entrances of one border of a cluster. The border is walked from the given cell in the given direction.
+     * The cells on the other side of the border are found with the given offset. Both clusters of a border find the
+     * same runs, so the entrances of both sides are always opposite of each other.
+     *
+     * @return the new number of entrances in the {@link #entranceBuffer}.
+     */
+    private int addEntrances(int count, int column, int row, int columnStep, int rowStep, int length, int outsideColumnOffset, int outsideRowOffset) {
+        int runStart = -1;
+
+        for (int i = 0; i <= length; i++) {
+            final int currentColumn = column + i * columnStep;
+            final int currentRow = row + i * rowStep;
+
+            final boolean open = i < length && isWalkable(currentColumn, currentRow)
+                && isWalkable(currentColumn + outsideColumnOffset, currentRow + outsideRowOffset);
+
+            if (open && runStart < 0) {
+                runStart = i;
+            } else if (!open && runStart >= 0) {
+                final int runEnd = i - 1;
+
+                if (runEnd - runStart + 1 >= LONG_ENTRANCE) {
+                    entranceBuffer[count++] = (row + runStart * rowStep) * columns + column + runStart * columnStep;
+                    entranceBuffer[count++] = (row + runEnd * rowStep) * columns + column + runEnd * columnStep;
+                } else {
+                    final int middle = (runStart + runEnd) / 2;
+                    entranceBuffer[count++] = (row + middle * rowStep) * columns + column + middle * columnStep;
+                }
+
+                runStart = -1;
+            }
+        }
+
+        return count;
+    }
+
+    private int localIndex(int clusterIndex, int position) {
+        final int firstColumn = (clusterIndex % clusterColumns) * clusterSize;
+        final int firstRow = (clusterIndex / clusterColumns) * clusterSize;
+        return (position / columns - firstRow + 1) * localWidth + position % columns - firstColumn + 1;
+    }
+
+    /**
+     * Copies the walkability of the cells of the given cluster into the {@link #localWalkable} grid.
+     */
+    private void loadCluster(int clusterIndex) {
+        final int firstColumn = (clusterIndex % clusterColumns) * clusterSize;
+        final int firstRow = (clusterIndex / clusterColumns) * clusterSize;
+
+        for (int row = 0; row < clusterSize; row++) {
+            for (int column = 0; column < clusterSize; column++) {
+                localWalkable[(row + 1) * localWidth + column + 1] = isWalkable(firstColumn + column, firstRow + row);
+            }
+        }
+
+        loadedCluster = clusterIndex;
+    }
+
+    /**
+     * Breadth-first search from the given cell that doesn't leave the cluster. The results are stored in
+     * {@link #localDistances} and {@link #localParents} and are valid for the cells that are marked with the current
+     * {@link #stamp}.
+     */
+    private void searchInCluster(int clusterIndex, int start) {
+        if (loadedCluster != clusterIndex) {
+            loadCluster(clusterIndex);
+        }
+
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(localStamps, 0);
+            stamp = 1;
+        }
+
+        int head = 0;
+        int tail = 0;
+
+        final int startIndex = localIndex(clusterIndex, start);
+        localStamps[startIndex] = stamp;
+        localDistances[startIndex] = 0;
+        localParents[startIndex] = NO_NODE;
+        localQueue[tail++] = startIndex;
+
+        while (head < tail) {
+            final int current = localQueue[head++];
+            final int distance = localDistances[current] + 1;
+
+            for (int offset : localOffsets) {
+                final int next = current + offset;
+                if (localWalkable[next] && localStamps[next] != stamp) {
+                    localStamps[next] = stamp;
+                    localDistances[next] = distance;
+                    localParents[next] = current;
+                    localQueue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the distance of the last {@link #searchInCluster(int, int)} to the cell with the given local index.
+     */
+    private int localDistance(int localIndex) {
+        return localStamps[localIndex] == stamp ? localDistances[localIndex] : UNREACHABLE;
+    }
+
+    /**
+     * Find a path between the given cells.
+     *
+     * @param startColumn the column of the start cell.
+     * @param startRow the row of the start cell.
+     * @param goalColumn the column of the goal cell.
+     * @param goalRow the row of the goal cell.
+     * @return the cells of the path including the start and the goal cell or an empty list if there is no path.
+     * @throws IndexOutOfBoundsException if the start or goal cell is outside of the grid.
+     */
+    public List<Cell<State>> findPath(int startColumn, int startRow, int goalColumn, int goalRow) {
+        if (stale) {
+            readGridModel();
+        }
+
+        checkBounds(startColumn, startRow);
+        checkBounds(goalColumn, goalRow);
+
+        final int start = startRow * columns + startColumn;
+        final int goal = goalRow * columns + goalColumn;
+
+        if (!walkableCells.get(start) || !walkableCells.get(goal)) {
+            return Collections.emptyList();
+        }
+
+        final int startNode = clusters.length * maxEntrances;
+        final int goalNode = startNode + 1;
+
+        final int startCluster = clusterOf(start);
+        final int goalCluster = clusterOf(goal);
+
+        final int[] goalEntrances = cluster(goalCluster).entrances;
+        searchInCluster(goalCluster, goal);
+        for (int i = 0; i < goalEntrances.length; i++) {
+            goalDistances[i] = localDistance(localIndex(goalCluster, goalEntrances[i]));
+        }
+
+        final int[] startEntrances = cluster(startCluster).entrances;
+        searchInCluster(startCluster, start);
+        for (int i = 0; i < startEntrances.length; i++) {
+            startDistances[i] = localDistance(localIndex(startCluster, startEntrances[i]));
+        }
+        final int directDistance = startCluster == goalCluster ? localDistance(localIndex(startCluster, goal)) : UNREACHABLE;
+
+        seen.clear();
+        closed.clear();
+        openSet.clear();
+
+        costs[startNode] = 0;
+        parents[startNode] = NO_NODE;
+        seen.set(startNode);
+        openSet.add(startNode, distance(start, goal) * TIE_BREAKING);
+
+        while (!openSet.isEmpty()) {
+            final int current = openSet.poll();
+
+            if (current == goalNode) {
+                return refine(startNode, goalNode, start, goal);
+            }
+
+            closed.set(current);
+
+            if (current == startNode) {
+                for (int i = 0; i < startEntrances.length; i++) {
+                    if (startDistances[i] != UNREACHABLE) {
+                        relax(current, startCluster * maxEntrances + i, startDistances[i], startEntrances[i], goal);
+                    }
+                }
+                if (directDistance != UNREACHABLE) {
+                    relax(current, goalNode, directDistance, goal, goal);
+                }
+                continue;
+            }
+
+            final int clusterIndex = current / maxEntrances;
+            final int entrance = current % maxEntrances;
+            final Cluster cluster = clusters[clusterIndex];
+            final int numberOfEntrances = cluster.entrances.length;
+            final int position = cluster.entrances[entrance];
+
+            for (int other = 0; other < numberOfEntrances; other++) {
+                final int distance = cluster.distances[entrance * numberOfEntrances + other];
+                if (other != entrance && distance != UNREACHABLE) {
+                    relax(current, clusterIndex * maxEntrances + other, distance, cluster.entrances[other], goal);
+                }
+            }
+
+            if (clusterIndex == goalCluster && goalDistances[entrance] != UNREACHABLE) {
+                relax(current, goalNode, goalDistances[entrance], goal, goal);
+            }
+
+            // the entrances on the other side of the borders
+            final int column = position % columns;
+            final int row = position / columns;
+            for (int direction = 0; direction < 4; direction++) {
+                final int nextColumn = column + (direction == 0 ? 1 : direction == 1 ? -1 : 0);
+                final int nextRow = row + (direction == 2 ? 1 : direction == 3 ? -1 : 0);
+
+                if (!isWalkable(nextColumn, nextRow)) {
+                    continue;
+                }
+
+                final int next = nextRow * columns + nextColumn;
+                final int nextCluster = clusterOf(next);
+                if (nextCluster != clusterIndex) {
+                    final int nextEntrance = Arrays.binarySearch(cluster(nextCluster).entrances, next);
+                    if (nextEntrance >= 0) {
+                        relax(current, nextCluster * maxEntrances + nextEntrance, 1, next, goal);
+                    }
+                }
+            }
+        }
+
+        return Collections.emptyList();
+    }
+
+    private void relax(int current, int next, int stepCost, int nextPosition, int goal) {
+        if (closed.get(next)) {
+            return;
+        }
+
+        final int cost = costs[current] + stepCost;
+
+        if (!seen.get(next)) {
+            seen.set(next);
+            costs[next] = cost;
+            parents[next] = current;
+            openSet.add(next, cost + distance(nextPosition, goal) * TIE_BREAKING);
+        } else if (cost < costs[next]) {
+            costs[next] = cost;
+            parents[next] = current;
+            openSet.decrease(next, cost + distance(nextPosition, goal) * TIE_BREAKING);
+        }
+    }
+
+    private int distance(int from, int to) {
+        return Math.abs(from % columns - to % columns) + Math.abs(from / columns - to / columns);
+    }
+
+    /**
+     * Turns the route of abstract nodes into cells. Consecutive nodes are either neighbours on different sides of a
+     * border or they are in the same cluster and are connected with a search inside of this cluster.
+     */
+    private List<Cell<State>> refine(int startNode, int goalNode, int start, int goal) {
+        final List<Integer> route = new ArrayList<>();
+        for (int node = goalNode; node != NO_NODE; node = parents[node]) {
+            route.add(node == startNode ? start : node == goalNode ? goal : clusters[node / maxEntrances].entrances[node % maxEntrances]);
+        }
+        Collections.reverse(route);
+
+        final List<Cell<State>> path = new ArrayList<>();
+        path.add(gridModel.cellAt(start));
+
+        for (int i = 1; i < route.size(); i++) {
+            final int from = route.get(i - 1);
+            final int to = route.get(i);
+
+            if (from == to) {
+                continue;
+            }
+
+            final int clusterIndex = clusterOf(from);
+            if (clusterIndex != clusterOf(to)) {
+                path.add(gridModel.cellAt(to));
+                continue;
+            }
+
+            // the search starts at the target so that the parents lead from the source to the target
+            searchInCluster(clusterIndex, to);
+
+            final int firstColumn = (clusterIndex % clusterColumns) * clusterSize;
+            final int firstRow = (clusterIndex / clusterColumns) * clusterSize;
+
+            for (int local = localParents[localIndex(clusterIndex, from)]; local != NO_NODE; local = localParents[local]) {
+                path.add(gridModel.cellAt((firstRow + local / localWidth - 1) * columns + firstColumn + local % localWidth - 1));
+            }
+        }
+
+        return path;
+    }
+
+    private void checkBounds(int column, int row) {
+        if (column < 0 || column >= columns || row < 0 || row >= rows) {
+            throw new IndexOutOfBoundsException("The cell [" + column + "," + row + "] is outside of the grid.");
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package eu.lestard.grid;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The base of the grid models that only store the states of the cells ({@link CompactGridModel},
+ * {@link SparseGridModel}, {@link MappedGridModel}). How the states are stored is defined by the subclasses.
+ *
+ * Cells are only created when they are requested with {@link #getCell(int, int)}. Such a cell is a view on the stored
+ * state: Changes of the cell are written to the storage and changes made with {@link #setState(int, int, Object)} are
+ * visible in the state property of the cell. The same instance is returned until the cell is released with
+ * {@link #releaseCells()} or until it is outside of the grid after a resize. The {@link GridView} requests only the
+ * cells of the visible region in the {@link RenderMode#VIRTUALIZED} mode and releases them again when they are
+ * scrolled out of view.
+ *
+ * The state change listeners (see {@link #addStateChangeListener(java.util.function.Consumer)}) get the requested
+ * cells whose states have changed. For cells that were not requested temporary cells are passed that are not kept
+ * by the grid model. To find the changed cells of an update the states before the update are remembered, but only
+ * when there are listeners.
+ *
+ * @param <State> the type of the states.
+ */
+public abstract class LazyGridModel<State> extends AbstractGridModel<State> {
+
+    /**
+     * Is stored in {@link #statesBeforeUpdate} for cells with a state of <code>null</code>.
+     */
+    private static final Object NO_STATE = new Object();
+
+    /**
+     * The cells that were requested so far, indexed by their coordinates (see {@link #key(int, int)}).
+     */
+    private final LongTable<Cell<State>> materializedCells = new LongTable<>();
+
+    /**
+     * The states of the cells that were changed in the current update, as they were before the update.
+     */
+    private LongTable<Object> statesBeforeUpdate = new LongTable<>();
+
+    private int currentColumns;
+    private int currentRows;
+
+    LazyGridModel() {
+    }
+
+    /**
+     * @return the stored state of the cell with the given coordinates. The coordinates are inside of the grid.
+     */
+    abstract State readState(int column, int row);
+
+    /**
+     * Store the state of the cell with the given coordinates. The coordinates are inside of the grid.
+     */
+    abstract void writeState(int column, int row, State state);
+
+    /**
+     * Change the size of the storage. Cells that are newly exposed get the default state. Is called before the
+     * new size is used by {@link #isInGrid(int, int)}.
+     */
+    abstract void resizeStorage(int oldColumns, int oldRows, int columns, int rows);
+
+    @Override
+    final void resize() {
+        final int columns = Math.max(0, getNumberOfColumns());
+        final int rows = Math.max(0, getNumberOfRows());
+
+        resizeStorage(currentColumns, currentRows, columns, rows);
+
+        currentColumns = columns;
+        currentRows = rows;
+
+        for (Cell<State> cell : materializedCells.values()) {
+            if (!isInGrid(cell.getColumn(), cell.getRow())) {
+                release(cell);
+            }
+        }
+    }
+
+    boolean isInGrid(int column, int row) {
+        return column >= 0 && column < currentColumns && row >= 0 && row < currentRows;
+    }
+
+    private void checkBounds(int column, int row) {
+        if (!isInGrid(column, row)) {
+            throw new IndexOutOfBoundsException("The cell [" + column + "," + row + "] is outside of the grid.");
+        }
+    }
+
+    static long key(int column, int row) {
+        return ((long) column << 32) | (row & 0xFFFFFFFFL);
+    }
+
+    static int column(long key) {
+        return (int) (key >> 32);
+    }
+
+    static int row(long key) {
+        return (int) key;
+    }
+
+    @Override
+    public State getState(int column, int row) {
+        checkBounds(column, row);
+
+        return readState(column, row);
+    }
+
+    /**
+     * Change the state of the cell with the given coordinates. If the cell was requested with {@link #getCell(int, int)}
+     * before, the state property of the cell is updated too.
+     *
+     * @param column the column of the cell.
+     * @param row the row of the cell.
+     * @param state the new state.
+     * @throws IndexOutOfBoundsException if the coordinates are outside of the grid.
+     */
+    @Override
+    public void setState(int column, int row, State state) {
+        checkBounds(column, row);
+
+        final long key = key(column, row);
+        final Cell<State> cell = materializedCells.isEmpty() ? null : materializedCells.get(key);
+
+        if (isUpdating()) {
+            if ((cell != null || hasStateChangeListeners()) && statesBeforeUpdate.get(key) == null) {
+                final State oldState = readState(column, row);
+                statesBeforeUpdate.put(key, oldState == null ? NO_STATE : oldState);
+            }
+
+            writeState(column, row, state);
+
+            if (cell != null) {
+                cell.setPendingState(state);
+            }
+            return;
+        }
+
+        final State oldState = hasStateChangeListeners() ? readState(column, row) : null;
+
+        writeState(column, row, state);
+
+        if (cell != null) {
+            cell.applyState(state);
+        }
+
+        if (hasStateChangeListeners() && !Objects.equals(oldState, state)) {
+            fireStateChanged(Collections.singletonList(cell != null ? cell : createCell(column, row)));
+        }
+    }
+
+    @Override
+    void changeState(Cell<State> cell, State newState) {
+        setState(cell.getColumn(), cell.getRow(), newState);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    void commitUpdate() {
+        if (statesBeforeUpdate.isEmpty()) {
+            return;
+        }
+
+        final LongTable<Object> oldStates = statesBeforeUpdate;
+        statesBeforeUpdate = new LongTable<>();
+
+        final List<Cell<State>> changedCells = new ArrayList<>();
+
+        oldStates.forEach((key, oldState) -> {
+            final int column = column(key);
+            final int row = row(key);
+
+            // the grid was made smaller in the meantime
+            if (!isInGrid(column, row)) {
+                return;
+            }
+
+            final State newState = readState(column, row);
+            final Cell<State> cell = materializedCells.get(key);
+
+            if (cell != null && cell.hasPendingState()) {
+                cell.commitPendingState();
+            }
+
+            if (!Objects.equals(oldState == NO_STATE ? null : (State) oldState, newState)) {
+                changedCells.add(cell != null ? cell : createCell(column, row));
+            }
+        });
+
+        if (!changedCells.isEmpty() && hasStateChangeListeners()) {
+            fireStateChanged(Collections.unmodifiableList(changedCells));
+        }
+    }
+
+    /**
+     * Return the cell with the given coordinates. The cell is created when it is requested for the first time.
+     * After that the same instance is returned until the cell is released.
+     *
+     * @param column the column of the cell.
+     * @param row the row of the cell.
+     * @return the cell or <code>null</code> if there is no cell with the given coordinates.
+     */
+    @Override
+    public Cell<State> getCell(int column, int row) {
+        if (!isInGrid(column, row)) {
+            return null;
+        }
+
+        final long key = key(column, row);
+
+        Cell<State> cell = materializedCells.get(key);
+        if (cell == null) {
+            cell = createCell(column, row);
+            materializedCells.put(key, cell);
+        }
+        return cell;
+    }
+
+    private Cell<State> createCell(int column, int row) {
+        Cell<State> cell = new Cell<>(column, row);
+        cell.applyState(readState(column, row));
+        cell.setOwner(cellOwner);
+        return cell;
+    }
+
+    @Override
+    boolean isMaterialized(int column, int row) {
+        return materializedCells.get(key(column, row)) != null;
+    }
+
+    @Override
+    void releaseCell(Cell<State> cell) {
+        if (materializedCells.get(key(cell.getColumn(), cell.getRow())) == cell) {
+            release(cell);
+        }
+    }
+
+    private void release(Cell<State> cell) {
+        materializedCells.remove(key(cell.getColumn(), cell.getRow()));
+
+        if (cell.hasPendingState()) {
+            cell.commitPendingState();
+        }
+        cell.setOwner(null);
+    }
+
+    /**
+     * Forget all cells that were created by {@link #getCell(int, int)}. The cells are disconnected from this
+     * grid model. This can be used to free memory when the cells are not used anymore.
+     */
+    public void releaseCells() {
+        materializedCells.values().forEach(this::release);
+    }
+
+    /**
+     * @return the number of cells that are created at the moment.
+     */
+    public int getNumberOfMaterializedCells() {
+        return materializedCells.size();
+    }
+
+    /**
+     * Update the state properties of all materialized cells after the stored states were changed without
+     * {@link #setState(int, int, Object)}. The state change listeners are notified with the changed cells.
+     */
+    void refreshMaterializedCells() {
+        final List<Cell<State>> changedCells = new ArrayList<>();
+
+        materializedCells.forEach((key, cell) -> {
+            if (cell.applyState(readState(cell.getColumn(), cell.getRow()))) {
+                changedCells.add(cell);
+            }
+        });
+
+        if (!changedCells.isEmpty()) {
+            fireStateChanged(Collections.unmodifiableList(changedCells));
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package eu.lestard.grid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A hash table from primitive long keys to values with open addressing. Unlike a {@link java.util.HashMap} the keys
+ * don't have to be boxed, so looking up a value doesn't allocate anything.
+ *
+ * The values may not be <code>null</code>.
+ *
+ * @param <V> the type of the values.
+ */
+final class LongTable<V> {
+
+    @FunctionalInterface
+    interface Visitor<V> {
+        void visit(long key, V value);
+    }
+
+    private long[] keys = new long[16];
+    private Object[] values = new Object[16];
+    private int size = 0;
+
+    private static int slot(long key, int mask) {
+        final long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        final int mask = values.length - 1;
+        for (int slot = slot(key, mask); values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return (V) values[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds the value or replaces the value that is stored for the key.
+     */
+    void put(long key, V value) {
+        if (2 * (size + 1) > values.length) {
+            grow();
+        }
+
+        final int mask = values.length - 1;
+        int slot = slot(key, mask);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+
+    private void grow() {
+        final long[] oldKeys = keys;
+        final Object[] oldValues = values;
+
+        keys = new long[2 * oldValues.length];
+        values = new Object[2 * oldValues.length];
+
+        final int mask = values.length - 1;
+        for (int oldSlot = 0; oldSlot < oldValues.length; oldSlot++) {
+            if (oldValues[oldSlot] != null) {
+                int slot = slot(oldKeys[oldSlot], mask);
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[oldSlot];
+                values[slot] = oldValues[oldSlot];
+            }
+        }
+    }
+
+    void remove(long key) {
+        final int mask = values.length - 1;
+        int slot = slot(key, mask);
+        while (values[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (values[slot] == null) {
+            return;
+        }
+
+        // move the following entries of the cluster back so that no entry gets unreachable
+        int next = (slot + 1) & mask;
+        while (values[next] != null) {
+            final int home = slot(keys[next], mask);
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[slot] = null;
+        size--;
+    }
+
+    /**
+     * Calls the visitor for every entry. The table may not be changed while it is visited.
+     */
+    @SuppressWarnings("unchecked")
+    void forEach(Visitor<V> visitor) {
+        for (int slot = 0; slot < values.length; slot++) {
+            if (values[slot] != null) {
+                visitor.visit(keys[slot], (V) values[slot]);
+            }
+        }
+    }
+
+    /**
+     * @return a copy of all values so that entries can be removed while iterating.
+     */
+    @SuppressWarnings("unchecked")
+    List<V> values() {
+        final List<V> result = new ArrayList<>(size);
+        for (Object value : values) {
+            if (value != null) {
+                result.add((V) value);
+            }
+        }
+        return result;
+    }
+
+    void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+}
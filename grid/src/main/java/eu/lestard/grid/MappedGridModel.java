@@ -0,0 +1,340 @@
+package eu.lestard.grid;
+
+import javafx.beans.property.SimpleIntegerProperty;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A grid of enum states that is stored in a memory-mapped file instead of the heap. This way grids with billions
+ * of cells can be used.
+ *
+ * Like the {@link CompactGridModel} only the ordinals of the states are stored (one byte per cell for enums
+ * with up to 254 constants, two bytes per cell otherwise, <code>0</code> means <code>null</code>). The file is mapped
+ * in chunks of 1 GiB that are only mapped when a cell of the chunk is accessed for the first time. The operating
+ * system loads the pages of the file on demand so opening even a very big grid is fast.
+ *
+ * Cells are only created when they are requested with {@link #getCell(int, int)} (see {@link LazyGridModel}).
+ * The grid can be shown in a {@link GridView} with the {@link RenderMode#VIRTUALIZED} mode. Only the states of the
+ * visible region are read from the file then.
+ *
+ * <pre>
+ *     try (MappedGridModel{@code<States>} world = MappedGridModel.create(path, States.class, 100000, 100000)) {
+ *         world.setState(50000, 50000, States.FILLED);
+ *     }
+ * </pre>
+ *
+ * The size of the grid is fixed when the file is created (see {@link #setNumberOfColumns(int)}). The model has to be
+ * closed when it isn't used anymore.
+ *
+ * @param <State> the enum type of the states.
+ */
+public class MappedGridModel<State extends Enum<State>> extends LazyGridModel<State> implements AutoCloseable {
+
+    /**
+     * "GMAP" in ASCII.
+     */
+    private static final int MAGIC = 0x474D4150;
+
+    private static final byte VERSION = 1;
+
+    private static final int HEADER_SIZE = 16;
+
+    private static final long DEFAULT_CHUNK_SIZE = 1L << 30;
+
+    private final State[] states;
+
+    private final FileChannel channel;
+
+    private final int columns;
+    private final int rows;
+
+    private final int bytesPerCell;
+
+    private final long chunkSize;
+
+    /**
+     * The mapped chunks of the file. A chunk is <code>null</code> until it is accessed for the first time.
+     */
+    private final MappedByteBuffer[] chunks;
+
+    private State defaultState;
+
+    private MappedGridModel(Class<State> stateType, FileChannel channel, int numberOfColumns, int numberOfRows, long chunkSize) {
+        this.states = stateType.getEnumConstants();
+        this.channel = channel;
+        this.columns = numberOfColumns;
+        this.rows = numberOfRows;
+        this.bytesPerCell = bytesPerCell(states.length);
+
+        // a value may never be split between two chunks.
+        this.chunkSize = chunkSize - chunkSize % bytesPerCell;
+
+        final long dataSize = (long) numberOfColumns * numberOfRows * bytesPerCell;
+        this.chunks = new MappedByteBuffer[(int) ((dataSize + this.chunkSize - 1) / this.chunkSize)];
+
+        numberOfColumns().bind(new SimpleIntegerProperty(numberOfColumns));
+        numberOfRows().bind(new SimpleIntegerProperty(numberOfRows));
+    }
+
+    /**
+     * Create a new file for a grid with the given size. An existing file is overwritten. All cells have
+     * a state of <code>null</code>. The file is created as sparse file if the file system supports it, so no
+     * disk space is used for areas of the grid that are never changed.
+     *
+     * @param path the file.
+     * @param stateType the enum class of the states.
+     * @param numberOfColumns the number of columns of the grid.
+     * @param numberOfRows the number of rows of the grid.
+     * @param <State> the enum type of the states.
+     * @return the grid model.
+     * @throws IOException if the file can't be created.
+     */
+    public static <State extends Enum<State>> MappedGridModel<State> create(Path path, Class<State> stateType,
+                                                                            int numberOfColumns, int numberOfRows) throws IOException {
+        return create(path, stateType, numberOfColumns, numberOfRows, DEFAULT_CHUNK_SIZE);
+    }
+
+    static <State extends Enum<State>> MappedGridModel<State> create(Path path, Class<State> stateType,
+                                                                     int numberOfColumns, int numberOfRows, long chunkSize) throws IOException {
+        if (numberOfColumns < 0 || numberOfRows < 0) {
+            throw new IllegalArgumentException("The size of the grid may not be negative.");
+        }
+
+        final int numberOfConstants = stateType.getEnumConstants().length;
+        if (numberOfConstants >= 0xFFFF) {
+            throw new IllegalArgumentException("The enum " + stateType.getName() + " has too many constants.");
+        }
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.SPARSE);
+
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC)
+                .put(VERSION)
+                .put((byte) bytesPerCell(numberOfConstants))
+                .putShort((short) numberOfConstants)
+                .putInt(numberOfColumns)
+                .putInt(numberOfRows);
+            header.flip();
+
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+
+            // writing the last byte sets the size of the file without writing the data.
+            final long dataSize = (long) numberOfColumns * numberOfRows * bytesPerCell(numberOfConstants);
+            if (dataSize > 0) {
+                channel.write(ByteBuffer.wrap(new byte[1]), HEADER_SIZE + dataSize - 1);
+            }
+
+            return new MappedGridModel<>(stateType, channel, numberOfColumns, numberOfRows, chunkSize);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Open an existing file that was created with {@link #create(Path, Class, int, int)}.
+     *
+     * @param path the file.
+     * @param stateType the enum class of the states. It has to have the same number of constants as the enum
+     *                  that was used to create the file.
+     * @param <State> the enum type of the states.
+     * @return the grid model.
+     * @throws IOException if the file can't be opened or has an invalid format.
+     */
+    public static <State extends Enum<State>> MappedGridModel<State> open(Path path, Class<State> stateType) throws IOException {
+        return open(path, stateType, DEFAULT_CHUNK_SIZE);
+    }
+
+    static <State extends Enum<State>> MappedGridModel<State> open(Path path, Class<State> stateType, long chunkSize) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    throw new IOException("The file is not a mapped grid file.");
+                }
+            }
+            header.flip();
+
+            if (header.getInt() != MAGIC || header.get() != VERSION) {
+                throw new IOException("The file is not a mapped grid file.");
+            }
+
+            final int bytesPerCell = header.get();
+            final int numberOfConstants = header.getShort() & 0xFFFF;
+            final int numberOfColumns = header.getInt();
+            final int numberOfRows = header.getInt();
+
+            if (numberOfConstants != stateType.getEnumConstants().length || bytesPerCell != bytesPerCell(numberOfConstants)) {
+                throw new IOException("The file was created for an enum with " + numberOfConstants + " constants but "
+                    + stateType.getName() + " has " + stateType.getEnumConstants().length + " constants.");
+            }
+
+            if (channel.size() < HEADER_SIZE + (long) numberOfColumns * numberOfRows * bytesPerCell) {
+                throw new IOException("The mapped grid file is truncated.");
+            }
+
+            return new MappedGridModel<>(stateType, channel, numberOfColumns, numberOfRows, chunkSize);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static int bytesPerCell(int numberOfConstants) {
+        return numberOfConstants < 255 ? 1 : 2;
+    }
+
+    /**
+     * @return the chunk with the given index. The chunk is mapped when it is used for the first time.
+     */
+    private MappedByteBuffer chunk(int chunkIndex) {
+        MappedByteBuffer chunk = chunks[chunkIndex];
+
+        if (chunk == null) {
+            if (!channel.isOpen()) {
+                throw new IllegalStateException("The grid model is already closed.");
+            }
+
+            final long dataSize = (long) columns * rows * bytesPerCell;
+            final long start = chunkIndex * chunkSize;
+
+            try {
+                chunk = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + start, Math.min(chunkSize, dataSize - start));
+            } catch (IOException e) {
+                throw new IllegalStateException("The chunk " + chunkIndex + " of the grid file can't be mapped.", e);
+            }
+
+            chunks[chunkIndex] = chunk;
+        }
+
+        return chunk;
+    }
+
+    private int getStoredValue(long position) {
+        final long offset = position * bytesPerCell;
+        final MappedByteBuffer chunk = chunk((int) (offset / chunkSize));
+        final int index = (int) (offset % chunkSize);
+
+        return bytesPerCell == 1 ? chunk.get(index) & 0xFF : chunk.getShort(index) & 0xFFFF;
+    }
+
+    private void setStoredValue(long position, int value) {
+        final long offset = position * bytesPerCell;
+        final MappedByteBuffer chunk = chunk((int) (offset / chunkSize));
+        final int index = (int) (offset % chunkSize);
+
+        if (bytesPerCell == 1) {
+            chunk.put(index, (byte) value);
+        } else {
+            chunk.putShort(index, (short) value);
+        }
+    }
+
+    private long position(int column, int row) {
+        return (long) row * columns + column;
+    }
+
+    @Override
+    State readState(int column, int row) {
+        final int value = getStoredValue(position(column, row));
+        return value == 0 ? defaultState : states[value - 1];
+    }
+
+    @Override
+    void writeState(int column, int row, State state) {
+        setStoredValue(position(column, row), state == null ? 0 : state.ordinal() + 1);
+    }
+
+    @Override
+    void resizeStorage(int oldColumns, int oldRows, int columns, int rows) {
+        // the size is fixed when the file is created. The size properties are bound to it.
+    }
+
+    /**
+     * Specify the state of the cells that have no state in the file. The default state isn't stored in the file.
+     *
+     * @param defaultState the default state.
+     */
+    @Override
+    public void setDefaultState(State defaultState) {
+        this.defaultState = defaultState;
+
+        refreshMaterializedCells();
+    }
+
+    /**
+     * The size of the grid is fixed when the file is created.
+     *
+     * @throws UnsupportedOperationException if the given number of columns is different from the size of the file.
+     */
+    @Override
+    public void setNumberOfColumns(int value) {
+        if (value != columns) {
+            throw new UnsupportedOperationException("The size of a mapped grid can't be changed.");
+        }
+    }
+
+    /**
+     * The size of the grid is fixed when the file is created.
+     *
+     * @throws UnsupportedOperationException if the given number of rows is different from the size of the file.
+     */
+    @Override
+    public void setNumberOfRows(int value) {
+        if (value != rows) {
+            throw new UnsupportedOperationException("The size of a mapped grid can't be changed.");
+        }
+    }
+
+    /**
+     * @return the number of chunks of the file that are mapped at the moment.
+     */
+    public int getNumberOfMappedChunks() {
+        int count = 0;
+        for (MappedByteBuffer chunk : chunks) {
+            if (chunk != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Write all changes to the file.
+     */
+    public void flush() {
+        for (MappedByteBuffer chunk : chunks) {
+            if (chunk != null) {
+                chunk.force();
+            }
+        }
+    }
+
+    /**
+     * Write all changes to the file and close it. The grid model may not be used after this.
+     *
+     * @throws IOException if the file can't be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        releaseCells();
+
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = null;
+        }
+
+        channel.close();
+    }
+}
@@ -0,0 +1,220 @@
+package eu.lestard.grid;
+
+import java.util.Arrays;
+
+/**
+ * Defines which cells are the neighbours of a cell. A neighbourhood is a list of offsets (column and row) relative to
+ * the reference cell. It is used by {@link GridModel#forEachNeighbour(int, int, Neighbourhood, java.util.function.Consumer)}
+ * and the other neighbourhood queries of the grid model.
+ *
+ * There are factory methods for the common neighbourhoods:
+ *
+ * <ul>
+ *     <li>{@link #vonNeumann()}: the 4 cells above, below and on the left and right.</li>
+ *     <li>{@link #vonNeumann(int)}: all cells with a manhattan distance up to the given radius.</li>
+ *     <li>{@link #moore()}: the 8 surrounding cells including the diagonal ones.</li>
+ *     <li>{@link #moore(int)}: all cells in a square with the given radius.</li>
+ *     <li>{@link #hex()}: the 6 neighbours in a hexagonal grid.</li>
+ *     <li>{@link #of(int...)}: custom offsets.</li>
+ * </ul>
+ *
+ * A neighbourhood is immutable. With {@link #toroidal()} a variant is created that wraps around the edges of the grid.
+ */
+public final class Neighbourhood {
+
+    private static final Neighbourhood VON_NEUMANN = new Neighbourhood(new int[]{1, 0, -1, 0, 0, 1, 0, -1});
+
+    private static final Neighbourhood MOORE = new Neighbourhood(squareOffsets(1));
+
+    /**
+     * The offsets of a hexagonal grid where the odd rows are shifted to the right by half a cell.
+     */
+    private static final Neighbourhood HEX = new Neighbourhood(
+        new int[]{1, 0, -1, 0, -1, -1, 0, -1, -1, 1, 0, 1},
+        new int[]{1, 0, -1, 0, 0, -1, 1, -1, 0, 1, 1, 1},
+        false);
+
+    /**
+     * The offsets as pairs of column and row offsets for cells in even rows.
+     */
+    private final int[] evenRowOffsets;
+
+    /**
+     * The offsets for cells in odd rows. For most neighbourhoods this is the same array as {@link #evenRowOffsets}.
+     */
+    private final int[] oddRowOffsets;
+
+    private final boolean toroidal;
+
+    private Neighbourhood(int[] offsets) {
+        this(offsets, offsets, false);
+    }
+
+    private Neighbourhood(int[] evenRowOffsets, int[] oddRowOffsets, boolean toroidal) {
+        this.evenRowOffsets = evenRowOffsets;
+        this.oddRowOffsets = oddRowOffsets;
+        this.toroidal = toroidal;
+    }
+
+    /**
+     * The "von Neumann" neighbourhood: The 4 cells on the right, on the left, below and above (in this order).
+     * Diagonal cells are not included. This is the neighbourhood that is used by {@link GridModel#getNeighbours(int, int)}.
+     *
+     * @return the von Neumann neighbourhood.
+     */
+    public static Neighbourhood vonNeumann() {
+        return VON_NEUMANN;
+    }
+
+    /**
+     * The "von Neumann" neighbourhood with the given radius: All cells with a manhattan distance
+     * of at most <code>radius</code> to the reference cell.
+     *
+     * @param radius the radius. Has to be at least 1.
+     * @return the von Neumann neighbourhood with the given radius.
+     * @throws IllegalArgumentException if the radius is less than 1.
+     */
+    public static Neighbourhood vonNeumann(int radius) {
+        checkRadius(radius);
+
+        if (radius == 1) {
+            return VON_NEUMANN;
+        }
+
+        int[] offsets = new int[2 * (2 * radius * (radius + 1))];
+        int i = 0;
+
+        for (int rowOffset = -radius; rowOffset <= radius; rowOffset++) {
+            final int width = radius - Math.abs(rowOffset);
+
+            for (int columnOffset = -width; columnOffset <= width; columnOffset++) {
+                if (columnOffset != 0 || rowOffset != 0) {
+                    offsets[i++] = columnOffset;
+                    offsets[i++] = rowOffset;
+                }
+            }
+        }
+
+        return new Neighbourhood(offsets);
+    }
+
+    /**
+     * The "Moore" neighbourhood: The 8 cells that surround the reference cell including the diagonal cells.
+     *
+     * @return the Moore neighbourhood.
+     */
+    public static Neighbourhood moore() {
+        return MOORE;
+    }
+
+    /**
+     * The "Moore" neighbourhood with the given radius: All cells in the square of
+     * <code>(2 * radius + 1) * (2 * radius + 1)</code> cells around the reference cell.
+     *
+     * @param radius the radius. Has to be at least 1.
+     * @return the Moore neighbourhood with the given radius.
+     * @throws IllegalArgumentException if the radius is less than 1.
+     */
+    public static Neighbourhood moore(int radius) {
+        checkRadius(radius);
+
+        if (radius == 1) {
+            return MOORE;
+        }
+
+        return new Neighbourhood(squareOffsets(radius));
+    }
+
+    private static int[] squareOffsets(int radius) {
+        final int width = 2 * radius + 1;
+
+        int[] offsets = new int[2 * (width * width - 1)];
+        int i = 0;
+
+        for (int rowOffset = -radius; rowOffset <= radius; rowOffset++) {
+            for (int columnOffset = -radius; columnOffset <= radius; columnOffset++) {
+                if (columnOffset != 0 || rowOffset != 0) {
+                    offsets[i++] = columnOffset;
+                    offsets[i++] = rowOffset;
+                }
+            }
+        }
+
+        return offsets;
+    }
+
+    /**
+     * The neighbourhood of a hexagonal grid that is stored in "offset coordinates": Every odd row is
+     * shifted to the right by half a cell. Every cell has 6 neighbours: two in the same row and two
+     * in the row above and below.
+     *
+     * @return the hexagonal neighbourhood.
+     */
+    public static Neighbourhood hex() {
+        return HEX;
+    }
+
+    /**
+     * A custom neighbourhood. The offsets are given as pairs of column offset and row offset.
+     *
+     * <pre>
+     *     // the cells on the left and right with a distance of 2
+     *     Neighbourhood.of(-2, 0, 2, 0);
+     * </pre>
+     *
+     * @param offsets the column and row offsets.
+     * @return the neighbourhood with the given offsets.
+     * @throws IllegalArgumentException if the number of values is odd.
+     */
+    public static Neighbourhood of(int... offsets) {
+        if (offsets.length % 2 != 0) {
+            throw new IllegalArgumentException("The offsets have to be given as pairs of column and row offsets.");
+        }
+
+        return new Neighbourhood(Arrays.copyOf(offsets, offsets.length));
+    }
+
+    private static void checkRadius(int radius) {
+        if (radius < 1) {
+            throw new IllegalArgumentException("The radius has to be at least 1 but was " + radius + ".");
+        }
+    }
+
+    /**
+     * Create a variant of this neighbourhood that wraps around the edges of the grid. The cells in the first column
+     * are neighbours of the cells in the last column and the cells in the first row are neighbours of the cells in
+     * the last row.
+     *
+     * If the grid is smaller than the neighbourhood the same cell can be visited more than once
+     * and a cell can even be its own neighbour.
+     *
+     * @return the toroidal neighbourhood.
+     */
+    public Neighbourhood toroidal() {
+        if (toroidal) {
+            return this;
+        }
+        return new Neighbourhood(evenRowOffsets, oddRowOffsets, true);
+    }
+
+    /**
+     * @return <code>true</code> if this neighbourhood wraps around the edges of the grid, otherwise <code>false</code>.
+     */
+    public boolean isToroidal() {
+        return toroidal;
+    }
+
+    /**
+     * @return the maximal number of neighbours of a cell.
+     */
+    public int size() {
+        return Math.max(evenRowOffsets.length, oddRowOffsets.length) / 2;
+    }
+
+    /**
+     * @return the offsets as pairs of column and row offsets for a cell in the given row. The array may not be modified.
+     */
+    int[] getOffsets(int row) {
+        return (row & 1) == 0 ? evenRowOffsets : oddRowOffsets;
+    }
+}
@@ -0,0 +1,580 @@
+package eu.lestard.grid;
+
+import javafx.beans.value.ChangeListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Finds paths between the cells of a grid model (see {@link AbstractGridModel}). Whether a cell can be entered is decided by a predicate on the
+ * state of the cell.
+ *
+ * <ul>
+ *     <li>{@link #findPath(int, int, int, int)} finds a shortest path with A*.</li>
+ *     <li>{@link #findPathWithJumpPoints(int, int, int, int)} finds a shortest path with Jump Point Search. On big open
+ *     areas this is much faster than A* because straight runs of cells are skipped instead of being put into
+ *     the open set.</li>
+ *     <li>{@link #computeDistanceField(List)} computes the number of steps from the nearest of several
+ *     source cells for every cell with a breadth-first search. Distance fields to all cells with a given state can be
+ *     cached (see {@link #getDistanceField(Object)}).</li>
+ * </ul>
+ *
+ * By default only horizontal and vertical moves are allowed and every move costs 1. With
+ * {@link #setDiagonalMovement(boolean)} diagonal moves are allowed too. A diagonal move costs &radic;2 and is only
+ * possible when both cells next to the corner can be entered, so paths never cut corners.
+ *
+ * <pre>
+ *     PathFinder{@code<States>} pathFinder = new PathFinder{@code<>}(gridModel, state {@code ->} state != States.WALL);
+ *     List{@code<Cell<States>>} path = pathFinder.findPath(0, 0, 20, 10);
+ * </pre>
+ *
+ * The walkability of the cells is kept in a bit set that is updated when the states of cells change. All buffers
+ * of the searches are allocated once for the size of the grid and are reused by the following searches. The cached
+ * distance fields are dropped as soon as the state of any cell changes.
+ *
+ * The path finder has to be used from the same thread as the grid model.
+ *
+ * @param <State> the type of the states.
+ */
+public class PathFinder<State> {
+
+    private static final double SQRT_2 = Math.sqrt(2);
+
+    private static final int NO_POSITION = -1;
+
+    private static final int[] COLUMN_OFFSETS = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] ROW_OFFSETS = {0, 0, 1, -1, 1, -1, 1, -1};
+
+    private final AbstractGridModel<State> gridModel;
+
+    private final Predicate<State> walkable;
+
+    private boolean diagonalMovement = false;
+
+    private int columns;
+    private int rows;
+
+    /**
+     * <code>true</code> when the buffers have to be created and the walkability has to be read from the grid model again.
+     */
+    private boolean stale = true;
+
+    private final BitSet walkableCells = new BitSet();
+
+    // the buffers of the searches
+    private final BitSet seen = new BitSet();
+    private final BitSet closed = new BitSet();
+    private double[] costs = new double[0];
+    private int[] parents = new int[0];
+    private final PositionHeap openSet = new PositionHeap();
+    private int[] queue = new int[0];
+
+    private int goal;
+
+    private final Map<State, DistanceField> cachedDistanceFields = new HashMap<>();
+
+    private final Consumer<List<Cell<State>>> stateChangeListener = this::cellsChanged;
+    private final ChangeListener<Number> sizeListener = (obs, oldValue, newValue) -> {
+        stale = true;
+        cachedDistanceFields.clear();
+    };
+
+    /**
+     * @param gridModel the grid model.
+     * @param walkable decides whether a cell with the given state can be entered.
+     */
+    public PathFinder(AbstractGridModel<State> gridModel, Predicate<State> walkable) {
+        this.gridModel = Objects.requireNonNull(gridModel);
+        this.walkable = Objects.requireNonNull(walkable);
+
+        gridModel.addStateChangeListener(stateChangeListener);
+        gridModel.numberOfColumns().addListener(sizeListener);
+        gridModel.numberOfRows().addListener(sizeListener);
+    }
+
+    /**
+     * Specify whether diagonal moves are allowed.
+     *
+     * @param diagonalMovement <code>true</code> to allow diagonal moves.
+     */
+    public void setDiagonalMovement(boolean diagonalMovement) {
+        if (this.diagonalMovement != diagonalMovement) {
+            this.diagonalMovement = diagonalMovement;
+            cachedDistanceFields.clear();
+        }
+    }
+
+    public boolean isDiagonalMovement() {
+        return diagonalMovement;
+    }
+
+    /**
+     * Detach this path finder from the grid model. The path finder may not be used after this.
+     */
+    public void dispose() {
+        gridModel.removeStateChangeListener(stateChangeListener);
+        gridModel.numberOfColumns().removeListener(sizeListener);
+        gridModel.numberOfRows().removeListener(sizeListener);
+    }
+
+    private void readGridModel() {
+        columns = Math.max(0, gridModel.getNumberOfColumns());
+        rows = Math.max(0, gridModel.getNumberOfRows());
+
+        final int size = columns * rows;
+
+        walkableCells.clear();
+        for (int position = 0; position < size; position++) {
+            if (gridModel.hasCellAt(position) && walkable.test(gridModel.stateAt(position))) {
+                walkableCells.set(position);
+            }
+        }
+
+        costs = new double[size];
+        parents = new int[size];
+        queue = new int[size];
+        openSet.resize(size);
+
+        stale = false;
+    }
+
+    private void cellsChanged(List<Cell<State>> changedCells) {
+        cachedDistanceFields.clear();
+
+        if (stale) {
+            return;
+        }
+
+        changedCells.forEach(cell -> {
+            if (cell.getColumn() < columns && cell.getRow() < rows) {
+                walkableCells.set(cell.getRow() * columns + cell.getColumn(), walkable.test(cell.getState()));
+            }
+        });
+    }
+
+    private boolean isWalkable(int column, int row) {
+        return column >= 0 && column < columns && row >= 0 && row < rows && walkableCells.get(row * columns + column);
+    }
+
+    private int position(int column, int row) {
+        if (column < 0 || column >= columns || row < 0 || row >= rows) {
+            throw new IndexOutOfBoundsException("The cell [" + column + "," + row + "] is outside of the grid.");
+        }
+        return row * columns + column;
+    }
+
+    /**
+     * Find a shortest path with A*.
+     *
+     * @param startColumn the column of the start cell.
+     * @param startRow the row of the start cell.
+     * @param goalColumn the column of the goal cell.
+     * @param goalRow the row of the goal cell.
+     * @return the cells of the path including the start and the goal cell or an empty list if there is no path.
+     * @throws IndexOutOfBoundsException if the start or goal cell is outside of the grid.
+     */
+    public List<Cell<State>> findPath(int startColumn, int startRow, int goalColumn, int goalRow) {
+        return search(startColumn, startRow, goalColumn, goalRow, false);
+    }
+
+    /**
+     * Find a shortest path with Jump Point Search. The path has the same cost as the path of
+     * {@link #findPath(int, int, int, int)} but it may be a different one.
+     *
+     * @param startColumn the column of the start cell.
+     * @param startRow the row of the start cell.
+     * @param goalColumn the column of the goal cell.
+     * @param goalRow the row of the goal cell.
+     * @return the cells of the path including the start and the goal cell or an empty list if there is no path.
+     * @throws IndexOutOfBoundsException if the start or goal cell is outside of the grid.
+     */
+    public List<Cell<State>> findPathWithJumpPoints(int startColumn, int startRow, int goalColumn, int goalRow) {
+        return search(startColumn, startRow, goalColumn, goalRow, true);
+    }
+
+    private List<Cell<State>> search(int startColumn, int startRow, int goalColumn, int goalRow, boolean jumpPoints) {
+        if (stale) {
+            readGridModel();
+        }
+
+        final int start = position(startColumn, startRow);
+        goal = position(goalColumn, goalRow);
+
+        if (!walkableCells.get(start) || !walkableCells.get(goal)) {
+            return Collections.emptyList();
+        }
+
+        seen.clear();
+        closed.clear();
+        openSet.clear();
+
+        costs[start] = 0;
+        parents[start] = NO_POSITION;
+        seen.set(start);
+        openSet.add(start, heuristic(start));
+
+        while (!openSet.isEmpty()) {
+            final int current = openSet.poll();
+
+            if (current == goal) {
+                return buildPath(start);
+            }
+
+            closed.set(current);
+
+            if (jumpPoints) {
+                expandJumpPoints(current);
+            } else {
+                expandNeighbours(current);
+            }
+        }
+
+        return Collections.emptyList();
+    }
+
+    private void expandNeighbours(int current) {
+        final int column = current % columns;
+        final int row = current / columns;
+
+        final int directions = diagonalMovement ? 8 : 4;
+        for (int direction = 0; direction < directions; direction++) {
+            final int columnOffset = COLUMN_OFFSETS[direction];
+            final int rowOffset = ROW_OFFSETS[direction];
+
+            if (canMove(column, row, columnOffset, rowOffset)) {
+                final double cost = direction < 4 ? 1 : SQRT_2;
+                relax(current, current + rowOffset * columns + columnOffset, cost);
+            }
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the cell next to the given one in the given direction can be entered. Diagonal
+     * moves additionally need both cells next to the corner.
+     */
+    private boolean canMove(int column, int row, int columnOffset, int rowOffset) {
+        if (!isWalkable(column + columnOffset, row + rowOffset)) {
+            return false;
+        }
+        return columnOffset == 0 || rowOffset == 0 || (isWalkable(column + columnOffset, row) && isWalkable(column, row + rowOffset));
+    }
+
+    private void relax(int current, int next, double stepCost) {
+        if (closed.get(next)) {
+            return;
+        }
+
+        final double cost = costs[current] + stepCost;
+
+        if (!seen.get(next)) {
+            seen.set(next);
+            costs[next] = cost;
+            parents[next] = current;
+            openSet.add(next, cost + heuristic(next));
+        } else if (cost < costs[next]) {
+            costs[next] = cost;
+            parents[next] = current;
+            openSet.decrease(next, cost + heuristic(next));
+        }
+    }
+
+    /**
+     * @return the exact cost between two cells on an empty grid (manhattan or octile distance).
+     */
+    private double distance(int from, int to) {
+        final int columnDistance = Math.abs(from % columns - to % columns);
+        final int rowDistance = Math.abs(from / columns - to / columns);
+
+        if (diagonalMovement) {
+            return Math.max(columnDistance, rowDistance) + (SQRT_2 - 1) * Math.min(columnDistance, rowDistance);
+        }
+        return columnDistance + rowDistance;
+    }
+
+    private double heuristic(int position) {
+        return distance(position, goal);
+    }
+
+    /**
+     * Expands a node of the Jump Point Search. Only the neighbours that can't be reached on a path of the same length
+     * without the current cell are looked at (pruning). From each of them the search jumps in the same direction
+     * until it finds a cell with a forced neighbour, the goal or an obstacle.
+     */
+    private void expandJumpPoints(int current) {
+        final int column = current % columns;
+        final int row = current / columns;
+
+        final int parent = parents[current];
+
+        if (parent == NO_POSITION) {
+            final int directions = diagonalMovement ? 8 : 4;
+            for (int direction = 0; direction < directions; direction++) {
+                if (canMove(column, row, COLUMN_OFFSETS[direction], ROW_OFFSETS[direction])) {
+                    jumpFrom(current, column, row, COLUMN_OFFSETS[direction], ROW_OFFSETS[direction]);
+                }
+            }
+            return;
+        }
+
+        final int columnOffset = Integer.signum(column - parent % columns);
+        final int rowOffset = Integer.signum(row - parent / columns);
+
+        if (columnOffset != 0 && rowOffset != 0) {
+            final boolean vertical = isWalkable(column, row + rowOffset);
+            final boolean horizontal = isWalkable(column + columnOffset, row);
+
+            if (vertical) {
+                jumpFrom(current, column, row, 0, rowOffset);
+            }
+            if (horizontal) {
+                jumpFrom(current, column, row, columnOffset, 0);
+            }
+            if (vertical && horizontal) {
+                jumpFrom(current, column, row, columnOffset, rowOffset);
+            }
+        } else if (columnOffset != 0) {
+            final boolean next = isWalkable(column + columnOffset, row);
+            final boolean above = isWalkable(column, row - 1);
+            final boolean below = isWalkable(column, row + 1);
+
+            if (next) {
+                jumpFrom(current, column, row, columnOffset, 0);
+
+                if (diagonalMovement && above) {
+                    jumpFrom(current, column, row, columnOffset, -1);
+                }
+                if (diagonalMovement && below) {
+                    jumpFrom(current, column, row, columnOffset, 1);
+                }
+            }
+            if (above) {
+                jumpFrom(current, column, row, 0, -1);
+            }
+            if (below) {
+                jumpFrom(current, column, row, 0, 1);
+            }
+        } else {
+            final boolean next = isWalkable(column, row + rowOffset);
+            final boolean left = isWalkable(column - 1, row);
+            final boolean right = isWalkable(column + 1, row);
+
+            if (next) {
+                jumpFrom(current, column, row, 0, rowOffset);
+
+                if (diagonalMovement && left) {
+                    jumpFrom(current, column, row, -1, rowOffset);
+                }
+                if (diagonalMovement && right) {
+                    jumpFrom(current, column, row, 1, rowOffset);
+                }
+            }
+            if (left) {
+                jumpFrom(current, column, row, -1, 0);
+            }
+            if (right) {
+                jumpFrom(current, column, row, 1, 0);
+            }
+        }
+    }
+
+    private void jumpFrom(int current, int column, int row, int columnOffset, int rowOffset) {
+        final int jumpPoint = jump(column, row, columnOffset, rowOffset);
+        if (jumpPoint != NO_POSITION) {
+            relax(current, jumpPoint, distance(current, jumpPoint));
+        }
+    }
+
+    /**
+     * Moves from the given cell in the given direction until a jump point is found.
+     *
+     * @return the position of the jump point or {@link #NO_POSITION} if the search runs into an obstacle.
+     */
+    private int jump(int column, int row, int columnOffset, int rowOffset) {
+        while (true) {
+            column += columnOffset;
+            row += rowOffset;
+
+            if (!isWalkable(column, row)) {
+                return NO_POSITION;
+            }
+
+            final int position = row * columns + column;
+            if (position == goal) {
+                return position;
+            }
+
+            if (columnOffset != 0 && rowOffset != 0) {
+                if (jump(column, row, columnOffset, 0) != NO_POSITION || jump(column, row, 0, rowOffset) != NO_POSITION) {
+                    return position;
+                }
+
+                // no corner cutting
+                if (!isWalkable(column + columnOffset, row) || !isWalkable(column, row + rowOffset)) {
+                    return NO_POSITION;
+                }
+            } else if (columnOffset != 0) {
+                if ((isWalkable(column, row - 1) && !isWalkable(column - columnOffset, row - 1))
+                    || (isWalkable(column, row + 1) && !isWalkable(column - columnOffset, row + 1))) {
+                    return position;
+                }
+            } else {
+                if ((isWalkable(column - 1, row) && !isWalkable(column - 1, row - rowOffset))
+                    || (isWalkable(column + 1, row) && !isWalkable(column + 1, row - rowOffset))) {
+                    return position;
+                }
+
+                // without diagonal moves a turn is only possible at a jump point
+                if (!diagonalMovement && (jump(column, row, 1, 0) != NO_POSITION || jump(column, row, -1, 0) != NO_POSITION)) {
+                    return position;
+                }
+            }
+        }
+    }
+
+    /**
+     * Follows the parents from the goal back to the start. Gaps between jump points are filled with the cells
+     * of the straight or diagonal line between them.
+     */
+    private List<Cell<State>> buildPath(int start) {
+        final List<Cell<State>> path = new ArrayList<>();
+
+        int position = goal;
+        while (position != start) {
+            final int parent = parents[position];
+
+            final int columnOffset = Integer.signum(parent % columns - position % columns);
+            final int rowOffset = Integer.signum(parent / columns - position / columns);
+            final int step = rowOffset * columns + columnOffset;
+
+            for (int cell = position; cell != parent; cell += step) {
+                path.add(gridModel.cellAt(cell));
+            }
+
+            position = parent;
+        }
+        path.add(gridModel.cellAt(start));
+
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Compute the number of steps from the nearest of the given cells to every cell of the grid. The source cells have
+     * a distance of <code>0</code> even if they can't be entered.
+     *
+     * @param sources the source cells.
+     * @return the distance field.
+     */
+    public DistanceField computeDistanceField(List<Cell<State>> sources) {
+        if (stale) {
+            readGridModel();
+        }
+
+        final int[] distances = new int[columns * rows];
+        Arrays.fill(distances, DistanceField.UNREACHABLE);
+
+        int head = 0;
+        int tail = 0;
+
+        for (Cell<State> source : sources) {
+            final int position = position(source.getColumn(), source.getRow());
+            if (distances[position] == DistanceField.UNREACHABLE) {
+                distances[position] = 0;
+                queue[tail++] = position;
+            }
+        }
+
+        final int directions = diagonalMovement ? 8 : 4;
+
+        while (head < tail) {
+            final int current = queue[head++];
+
+            final int column = current % columns;
+            final int row = current / columns;
+
+            for (int direction = 0; direction < directions; direction++) {
+                final int columnOffset = COLUMN_OFFSETS[direction];
+                final int rowOffset = ROW_OFFSETS[direction];
+
+                if (canMove(column, row, columnOffset, rowOffset)) {
+                    final int next = current + rowOffset * columns + columnOffset;
+                    if (distances[next] == DistanceField.UNREACHABLE) {
+                        distances[next] = distances[current] + 1;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+
+        return new DistanceField(columns, rows, distances);
+    }
+
+    /**
+     * Return the distance field from all cells with the given state (see {@link #computeDistanceField(List)}).
+     * The field is cached until the state of any cell or the size of the grid changes.
+     *
+     * @param sourceState the state of the source cells.
+     * @return the distance field.
+     */
+    public DistanceField getDistanceField(State sourceState) {
+        DistanceField distanceField = cachedDistanceFields.get(sourceState);
+
+        if (distanceField == null) {
+            distanceField = computeDistanceField(gridModel.getCellsWithState(sourceState));
+            cachedDistanceFields.put(sourceState, distanceField);
+        }
+
+        return distanceField;
+    }
+
+    /**
+     * The number of steps from the nearest source cell for every cell of a grid.
+     */
+    public static final class DistanceField {
+
+        /**
+         * The distance of cells that can't be reached from any source.
+         */
+        public static final int UNREACHABLE = -1;
+
+        private final int numberOfColumns;
+        private final int numberOfRows;
+
+        private final int[] distances;
+
+        private DistanceField(int numberOfColumns, int numberOfRows, int[] distances) {
+            this.numberOfColumns = numberOfColumns;
+            this.numberOfRows = numberOfRows;
+            this.distances = distances;
+        }
+
+        /**
+         * @param column the column of the cell.
+         * @param row the row of the cell.
+         * @return the number of steps from the nearest source or {@link #UNREACHABLE}.
+         * @throws IndexOutOfBoundsException if the coordinates are outside of the grid.
+         */
+        public int getDistance(int column, int row) {
+            if (column < 0 || column >= numberOfColumns || row < 0 || row >= numberOfRows) {
+                throw new IndexOutOfBoundsException("The cell [" + column + "," + row + "] is outside of the grid.");
+            }
+            return distances[row * numberOfColumns + column];
+        }
+
+        public int getNumberOfColumns() {
+            return numberOfColumns;
+        }
+
+        public int getNumberOfRows() {
+            return numberOfRows;
+        }
+    }
+}
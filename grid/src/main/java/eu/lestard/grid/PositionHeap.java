@@ -0,0 +1,99 @@
+package eu.lestard.grid;
+
+/**
+ * A binary min-heap of int positions (like the positions of cells) with their priorities in primitive arrays.
+ * The heap position of every entry is stored so the priority of an entry can be decreased in place.
+ *
+ * All arrays are allocated by {@link #resize(int)} and reused after {@link #clear()}, so the heap doesn't allocate
+ * anything while it is used.
+ */
+final class PositionHeap {
+
+    private int[] heap = new int[0];
+    private int[] heapIndices = new int[0];
+    private double[] priorities = new double[0];
+    private int size = 0;
+
+    void resize(int numberOfPositions) {
+        heap = new int[numberOfPositions];
+        heapIndices = new int[numberOfPositions];
+        priorities = new double[numberOfPositions];
+        size = 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void add(int position, double priority) {
+        priorities[position] = priority;
+        heap[size] = position;
+        heapIndices[position] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * Lowers the priority of a position that is in the heap.
+     */
+    void decrease(int position, double priority) {
+        priorities[position] = priority;
+        siftUp(heapIndices[position]);
+    }
+
+    int poll() {
+        final int first = heap[0];
+
+        size--;
+        if (size > 0) {
+            move(heap[size], 0);
+            siftDown(0);
+        }
+        return first;
+    }
+
+    private void siftUp(int index) {
+        final int position = heap[index];
+        final double priority = priorities[position];
+
+        while (index > 0) {
+            final int parentIndex = (index - 1) >>> 1;
+            final int parent = heap[parentIndex];
+            if (priorities[parent] <= priority) {
+                break;
+            }
+            move(parent, index);
+            index = parentIndex;
+        }
+        move(position, index);
+    }
+
+    private void siftDown(int index) {
+        final int position = heap[index];
+        final double priority = priorities[position];
+
+        final int half = size >>> 1;
+        while (index < half) {
+            int childIndex = 2 * index + 1;
+            if (childIndex + 1 < size && priorities[heap[childIndex + 1]] < priorities[heap[childIndex]]) {
+                childIndex++;
+            }
+
+            final int child = heap[childIndex];
+            if (priority <= priorities[child]) {
+                break;
+            }
+            move(child, index);
+            index = childIndex;
+        }
+        move(position, index);
+    }
+
+    private void move(int position, int index) {
+        heap[index] = position;
+        heapIndices[position] = index;
+    }
+}
@@ -0,0 +1,476 @@
+package eu.lestard.grid;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Objects;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Finds and fills connected regions of cells with the same state in a grid model (see {@link AbstractGridModel}).
+ *
+ * Two cells are connected when they are direct horizontal or vertical neighbours (see {@link Neighbourhood#vonNeumann()})
+ * and have equal states. Cells with a state of <code>null</code> form regions too.
+ *
+ * <ul>
+ *     <li>{@link #floodFill(int, int, Object)} changes the state of the region that contains a given cell. The region
+ *     is found with a scanline algorithm and the states are changed in a single update.</li>
+ *     <li>{@link #label()} finds all regions of the grid at once with union-find on a primitive array and returns
+ *     their sizes and bounding boxes.</li>
+ * </ul>
+ *
+ * <pre>
+ *     Regions{@code<States>} regions = new Regions{@code<>}(gridModel);
+ *     regions.floodFill(3, 4, States.WATER);
+ *
+ *     Regions.Components{@code<States>} components = regions.label();
+ *     int biggest = components.getSize(components.getLabel(3, 4));
+ * </pre>
+ *
+ * For big grids the labeling can be done in parallel (see {@link #setParallel(boolean)}). The grid is split into stripes
+ * of rows that are labeled independently by the {@link AbstractGridModel#getForkJoinPool() fork join pool} of the grid model.
+ * After that the labels are merged at the borders of the stripes.
+ *
+ * The regions have to be used from the same thread as the grid model.
+ *
+ * @param <State> the type of the states.
+ */
+public class Regions<State> {
+
+    /**
+     * The minimal number of rows of a stripe in the parallel mode.
+     */
+    private static final int MIN_ROWS_PER_TASK = 16;
+
+    private final AbstractGridModel<State> gridModel;
+
+    private boolean parallel = false;
+
+    /**
+     * @param gridModel the grid model whose regions are examined.
+     */
+    public Regions(AbstractGridModel<State> gridModel) {
+        this.gridModel = Objects.requireNonNull(gridModel);
+    }
+
+    /**
+     * Specify whether the labeling is done in parallel.
+     *
+     * @param parallel <code>true</code> to label in parallel.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Change the state of all cells of the region that contains the given cell to the given state.
+     *
+     * The states are changed in a single update (see {@link AbstractGridModel#update(Runnable)}) so the listeners
+     * of the grid model get only one notification.
+     *
+     * @param column the column of the start cell.
+     * @param row the row of the start cell.
+     * @param newState the new state of the region.
+     * @return the number of cells of the region.
+     * @throws IndexOutOfBoundsException if there is no cell with the given coordinates.
+     */
+    public int floodFill(int column, int row, State newState) {
+        final BitSet region = findRegion(column, row);
+
+        if (!Objects.equals(gridModel.getState(column, row), newState)) {
+            gridModel.update(() -> {
+                for (int position = region.nextSetBit(0); position >= 0; position = region.nextSetBit(position + 1)) {
+                    gridModel.setStateAt(position, newState);
+                }
+            });
+        }
+
+        return region.cardinality();
+    }
+
+    /**
+     * Finds the region that contains the given cell with a scanline algorithm: The cells of a row are scanned to the
+     * left and right until a cell with another state is found. For the rows above and below only the first cell of every
+     * matching run is put on the stack.
+     *
+     * @return the row-major positions of the cells of the region.
+     */
+    private BitSet findRegion(int startColumn, int startRow) {
+        final int columns = gridModel.getNumberOfColumns();
+        final int rows = gridModel.getNumberOfRows();
+
+        if (startColumn < 0 || startColumn >= columns || startRow < 0 || startRow >= rows
+            || !gridModel.hasCellAt(startRow * columns + startColumn)) {
+            throw new IndexOutOfBoundsException("The cell [" + startColumn + "," + startRow + "] is outside of the grid.");
+        }
+
+        final State target = gridModel.stateAt(startRow * columns + startColumn);
+
+        final BitSet region = new BitSet(columns * rows);
+
+        // pairs of column and row
+        int[] stack = new int[64];
+        int stackSize = 0;
+
+        stack[stackSize++] = startColumn;
+        stack[stackSize++] = startRow;
+
+        while (stackSize > 0) {
+            final int row = stack[--stackSize];
+            final int column = stack[--stackSize];
+
+            final int rowStart = row * columns;
+
+            if (region.get(rowStart + column) || !matches(rowStart + column, target)) {
+                continue;
+            }
+
+            int left = column;
+            while (left > 0 && !region.get(rowStart + left - 1) && matches(rowStart + left - 1, target)) {
+                left--;
+            }
+
+            int right = column;
+            while (right < columns - 1 && !region.get(rowStart + right + 1) && matches(rowStart + right + 1, target)) {
+                right++;
+            }
+
+            region.set(rowStart + left, rowStart + right + 1);
+
+            for (int neighbourRow = row - 1; neighbourRow <= row + 1; neighbourRow += 2) {
+                if (neighbourRow < 0 || neighbourRow >= rows) {
+                    continue;
+                }
+
+                final int neighbourRowStart = neighbourRow * columns;
+
+                boolean inRun = false;
+                for (int x = left; x <= right; x++) {
+                    final boolean match = !region.get(neighbourRowStart + x) && matches(neighbourRowStart + x, target);
+
+                    if (match && !inRun) {
+                        if (stackSize + 2 > stack.length) {
+                            stack = Arrays.copyOf(stack, stack.length * 2);
+                        }
+                        stack[stackSize++] = x;
+                        stack[stackSize++] = neighbourRow;
+                    }
+                    inRun = match;
+                }
+            }
+        }
+
+        return region;
+    }
+
+    private boolean matches(int position, State target) {
+        return gridModel.hasCellAt(position) && Objects.equals(gridModel.stateAt(position), target);
+    }
+
+    /**
+     * Find all regions of the grid.
+     *
+     * @return the regions. The result is a copy and isn't updated when the grid changes.
+     */
+    public Components<State> label() {
+        final int columns = gridModel.getNumberOfColumns();
+        final int rows = gridModel.getNumberOfRows();
+
+        final Labeling labeling = new Labeling(columns, rows);
+
+        if (parallel && rows > MIN_ROWS_PER_TASK) {
+            final int threshold = Math.max(MIN_ROWS_PER_TASK, rows / (gridModel.getForkJoinPool().getParallelism() * 4));
+            gridModel.getForkJoinPool().invoke(new StripeTask(labeling, 0, rows, threshold));
+        } else {
+            labeling.labelRows(0, rows);
+        }
+
+        return labeling.toComponents();
+    }
+
+    /**
+     * The state of one labeling. The union-find forest is stored in a single int array: Every cell points
+     * to its parent and the roots point to themselves. A parent always has a smaller position than its children, so the
+     * root of a set is the cell with the smallest position and the sets of a stripe only point to cells of the stripe.
+     */
+    private class Labeling {
+
+        private static final int NO_CELL = -1;
+
+        private final int columns;
+        private final int rows;
+
+        private final Object[] states;
+
+        private final int[] parents;
+
+        Labeling(int columns, int rows) {
+            this.columns = columns;
+            this.rows = rows;
+            this.states = new Object[columns * rows];
+            this.parents = new int[columns * rows];
+        }
+
+        /**
+         * Labels the cells of the given rows. Only neighbours inside of the rows are considered.
+         */
+        void labelRows(int fromRow, int toRow) {
+            for (int row = fromRow; row < toRow; row++) {
+                for (int column = 0; column < columns; column++) {
+                    final int position = row * columns + column;
+                    if (!gridModel.hasCellAt(position)) {
+                        parents[position] = NO_CELL;
+                        continue;
+                    }
+
+                    final Object state = gridModel.stateAt(position);
+                    states[position] = state;
+                    parents[position] = position;
+
+                    if (column > 0 && parents[position - 1] != NO_CELL && Objects.equals(states[position - 1], state)) {
+                        union(position - 1, position);
+                    }
+
+                    if (row > fromRow && parents[position - columns] != NO_CELL && Objects.equals(states[position - columns], state)) {
+                        union(position - columns, position);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Merges the sets of the given row and the row above it.
+         */
+        void mergeRows(int row) {
+            for (int column = 0; column < columns; column++) {
+                final int position = row * columns + column;
+                final int above = position - columns;
+
+                if (parents[position] != NO_CELL && parents[above] != NO_CELL && Objects.equals(states[position], states[above])) {
+                    union(above, position);
+                }
+            }
+        }
+
+        private int find(int position) {
+            while (parents[position] != position) {
+                // path halving
+                parents[position] = parents[parents[position]];
+                position = parents[position];
+            }
+            return position;
+        }
+
+        private void union(int first, int second) {
+            final int firstRoot = find(first);
+            final int secondRoot = find(second);
+
+            if (firstRoot < secondRoot) {
+                parents[secondRoot] = firstRoot;
+            } else if (secondRoot < firstRoot) {
+                parents[firstRoot] = secondRoot;
+            }
+        }
+
+        /**
+         * Replaces the parents by the component labels and collects the sizes and bounding boxes of the components.
+         * The components are numbered in the order of their first cell.
+         */
+        Components<State> toComponents() {
+            final int[] labels = parents;
+
+            int numberOfComponents = 0;
+            int[] bounds = new int[64];
+            int[] sizes = new int[16];
+            Object[] componentStates = new Object[16];
+
+            for (int position = 0; position < labels.length; position++) {
+                if (labels[position] == NO_CELL) {
+                    continue;
+                }
+
+                final int column = position % columns;
+                final int row = position / columns;
+
+                final int label;
+
+                // the root is the first cell of a component, all other cells come after it
+                if (labels[position] == position) {
+                    label = numberOfComponents++;
+
+                    if (label == sizes.length) {
+                        sizes = Arrays.copyOf(sizes, sizes.length * 2);
+                        componentStates = Arrays.copyOf(componentStates, componentStates.length * 2);
+                        bounds = Arrays.copyOf(bounds, bounds.length * 2);
+                    }
+
+                    componentStates[label] = states[position];
+                    bounds[4 * label] = column;
+                    bounds[4 * label + 1] = row;
+                    bounds[4 * label + 2] = column;
+                    bounds[4 * label + 3] = row;
+                } else {
+                    // parents always have a smaller position than their children so the parent
+                    // was already replaced by the label of the component
+                    label = labels[labels[position]];
+
+                    bounds[4 * label] = Math.min(bounds[4 * label], column);
+                    bounds[4 * label + 2] = Math.max(bounds[4 * label + 2], column);
+                    bounds[4 * label + 3] = row;
+                }
+
+                sizes[label]++;
+                labels[position] = label;
+            }
+
+            return new Components<>(columns, rows, labels, Arrays.copyOf(sizes, numberOfComponents),
+                Arrays.copyOf(bounds, 4 * numberOfComponents), Arrays.copyOf(componentStates, numberOfComponents));
+        }
+    }
+
+    private class StripeTask extends RecursiveAction {
+
+        private final Labeling labeling;
+        private final int fromRow;
+        private final int toRow;
+        private final int threshold;
+
+        StripeTask(Labeling labeling, int fromRow, int toRow, int threshold) {
+            this.labeling = labeling;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (toRow - fromRow <= threshold) {
+                labeling.labelRows(fromRow, toRow);
+            } else {
+                final int middle = (fromRow + toRow) >>> 1;
+                invokeAll(new StripeTask(labeling, fromRow, middle, threshold), new StripeTask(labeling, middle, toRow, threshold));
+
+                // both stripes are done, only the border between them is left
+                labeling.mergeRows(middle);
+            }
+        }
+    }
+
+    /**
+     * The connected regions of a grid at the time of the labeling. Every region gets a label from <code>0</code> to
+     * {@link #getNumberOfComponents()} - 1. The labels are assigned in the row-major order of the first cell of
+     * every region.
+     *
+     * @param <State> the type of the states.
+     */
+    public static final class Components<State> {
+
+        private final int numberOfColumns;
+        private final int numberOfRows;
+
+        /**
+         * The label of every cell in row-major order. <code>-1</code> for missing cells.
+         */
+        private final int[] labels;
+
+        private final int[] sizes;
+
+        /**
+         * The bounding boxes as quadruples of first column, first row, last column and last row.
+         */
+        private final int[] bounds;
+
+        private final Object[] states;
+
+        private Components(int numberOfColumns, int numberOfRows, int[] labels, int[] sizes, int[] bounds, Object[] states) {
+            this.numberOfColumns = numberOfColumns;
+            this.numberOfRows = numberOfRows;
+            this.labels = labels;
+            this.sizes = sizes;
+            this.bounds = bounds;
+            this.states = states;
+        }
+
+        public int getNumberOfComponents() {
+            return sizes.length;
+        }
+
+        /**
+         * @param column the column of the cell.
+         * @param row the row of the cell.
+         * @return the label of the region that contains the cell with the given coordinates or <code>-1</code> if
+         * there was no such cell.
+         * @throws IndexOutOfBoundsException if the coordinates are outside of the grid.
+         */
+        public int getLabel(int column, int row) {
+            if (column < 0 || column >= numberOfColumns || row < 0 || row >= numberOfRows) {
+                throw new IndexOutOfBoundsException("The cell [" + column + "," + row + "] is outside of the grid.");
+            }
+            return labels[row * numberOfColumns + column];
+        }
+
+        /**
+         * @param label the label of the region.
+         * @return the state of the cells of the region.
+         */
+        @SuppressWarnings("unchecked")
+        public State getState(int label) {
+            checkLabel(label);
+            return (State) states[label];
+        }
+
+        /**
+         * @param label the label of the region.
+         * @return the number of cells of the region.
+         */
+        public int getSize(int label) {
+            checkLabel(label);
+            return sizes[label];
+        }
+
+        /**
+         * @param label the label of the region.
+         * @return the smallest column of the cells of the region.
+         */
+        public int getMinColumn(int label) {
+            checkLabel(label);
+            return bounds[4 * label];
+        }
+
+        /**
+         * @param label the label of the region.
+         * @return the smallest row of the cells of the region.
+         */
+        public int getMinRow(int label) {
+            checkLabel(label);
+            return bounds[4 * label + 1];
+        }
+
+        /**
+         * @param label the label of the region.
+         * @return the biggest column of the cells of the region.
+         */
+        public int getMaxColumn(int label) {
+            checkLabel(label);
+            return bounds[4 * label + 2];
+        }
+
+        /**
+         * @param label the label of the region.
+         * @return the biggest row of the cells of the region.
+         */
+        public int getMaxRow(int label) {
+            checkLabel(label);
+            return bounds[4 * label + 3];
+        }
+
+        private void checkLabel(int label) {
+            if (label < 0 || label >= sizes.length) {
+                throw new IndexOutOfBoundsException("Label: " + label + ", Size: " + sizes.length);
+            }
+        }
+    }
+}
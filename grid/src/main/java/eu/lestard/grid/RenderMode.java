@@ -0,0 +1,36 @@
+package eu.lestard.grid;
+
+/**
+ * The rendering modes that are supported by the {@link eu.lestard.grid.GridView}.
+ * The mode is defined when the grid view is created (see {@link GridView#GridView(RenderMode)}).
+ */
+public enum RenderMode {
+
+    /**
+     * Every cell is rendered as its own {@link javafx.scene.layout.Pane}. Node mappings
+     * (see {@link GridView#addNodeMapping(Object, java.util.function.Function)}) can be used to add nodes to the cells.
+     *
+     * This is the default mode. It is suitable for small grids like in board games.
+     */
+    NODES,
+
+    /**
+     * All cells are painted on a single {@link javafx.scene.canvas.Canvas}. The number of nodes and the memory
+     * consumption of the view don't depend on the size of the grid.
+     *
+     * Color mappings, cell borders, the grid border and guidelines are supported. Node mappings are ignored
+     * and there are no panes for the cells (see {@link GridView#getCellPane(Cell)}).
+     */
+    CANVAS,
+
+    /**
+     * Only the visible part of the grid is rendered. The cells have a fixed size
+     * (see {@link GridView#viewportCellSizeProperty()}) and the visible region is moved by scrolling
+     * (see {@link GridView#viewportXProperty()} and {@link GridView#viewportYProperty()}).
+     *
+     * Like in the {@link #NODES} mode cells are rendered as panes but only the visible cells get a pane. The panes
+     * are reused when the viewport is moved so the number of nodes depends on the size of the viewport and not on the
+     * size of the grid.
+     */
+    VIRTUALIZED
+}
@@ -0,0 +1,100 @@
+package eu.lestard.grid;
+
+import javafx.animation.AnimationTimer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Collects the cells of a {@link eu.lestard.grid.GridView} that need to be repainted and
+ * repaints them once per JavaFX pulse.
+ *
+ * When a cell is changed multiple times between two pulses only the last state is rendered.
+ * The timer only runs while there is something to repaint.
+ *
+ * @param <State> the generic enum type of the states.
+ */
+class RepaintScheduler<State> {
+
+    private final Consumer<List<Cell<State>>> cellRenderer;
+
+    private final Runnable fullRenderer;
+
+    private final Set<Cell<State>> dirtyCells = new LinkedHashSet<>();
+
+    private boolean allDirty = false;
+
+    private boolean scheduled = false;
+
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            flush();
+        }
+    };
+
+    /**
+     * @param cellRenderer renders the given cells.
+     * @param fullRenderer renders all cells of the grid.
+     */
+    RepaintScheduler(Consumer<List<Cell<State>>> cellRenderer, Runnable fullRenderer) {
+        this.cellRenderer = cellRenderer;
+        this.fullRenderer = fullRenderer;
+    }
+
+    /**
+     * The given cells will be repainted with the next pulse.
+     */
+    void markDirty(Collection<Cell<State>> cells) {
+        if (!allDirty) {
+            dirtyCells.addAll(cells);
+        }
+        schedule();
+    }
+
+    /**
+     * All cells will be repainted with the next pulse.
+     */
+    void markAllDirty() {
+        allDirty = true;
+        dirtyCells.clear();
+        schedule();
+    }
+
+    /**
+     * Repaint all dirty cells immediately.
+     */
+    void flush() {
+        timer.stop();
+        scheduled = false;
+
+        if (allDirty) {
+            allDirty = false;
+            fullRenderer.run();
+        } else if (!dirtyCells.isEmpty()) {
+            final List<Cell<State>> cells = new ArrayList<>(dirtyCells);
+            dirtyCells.clear();
+
+            cellRenderer.accept(cells);
+        }
+    }
+
+    /**
+     * Forget all dirty cells. This is used when all cells were repainted by other means.
+     */
+    void clear() {
+        allDirty = false;
+        dirtyCells.clear();
+    }
+
+    private void schedule() {
+        if (!scheduled) {
+            scheduled = true;
+            timer.start();
+        }
+    }
+}
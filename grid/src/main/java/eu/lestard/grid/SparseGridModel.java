@@ -0,0 +1,188 @@
+package eu.lestard.grid;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A memory efficient alternative to the {@link eu.lestard.grid.GridModel} for big grids where most of the cells
+ * have the default state.
+ *
+ * The grid is divided into square chunks of {@link #CHUNK_SIZE} x {@link #CHUNK_SIZE} cells. A chunk is only created
+ * when a cell in it gets a state that differs from the default state and it is removed again when all of its cells
+ * have the default state. Reading the state of a cell in an area without a chunk returns the default state
+ * without creating anything. This way the memory usage depends on the number of cells with a non-default state
+ * instead of the size of the grid.
+ *
+ * Like in the {@link CompactGridModel} cells are only created when they are requested with {@link #getCell(int, int)}
+ * (see {@link LazyGridModel}). Such a cell is a view on the stored state.
+ *
+ * Unlike the other grid models, changing the default state (see {@link #setDefaultState(Object)}) changes the state
+ * of all cells that haven't got another state.
+ *
+ * @param <State> the type of the states.
+ */
+public class SparseGridModel<State> extends LazyGridModel<State> {
+
+    /**
+     * The width and height of the chunks.
+     */
+    public static final int CHUNK_SIZE = 64;
+
+    /**
+     * Is stored in a chunk for cells that have the default state.
+     */
+    private static final Object DEFAULT = new Object();
+
+    private static class Chunk {
+        final long key;
+
+        final Object[] states = new Object[CHUNK_SIZE * CHUNK_SIZE];
+
+        /**
+         * The number of cells in this chunk that don't have the default state.
+         */
+        int numberOfStates = 0;
+
+        Chunk(long key) {
+            this.key = key;
+            Arrays.fill(states, DEFAULT);
+        }
+    }
+
+    /**
+     * The chunks that contain cells with a non-default state, indexed by their chunk coordinates
+     * (see {@link #key(int, int)}).
+     */
+    private final LongTable<Chunk> chunks = new LongTable<>();
+
+    private State defaultState;
+
+    private long numberOfNonDefaultCells = 0;
+
+    public SparseGridModel() {
+    }
+
+    @Override
+    void resizeStorage(int oldColumns, int oldRows, int columns, int rows) {
+        // cells outside of the grid are removed so that they have the default state when the grid grows again.
+        for (Chunk chunk : chunks.values()) {
+            final int firstColumn = column(chunk.key) * CHUNK_SIZE;
+            final int firstRow = row(chunk.key) * CHUNK_SIZE;
+
+            if (firstColumn + CHUNK_SIZE <= columns && firstRow + CHUNK_SIZE <= rows) {
+                continue;
+            }
+
+            for (int index = 0; index < chunk.states.length; index++) {
+                final int column = firstColumn + index % CHUNK_SIZE;
+                final int row = firstRow + index / CHUNK_SIZE;
+
+                if (chunk.states[index] != DEFAULT && (column >= columns || row >= rows)) {
+                    chunk.states[index] = DEFAULT;
+                    chunk.numberOfStates--;
+                    numberOfNonDefaultCells--;
+                }
+            }
+
+            if (chunk.numberOfStates == 0) {
+                chunks.remove(chunk.key);
+            }
+        }
+    }
+
+    private static int indexInChunk(int column, int row) {
+        return (row % CHUNK_SIZE) * CHUNK_SIZE + column % CHUNK_SIZE;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    State readState(int column, int row) {
+        final Chunk chunk = chunks.get(key(column / CHUNK_SIZE, row / CHUNK_SIZE));
+        if (chunk == null) {
+            return defaultState;
+        }
+
+        final Object state = chunk.states[indexInChunk(column, row)];
+        return state == DEFAULT ? defaultState : (State) state;
+    }
+
+    @Override
+    void writeState(int column, int row, State state) {
+        final long chunkKey = key(column / CHUNK_SIZE, row / CHUNK_SIZE);
+        final int index = indexInChunk(column, row);
+
+        Chunk chunk = chunks.get(chunkKey);
+
+        if (Objects.equals(state, defaultState)) {
+            if (chunk != null && chunk.states[index] != DEFAULT) {
+                chunk.states[index] = DEFAULT;
+                numberOfNonDefaultCells--;
+
+                if (--chunk.numberOfStates == 0) {
+                    chunks.remove(chunkKey);
+                }
+            }
+        } else {
+            if (chunk == null) {
+                chunk = new Chunk(chunkKey);
+                chunks.put(chunkKey, chunk);
+            }
+
+            if (chunk.states[index] == DEFAULT) {
+                chunk.numberOfStates++;
+                numberOfNonDefaultCells++;
+            }
+            chunk.states[index] = state;
+        }
+    }
+
+    /**
+     * @return the number of chunks that exist at the moment.
+     */
+    public int getNumberOfChunks() {
+        return chunks.size();
+    }
+
+    /**
+     * @return the number of cells whose state differs from the default state.
+     */
+    public long getNumberOfNonDefaultCells() {
+        return numberOfNonDefaultCells;
+    }
+
+    /**
+     * Specify the default state. All cells that haven't got another state get the new default state.
+     * Cells that already have the new default state don't use any memory afterwards.
+     *
+     * @param defaultState the default state.
+     */
+    @Override
+    public void setDefaultState(State defaultState) {
+        final State oldDefaultState = this.defaultState;
+        this.defaultState = defaultState;
+
+        if (Objects.equals(oldDefaultState, defaultState)) {
+            return;
+        }
+
+        for (Chunk chunk : chunks.values()) {
+            for (int index = 0; index < chunk.states.length; index++) {
+                if (chunk.states[index] != DEFAULT && Objects.equals(chunk.states[index], defaultState)) {
+                    chunk.states[index] = DEFAULT;
+                    chunk.numberOfStates--;
+                    numberOfNonDefaultCells--;
+                }
+            }
+
+            if (chunk.numberOfStates == 0) {
+                chunks.remove(chunk.key);
+            }
+        }
+
+        refreshMaterializedCells();
+    }
+
+    public State getDefaultState() {
+        return defaultState;
+    }
+}
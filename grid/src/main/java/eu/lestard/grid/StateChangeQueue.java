@@ -0,0 +1,185 @@
+package eu.lestard.grid;
+
+import javafx.application.Platform;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Changes the states of the cells of a grid model (see {@link AbstractGridModel}) from other threads than the JavaFX thread.
+ *
+ * The grid models and the {@link GridView} may only be used from the JavaFX thread. Instead of calling
+ * {@link Platform#runLater(Runnable)} for every single change, worker threads can put the changes into this queue.
+ * The changes are applied on the JavaFX thread in batches of at most {@link #getMaxBatchSize()} cells.
+ * Every batch is applied in a single update (see {@link AbstractGridModel#update(Runnable)}). When there are more changes
+ * left, the next batch is scheduled with a new {@link Platform#runLater(Runnable)} call so the JavaFX thread can
+ * render frames in between.
+ *
+ * When the state of a cell is changed multiple times before the change is applied, only the last state is used
+ * (last writer wins). This way the queue can never contain more entries than there are cells in the grid.
+ *
+ * <pre>
+ *     StateChangeQueue{@code<States>} queue = new StateChangeQueue{@code<>}(gridModel);
+ *
+ *     // on any thread
+ *     queue.changeState(3, 4, States.FILLED);
+ * </pre>
+ *
+ * @param <State> the type of the states.
+ */
+public class StateChangeQueue<State> {
+
+    /**
+     * Is used in place of <code>null</code> states because the map doesn't support <code>null</code> values.
+     */
+    private static final Object NO_STATE = new Object();
+
+    private static final int DEFAULT_MAX_BATCH_SIZE = 10000;
+
+    private final AbstractGridModel<State> gridModel;
+
+    private final Executor fxExecutor;
+
+    private final int maxBatchSize;
+
+    /**
+     * The last state for every cell that is waiting to be applied. The key is the position of the cell
+     * (see {@link #key(int, int)}).
+     */
+    private final ConcurrentHashMap<Long, Object> pendingStates = new ConcurrentHashMap<>();
+
+    /**
+     * The positions of the cells in the order of their first change. Every position is contained at most once.
+     */
+    private final Queue<Long> pendingPositions = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+
+    /**
+     * @param gridModel the grid model whose cells are changed.
+     */
+    public StateChangeQueue(AbstractGridModel<State> gridModel) {
+        this(gridModel, DEFAULT_MAX_BATCH_SIZE, Platform::runLater);
+    }
+
+    /**
+     * @param gridModel the grid model whose cells are changed.
+     * @param maxBatchSize the maximal number of cells that are changed in a single update.
+     */
+    public StateChangeQueue(AbstractGridModel<State> gridModel, int maxBatchSize) {
+        this(gridModel, maxBatchSize, Platform::runLater);
+    }
+
+    /**
+     * @param gridModel the grid model whose cells are changed.
+     * @param maxBatchSize the maximal number of cells that are changed in a single update.
+     * @param fxExecutor the executor that runs the batches on the thread of the grid model.
+     */
+    public StateChangeQueue(AbstractGridModel<State> gridModel, int maxBatchSize, Executor fxExecutor) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("The batch size has to be at least 1 but was " + maxBatchSize + ".");
+        }
+
+        this.gridModel = Objects.requireNonNull(gridModel);
+        this.maxBatchSize = maxBatchSize;
+        this.fxExecutor = Objects.requireNonNull(fxExecutor);
+    }
+
+    /**
+     * Change the state of the cell with the given coordinates. This method can be called from any thread.
+     * If the cell doesn't exist anymore when the change is applied, the change is ignored.
+     *
+     * @param column the column of the cell.
+     * @param row the row of the cell.
+     * @param newState the new state.
+     */
+    public void changeState(int column, int row, State newState) {
+        final Long key = key(column, row);
+
+        if (pendingStates.put(key, newState == null ? NO_STATE : newState) == null) {
+            pendingPositions.offer(key);
+        }
+
+        scheduleDrain();
+    }
+
+    /**
+     * Change the state of the given cell. This method can be called from any thread.
+     *
+     * @param cell the cell.
+     * @param newState the new state.
+     */
+    public void changeState(Cell<State> cell, State newState) {
+        changeState(cell.getColumn(), cell.getRow(), newState);
+    }
+
+    /**
+     * @return the number of cells that are waiting for their new state to be applied.
+     */
+    public int getNumberOfPendingChanges() {
+        return pendingStates.size();
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            fxExecutor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Applies the next batch of changes. Runs on the thread of the grid model.
+     */
+    @SuppressWarnings("unchecked")
+    private void drain() {
+        try {
+            gridModel.update(() -> {
+                for (int i = 0; i < maxBatchSize; i++) {
+                    final Long key = pendingPositions.poll();
+                    if (key == null) {
+                        break;
+                    }
+
+                    // the key is removed before the state is read. A change that comes in after this
+                    // adds the key to the queue again.
+                    final Object state = pendingStates.remove(key);
+
+                    final int column = column(key);
+                    final int row = row(key);
+
+                    final boolean inGrid = column >= 0 && column < gridModel.getNumberOfColumns()
+                        && row >= 0 && row < gridModel.getNumberOfRows();
+
+                    if (inGrid && state != null) {
+                        gridModel.setState(column, row, state == NO_STATE ? null : (State) state);
+                    }
+                }
+            });
+        } finally {
+            drainScheduled.set(false);
+
+            if (!pendingPositions.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+
+    private static Long key(int column, int row) {
+        return ((long) column << 32) | (row & 0xFFFFFFFFL);
+    }
+
+    private static int column(long key) {
+        return (int) (key >> 32);
+    }
+
+    private static int row(long key) {
+        return (int) key;
+    }
+}
@@ -0,0 +1,161 @@
+package eu.lestard.grid;
+
+import javafx.scene.layout.Pane;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class manages the cell panes of a {@link eu.lestard.grid.GridView} in the {@link RenderMode#VIRTUALIZED} mode.
+ *
+ * Only the cells in the visible region of the grid (plus a small margin) get a pane. When the viewport is
+ * moved the panes of cells that are no longer visible are put into a pool and are reused for the cells that
+ * become visible. This way the number of panes depends on the size of the viewport and not on the size of the grid.
+ *
+ * Grid models that create cells on demand (see {@link LazyGridModel}) only create the cells of the visible region.
+ * These cells are released again when they are scrolled out of view.
+ *
+ * @param <State> the generic enum type of the states.
+ */
+class VirtualCellLayer<State> {
+
+    /**
+     * The number of cells outside of the viewport in every direction that get a pane too.
+     * This way small scroll movements don't need to create new panes.
+     */
+    static final int MARGIN = 2;
+
+    private final GridView<State> gridView;
+
+    /**
+     * Contains the panes of the cells. It is translated according to the viewport position.
+     */
+    private final Pane content = new Pane();
+
+    private final Deque<Pane> pool = new ArrayDeque<>();
+
+    private final Map<Cell<State>, Pane> visiblePanes = new HashMap<>();
+
+    /**
+     * The visible cells that didn't exist before this layer has requested them.
+     */
+    private final Set<Cell<State>> requestedCells = new HashSet<>();
+
+    private double lastCellSize;
+
+    VirtualCellLayer(GridView<State> gridView) {
+        this.gridView = gridView;
+    }
+
+    Pane getContent() {
+        return content;
+    }
+
+    /**
+     * @return the number of panes that are currently used to show cells.
+     */
+    int getNumberOfVisiblePanes() {
+        return visiblePanes.size();
+    }
+
+    /**
+     * Update the panes for the viewport with the given position and size (in pixels).
+     */
+    void refresh(double x, double y, double width, double height) {
+        content.setTranslateX(-x);
+        content.setTranslateY(-y);
+
+        final AbstractGridModel<State> gridModel = gridView.getGridModel();
+        final double cellSize = gridView.cellSizeProperty().get();
+
+        if (gridModel == null || cellSize <= 0) {
+            releaseAll();
+            return;
+        }
+
+        final int firstColumn = Math.max(0, (int) (x / cellSize) - MARGIN);
+        final int lastColumn = Math.min(gridModel.getNumberOfColumns() - 1, (int) ((x + width) / cellSize) + MARGIN);
+        final int firstRow = Math.max(0, (int) (y / cellSize) - MARGIN);
+        final int lastRow = Math.min(gridModel.getNumberOfRows() - 1, (int) ((y + height) / cellSize) + MARGIN);
+
+        final Iterator<Map.Entry<Cell<State>, Pane>> iterator = visiblePanes.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Cell<State> cell = iterator.next().getKey();
+            final int column = cell.getColumn();
+            final int row = cell.getRow();
+
+            final boolean outOfViewport = column < firstColumn || column > lastColumn || row < firstRow || row > lastRow;
+
+            // the cell could be removed from the model in the meantime
+            if (outOfViewport || gridModel.getCell(column, row) != cell) {
+                iterator.remove();
+                release(cell, gridModel);
+            }
+        }
+
+        if (cellSize != lastCellSize) {
+            lastCellSize = cellSize;
+            visiblePanes.forEach((cell, pane) -> relocate(cell, pane, cellSize));
+        }
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                final boolean requested = !gridModel.isMaterialized(column, row);
+                final Cell<State> cell = gridModel.getCell(column, row);
+
+                if (cell != null && !visiblePanes.containsKey(cell)) {
+                    if (requested) {
+                        requestedCells.add(cell);
+                    }
+                    show(cell, cellSize);
+                }
+            }
+        }
+    }
+
+    private void show(Cell<State> cell, double cellSize) {
+        Pane pane = pool.poll();
+
+        if (pane == null) {
+            pane = gridView.createCellPane();
+            content.getChildren().add(pane);
+        } else {
+            pane.setVisible(true);
+        }
+
+        relocate(cell, pane, cellSize);
+
+        visiblePanes.put(cell, pane);
+        gridView.attachCellPane(cell, pane);
+    }
+
+    private void relocate(Cell<State> cell, Pane pane, double cellSize) {
+        pane.setLayoutX(cell.getColumn() * cellSize);
+        pane.setLayoutY(cell.getRow() * cellSize);
+    }
+
+    private void release(Cell<State> cell, AbstractGridModel<State> gridModel) {
+        final Pane pane = gridView.detachCellPane(cell);
+
+        if (pane != null) {
+            pane.setVisible(false);
+            pool.push(pane);
+        }
+
+        if (requestedCells.remove(cell) && gridModel != null) {
+            gridModel.releaseCell(cell);
+        }
+    }
+
+    private void releaseAll() {
+        final AbstractGridModel<State> gridModel = gridView.getGridModel();
+
+        visiblePanes.keySet().forEach(cell -> release(cell, gridModel));
+        visiblePanes.clear();
+    }
+}
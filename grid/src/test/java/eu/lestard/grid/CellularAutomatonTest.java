@@ -0,0 +1,160 @@
+package eu.lestard.grid;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class CellularAutomatonTest {
+
+    public static enum States {
+        DEAD,
+        ALIVE
+    }
+
+    private GridModel<States> model;
+
+    private CellularAutomaton<States> gameOfLife;
+
+    @Before
+    public void setup(){
+        model = new GridModel<>();
+        model.setDefaultState(States.DEAD);
+        model.setNumberOfColumns(5);
+        model.setNumberOfRows(5);
+
+        gameOfLife = new CellularAutomaton<>(model, Neighbourhood.moore(), (state, neighbours) -> {
+            final int alive = neighbours.count(States.ALIVE);
+            if (alive == 3 || (alive == 2 && state == States.ALIVE)) {
+                return States.ALIVE;
+            }
+            return States.DEAD;
+        });
+    }
+
+    /**
+     * A "blinker" switches between a horizontal and a vertical line of three cells.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBlinker(){
+        setAlive(1, 2, 2, 2, 3, 2);
+
+        gameOfLife.step();
+        assertThat(model.getCellsWithState(States.ALIVE)).containsExactly(
+            model.getCell(2, 1), model.getCell(2, 2), model.getCell(2, 3));
+
+        gameOfLife.step();
+        assertThat(model.getCellsWithState(States.ALIVE)).containsExactly(
+            model.getCell(1, 2), model.getCell(2, 2), model.getCell(3, 2));
+
+        assertThat(gameOfLife.getGeneration()).isEqualTo(2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEveryGenerationIsPublishedInASingleUpdate(){
+        setAlive(1, 2, 2, 2, 3, 2);
+
+        List<List<Cell<States>>> notifications = new ArrayList<>();
+        model.addStateChangeListener(notifications::add);
+
+        gameOfLife.step();
+
+        assertThat(notifications).hasSize(1);
+        assertThat(notifications.get(0)).containsOnly(
+            model.getCell(1, 2), model.getCell(3, 2), model.getCell(2, 1), model.getCell(2, 3));
+    }
+
+    @Test
+    public void testOnlyTheLastOfMultipleGenerationsIsPublished(){
+        setAlive(1, 2, 2, 2, 3, 2);
+
+        List<List<Cell<States>>> notifications = new ArrayList<>();
+        model.addStateChangeListener(notifications::add);
+
+        // after two generations the blinker is in the same state as before
+        gameOfLife.step(2);
+
+        assertThat(notifications).isEmpty();
+        assertThat(gameOfLife.getGeneration()).isEqualTo(2);
+    }
+
+    @Test
+    public void testChangesFromTheOutsideAreUsedInTheNextGeneration(){
+        gameOfLife.step();
+        assertThat(model.countCellsWithState(States.ALIVE)).isEqualTo(0);
+
+        setAlive(1, 2, 2, 2, 3, 2);
+
+        gameOfLife.step();
+        assertThat(model.countCellsWithState(States.ALIVE)).isEqualTo(3);
+        assertThat(model.getCell(2, 1).getState()).isEqualTo(States.ALIVE);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testResizeOfTheGrid(){
+        gameOfLife.step();
+
+        model.setNumberOfColumns(8);
+        setAlive(5, 2, 6, 2, 7, 2);
+
+        gameOfLife.step();
+        assertThat(model.getCellsWithState(States.ALIVE)).containsExactly(
+            model.getCell(6, 1), model.getCell(6, 2), model.getCell(6, 3));
+    }
+
+    @Test
+    public void testParallelAndToroidal(){
+        model.setNumberOfColumns(50);
+        model.setNumberOfRows(50);
+
+        CellularAutomaton<States> sequential = new CellularAutomaton<>(model, Neighbourhood.moore().toroidal(), this::gameOfLifeRule);
+
+        GridModel<States> otherModel = new GridModel<>();
+        otherModel.setDefaultState(States.DEAD);
+        otherModel.setNumberOfColumns(50);
+        otherModel.setNumberOfRows(50);
+        otherModel.setForkJoinPool(new ForkJoinPool(3));
+
+        CellularAutomaton<States> parallel = new CellularAutomaton<>(otherModel, Neighbourhood.moore().toroidal(), this::gameOfLifeRule);
+        parallel.setParallel(true);
+
+        // a glider at the edge of the grid
+        int[] glider = {1, 49, 2, 0, 0, 1, 1, 1, 2, 1};
+        for (int i = 0; i < glider.length; i += 2) {
+            model.getCell(glider[i], glider[i + 1]).changeState(States.ALIVE);
+            otherModel.getCell(glider[i], glider[i + 1]).changeState(States.ALIVE);
+        }
+
+        sequential.step(40);
+        parallel.step(40);
+
+        assertThat(model.countCellsWithState(States.ALIVE)).isEqualTo(5);
+
+        for (int row = 0; row < 50; row++) {
+            for (int column = 0; column < 50; column++) {
+                assertThat(otherModel.getCell(column, row).getState()).isEqualTo(model.getCell(column, row).getState());
+            }
+        }
+    }
+
+    private States gameOfLifeRule(States state, CellularAutomaton.Neighbours<States> neighbours) {
+        final int alive = neighbours.count(States.ALIVE);
+        if (alive == 3 || (alive == 2 && state == States.ALIVE)) {
+            return States.ALIVE;
+        }
+        return States.DEAD;
+    }
+
+    private void setAlive(int... coordinates) {
+        for (int i = 0; i < coordinates.length; i += 2) {
+            model.getCell(coordinates[i], coordinates[i + 1]).changeState(States.ALIVE);
+        }
+    }
+}
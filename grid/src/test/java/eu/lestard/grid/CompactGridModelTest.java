@@ -0,0 +1,150 @@
+package eu.lestard.grid;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static eu.lestard.assertj.javafx.api.Assertions.*;
+
+public class CompactGridModelTest {
+
+    public static enum States {
+        EMPTY,
+        FILLED
+    }
+
+    private CompactGridModel<States> model;
+
+    @Before
+    public void setup(){
+        model = new CompactGridModel<>(States.class);
+        model.setDefaultState(States.EMPTY);
+    }
+
+    @Test
+    public void testNewCellsHaveDefaultState(){
+        model.setNumberOfColumns(3);
+        model.setNumberOfRows(2);
+
+        for (int column = 0; column < 3; column++) {
+            for (int row = 0; row < 2; row++) {
+                assertThat(model.getState(column, row)).isEqualTo(States.EMPTY);
+            }
+        }
+
+        assertThat(model.getNumberOfMaterializedCells()).isEqualTo(0);
+    }
+
+    @Test
+    public void testStatesAreKeptWhenGridIsResized(){
+        model.setNumberOfColumns(3);
+        model.setNumberOfRows(3);
+
+        model.setState(1, 1, States.FILLED);
+        model.setState(2, 2, States.FILLED);
+
+        model.setNumberOfColumns(5);
+        assertThat(model.getState(1, 1)).isEqualTo(States.FILLED);
+        assertThat(model.getState(2, 2)).isEqualTo(States.FILLED);
+        assertThat(model.getState(4, 2)).isEqualTo(States.EMPTY);
+
+        model.setNumberOfRows(2);
+        assertThat(model.getState(1, 1)).isEqualTo(States.FILLED);
+        assertThat(model.getCell(2, 2)).isNull();
+    }
+
+    @Test
+    public void testCellsAreViewsOnTheStates(){
+        model.setNumberOfColumns(3);
+        model.setNumberOfRows(3);
+
+        final Cell<States> cell = model.getCell(1, 2);
+        assertThat(model.getNumberOfMaterializedCells()).isEqualTo(1);
+        assertThat(model.getCell(1, 2)).isSameAs(cell);
+
+        assertThat(cell.stateProperty()).hasValue(States.EMPTY);
+
+        model.setState(1, 2, States.FILLED);
+        assertThat(cell.stateProperty()).hasValue(States.FILLED);
+
+        cell.changeState(States.EMPTY);
+        assertThat(model.getState(1, 2)).isEqualTo(States.EMPTY);
+
+        // the cell keeps its coordinates when the grid is resized
+        model.setNumberOfColumns(10);
+        model.setState(1, 2, States.FILLED);
+        assertThat(cell.stateProperty()).hasValue(States.FILLED);
+    }
+
+    @Test
+    public void testCellsWithStateNullGetDefaultState(){
+        model = new CompactGridModel<>(States.class);
+        model.setNumberOfColumns(2);
+        model.setNumberOfRows(2);
+
+        assertThat(model.getState(0, 0)).isNull();
+
+        model.setState(1, 1, States.FILLED);
+        model.setDefaultState(States.EMPTY);
+
+        assertThat(model.getState(0, 0)).isEqualTo(States.EMPTY);
+        assertThat(model.getState(1, 1)).isEqualTo(States.FILLED);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetStateOutsideOfGridFails(){
+        model.setNumberOfColumns(2);
+        model.setNumberOfRows(2);
+
+        model.getState(2, 0);
+    }
+
+    @Test
+    public void testAlgorithmsWorkWithoutMaterializingCells(){
+        model.setNumberOfColumns(100);
+        model.setNumberOfRows(100);
+
+        // a wall with a gap in the last row
+        for (int row = 0; row < 99; row++) {
+            model.setState(50, row, States.FILLED);
+        }
+
+        final Regions<States> regions = new Regions<>(model);
+        assertThat(regions.label().getNumberOfComponents()).isEqualTo(2);
+
+        final PathFinder<States> pathFinder = new PathFinder<>(model, state -> state == States.EMPTY);
+        final List<Cell<States>> path = pathFinder.findPath(0, 0, 99, 0);
+
+        assertThat(path).isNotEmpty();
+        assertThat(path).extracting("row").contains(99);
+
+        assertThat(regions.floodFill(0, 0, States.FILLED)).isEqualTo(100 * 100 - 99);
+
+        // only the cells of the path were requested
+        assertThat(model.getNumberOfMaterializedCells()).isEqualTo(path.size());
+    }
+
+    @Test
+    public void testSnapshotAndRestore(){
+        model.setNumberOfColumns(40);
+        model.setNumberOfRows(3);
+        model.setState(35, 2, States.FILLED);
+
+        final GridSnapshot<States> snapshot = model.snapshot();
+        assertThat(snapshot.getState(35, 2)).isEqualTo(States.FILLED);
+        assertThat(snapshot.getState(0, 0)).isEqualTo(States.EMPTY);
+
+        // a snapshot of a compact model can be restored in a normal grid model
+        final GridModel<States> gridModel = new GridModel<>();
+        gridModel.restore(snapshot);
+        assertThat(gridModel.getCell(35, 2).getState()).isEqualTo(States.FILLED);
+
+        gridModel.getCell(0, 0).changeState(States.FILLED);
+        model.restore(gridModel.snapshot());
+        assertThat(model.getState(0, 0)).isEqualTo(States.FILLED);
+        assertThat(model.getState(35, 2)).isEqualTo(States.FILLED);
+        assertThat(model.getState(1, 0)).isEqualTo(States.EMPTY);
+    }
+}
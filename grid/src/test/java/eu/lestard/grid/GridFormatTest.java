@@ -0,0 +1,171 @@
+package eu.lestard.grid;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class GridFormatTest {
+
+    public static enum States {
+        EMPTY,
+        FILLED,
+        BLOCKED
+    }
+
+    /**
+     * The same constants as {@link States} in a different order and with an additional constant.
+     */
+    public static enum ReorderedStates {
+        UNKNOWN,
+        BLOCKED,
+        FILLED,
+        EMPTY
+    }
+
+    public static enum OtherStates {
+        EMPTY,
+        FILLED
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private GridModel<States> model;
+
+    private Path file;
+
+    @Before
+    public void setup() throws IOException {
+        model = new GridModel<>();
+        model.setDefaultState(States.EMPTY);
+        model.setNumberOfColumns(37);
+        model.setNumberOfRows(11);
+
+        // some states that can't be compressed well
+        model.getCells().forEach(cell -> {
+            final int value = (cell.getColumn() * 7 + cell.getRow() * 13) % 4;
+            cell.changeState(value == 3 ? null : States.values()[value]);
+        });
+
+        file = folder.newFile("test.grid").toPath();
+    }
+
+    @Test
+    public void testSaveAndLoadPacked() throws IOException {
+        GridFormat.save(model, States.class, file, false);
+
+        // 2 bits per cell
+        assertThat(Files.size(file)).isLessThan(37 * 11 / 4 + 64);
+
+        GridModel<States> loaded = new GridModel<>();
+        GridFormat.load(loaded, States.class, file);
+
+        assertSameStates(loaded);
+    }
+
+    @Test
+    public void testSaveAndLoadRunLengthEncoded() throws IOException {
+        GridFormat.save(model, States.class, file, true);
+
+        GridModel<States> loaded = new GridModel<>();
+        GridFormat.load(loaded, States.class, file);
+
+        assertSameStates(loaded);
+
+        // a grid with a single state is stored with a few bytes only
+        model.parallelReplaceAll(cell -> true, States.FILLED);
+        GridFormat.save(model, States.class, file, true);
+
+        assertThat(Files.size(file)).isLessThan(64);
+
+        GridFormat.load(loaded, States.class, file);
+        assertThat(loaded.countCellsWithState(States.FILLED)).isEqualTo(37 * 11);
+    }
+
+    @Test
+    public void testStatesAreLoadedByName() throws IOException {
+        GridFormat.save(model, States.class, file, false);
+
+        GridModel<ReorderedStates> loaded = new GridModel<>();
+        GridFormat.load(loaded, ReorderedStates.class, file);
+
+        for (int row = 0; row < 11; row++) {
+            for (int column = 0; column < 37; column++) {
+                final States state = model.getCell(column, row).getState();
+                final ReorderedStates loadedState = loaded.getCell(column, row).getState();
+
+                if (state == null) {
+                    assertThat(loadedState).isNull();
+                } else {
+                    assertThat(loadedState.name()).isEqualTo(state.name());
+                }
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoadWithUnknownStatesFails() throws IOException {
+        GridFormat.save(model, States.class, file, false);
+
+        GridFormat.load(new GridModel<>(), OtherStates.class, file);
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoadOfOtherFilesFails() throws IOException {
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17});
+
+        GridFormat.load(new GridModel<>(), States.class, file);
+    }
+
+    @Test
+    public void testCompactGridModel() throws IOException {
+        CompactGridModel<States> compactModel = new CompactGridModel<>(States.class);
+        compactModel.setNumberOfColumns(1000);
+        compactModel.setNumberOfRows(1000);
+        compactModel.setDefaultState(States.EMPTY);
+
+        for (int i = 0; i < 1000; i++) {
+            compactModel.setState(i, i, States.BLOCKED);
+            compactModel.setState(999 - i, i, States.FILLED);
+        }
+
+        for (boolean runLengthEncoded : new boolean[]{false, true}) {
+            GridFormat.save(compactModel, States.class, file, runLengthEncoded);
+
+            CompactGridModel<States> loaded = new CompactGridModel<>(States.class);
+            loaded.setNumberOfColumns(1);
+            loaded.setNumberOfRows(1);
+            final Cell<States> cell = loaded.getCell(0, 0);
+
+            GridFormat.load(loaded, States.class, file);
+
+            assertThat(loaded.getNumberOfColumns()).isEqualTo(1000);
+            for (int row = 0; row < 1000; row++) {
+                for (int column = 0; column < 1000; column++) {
+                    assertThat(loaded.getState(column, row)).isEqualTo(compactModel.getState(column, row));
+                }
+            }
+
+            // cells that were created before are updated too
+            assertThat(cell.getState()).isEqualTo(States.BLOCKED);
+        }
+    }
+
+    private void assertSameStates(GridModel<States> loaded) {
+        assertThat(loaded.getNumberOfColumns()).isEqualTo(37);
+        assertThat(loaded.getNumberOfRows()).isEqualTo(11);
+
+        for (int row = 0; row < 11; row++) {
+            for (int column = 0; column < 37; column++) {
+                assertThat(loaded.getCell(column, row).getState()).isEqualTo(model.getCell(column, row).getState());
+            }
+        }
+    }
+}
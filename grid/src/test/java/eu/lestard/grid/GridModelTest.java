@@ -1,9 +1,14 @@
 package eu.lestard.grid;
 
+import javafx.collections.ListChangeListener;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
 
 import static org.assertj.core.api.Assertions.*;
 import static eu.lestard.assertj.javafx.api.Assertions.*;
@@ -248,4 +253,407 @@ public class GridModelTest {
             model.getCell(3, 2),
             model.getCell(3, 3));
     }
+
+    /**
+     * Cells that are removed from the cells list from the outside may not be returned by
+     * {@link GridModel#getCell(int, int)} anymore.
+     */
+    @Test
+    public void testGetCellIsInSyncWithCellsList(){
+        model.setNumberOfColumns(3);
+        model.setNumberOfRows(3);
+
+        final Cell<States> cell_1_2 = model.getCell(1, 2);
+
+        model.cells().remove(cell_1_2);
+        assertThat(model.getCell(1, 2)).isNull();
+
+        model.cells().add(cell_1_2);
+        assertThat(model.getCell(1, 2)).isSameAs(cell_1_2);
+    }
+
+    /**
+     * A resize of the grid may only lead to one change notification for removed cells and one for added cells.
+     */
+    @Test
+    public void testResizeFiresAtMostOneAddAndOneRemoveChange(){
+        model.setNumberOfColumns(4);
+        model.setNumberOfRows(4);
+
+        final Cell<States> cell_1_1 = model.getCell(1, 1);
+
+        List<Integer> addedSizes = new ArrayList<>();
+        List<Integer> removedSizes = new ArrayList<>();
+
+        model.cells().addListener((ListChangeListener<Cell<States>>) change -> {
+            int added = 0;
+            int removed = 0;
+            while (change.next()) {
+                added += change.getAddedSize();
+                removed += change.getRemovedSize();
+            }
+            if (added > 0) {
+                addedSizes.add(added);
+            }
+            if (removed > 0) {
+                removedSizes.add(removed);
+            }
+        });
+
+        // one column is removed and two rows are added
+        model.numberOfRows().set(6);
+        model.numberOfColumns().set(3);
+
+        assertThat(addedSizes).containsExactly(8);
+        assertThat(removedSizes).containsExactly(6);
+
+        assertThat(model.getCells()).hasSize(18);
+        assertThat(model.getCell(1, 1)).isSameAs(cell_1_1);
+        assertThat(model.getCell(3, 1)).isNull();
+        assertThat(model.getCell(2, 5)).isNotNull();
+        assertThat(model.getCell(2, 5).getColumn()).isEqualTo(2);
+        assertThat(model.getCell(2, 5).getRow()).isEqualTo(5);
+    }
+
+    @Test
+    public void testUpdateNotifiesListenersOnceWithChangedCells(){
+        model.setNumberOfColumns(3);
+        model.setNumberOfRows(3);
+
+        final Cell<States> cell_0_0 = model.getCell(0, 0);
+        final Cell<States> cell_1_0 = model.getCell(1, 0);
+        final Cell<States> cell_2_0 = model.getCell(2, 0);
+
+        List<List<Cell<States>>> notifications = new ArrayList<>();
+        model.addStateChangeListener(notifications::add);
+
+        List<States> propertyChanges = new ArrayList<>();
+        cell_0_0.stateProperty().addListener((obs, oldValue, newValue) -> propertyChanges.add(newValue));
+
+        model.beginUpdate();
+
+        cell_0_0.changeState(States.FILLED);
+        cell_0_0.changeState(States.EMPTY);
+        cell_0_0.changeState(States.FILLED);
+
+        cell_1_0.changeState(States.FILLED);
+
+        // is changed back to the original state so no notification is expected
+        cell_2_0.changeState(States.FILLED);
+        cell_2_0.changeState(States.EMPTY);
+
+        assertThat(cell_0_0.getState()).isEqualTo(States.FILLED);
+        assertThat(cell_0_0.stateProperty()).hasValue(States.EMPTY);
+        assertThat(notifications).isEmpty();
+
+        model.commit();
+
+        assertThat(cell_0_0.stateProperty()).hasValue(States.FILLED);
+        assertThat(propertyChanges).containsExactly(States.FILLED);
+
+        assertThat(notifications).hasSize(1);
+        assertThat(notifications.get(0)).containsOnly(cell_0_0, cell_1_0);
+    }
+
+    @Test
+    public void testChangeOutsideOfUpdateNotifiesListenersImmediately(){
+        model.setNumberOfColumns(2);
+        model.setNumberOfRows(2);
+
+        List<List<Cell<States>>> notifications = new ArrayList<>();
+        model.addStateChangeListener(notifications::add);
+
+        model.getCell(1, 1).changeState(States.FILLED);
+        assertThat(notifications).hasSize(1);
+        assertThat(notifications.get(0)).containsExactly(model.getCell(1, 1));
+
+        // same state as before
+        model.getCell(1, 1).changeState(States.FILLED);
+        assertThat(notifications).hasSize(1);
+    }
+
+    @Test
+    public void testGetCellsWithStateIsInSyncWithStateChanges(){
+        model.setNumberOfColumns(3);
+        model.setNumberOfRows(3);
+
+        assertThat(model.countCellsWithState(States.EMPTY)).isEqualTo(9);
+        assertThat(model.countCellsWithState(States.FILLED)).isEqualTo(0);
+        assertThat(model.getCellsWithState(States.FILLED)).isEmpty();
+
+        model.getCell(2, 1).changeState(States.FILLED);
+        model.getCell(0, 2).changeState(States.FILLED);
+
+        assertThat(model.getCellsWithState(States.FILLED)).containsExactly(model.getCell(2, 1), model.getCell(0, 2));
+        assertThat(model.countCellsWithState(States.FILLED)).isEqualTo(2);
+        assertThat(model.countCellsWithState(States.EMPTY)).isEqualTo(7);
+
+        // inside of an update the last state that was set is used
+        model.beginUpdate();
+        model.getCell(2, 1).changeState(States.EMPTY);
+        assertThat(model.getCellsWithState(States.FILLED)).containsExactly(model.getCell(0, 2));
+        model.commit();
+
+        assertThat(model.countCellsWithState(States.FILLED)).isEqualTo(1);
+
+        // cells that are removed from the outside are not counted anymore
+        model.cells().remove(model.getCell(0, 2));
+        assertThat(model.countCellsWithState(States.FILLED)).isEqualTo(0);
+    }
+
+    @Test
+    public void testGetCellsWithStateAfterResize(){
+        model.setNumberOfColumns(3);
+        model.setNumberOfRows(3);
+
+        final Cell<States> cell_2_2 = model.getCell(2, 2);
+        cell_2_2.changeState(States.FILLED);
+
+        model.setNumberOfColumns(5);
+        assertThat(model.getCellsWithState(States.FILLED)).containsExactly(cell_2_2);
+        assertThat(model.countCellsWithState(States.EMPTY)).isEqualTo(14);
+
+        model.setNumberOfRows(2);
+        assertThat(model.getCellsWithState(States.FILLED)).isEmpty();
+        assertThat(model.countCellsWithState(States.EMPTY)).isEqualTo(10);
+
+        // the removed cell is not part of the grid anymore
+        cell_2_2.changeState(States.FILLED);
+        assertThat(model.countCellsWithState(States.FILLED)).isEqualTo(0);
+    }
+
+    @Test
+    public void testStateIndexStaysInSyncWhenResizedManyTimes(){
+        final Random random = new Random(7);
+        final int[][] sizes = {{70, 3}, {70, 5}, {130, 5}, {63, 4}, {63, 9}, {200, 2}, {1, 1}, {0, 0}, {65, 65}};
+
+        for (int[] size : sizes) {
+            model.setNumberOfColumns(size[0]);
+            model.setNumberOfRows(size[1]);
+
+            // the kept cells keep their states
+            assertStateIndexMatchesCells();
+
+            model.cells().forEach(cell -> cell.changeState(random.nextBoolean() ? States.FILLED : States.EMPTY));
+            assertStateIndexMatchesCells();
+        }
+    }
+
+    private void assertStateIndexMatchesCells() {
+        final List<Cell<States>> filled = new ArrayList<>();
+        for (int row = 0; row < model.getNumberOfRows(); row++) {
+            for (int column = 0; column < model.getNumberOfColumns(); column++) {
+                if (model.getCell(column, row).getState() == States.FILLED) {
+                    filled.add(model.getCell(column, row));
+                }
+            }
+        }
+
+        final int numberOfCells = model.getNumberOfColumns() * model.getNumberOfRows();
+
+        assertThat(model.getCellsWithState(States.FILLED)).containsExactlyElementsOf(filled);
+        assertThat(model.countCellsWithState(States.FILLED)).isEqualTo(filled.size());
+        assertThat(model.countCellsWithState(States.EMPTY)).isEqualTo(numberOfCells - filled.size());
+    }
+
+    @Test
+    public void testGetNeighboursWithMooreNeighbourhood(){
+        model.setNumberOfColumns(4);
+        model.setNumberOfRows(4);
+
+        assertThat(model.getNeighbours(1, 1, Neighbourhood.moore())).hasSize(8)
+            .contains(model.getCell(0, 0), model.getCell(2, 2), model.getCell(0, 2), model.getCell(2, 0));
+
+        assertThat(model.getNeighbours(0, 0, Neighbourhood.moore()))
+            .containsOnly(model.getCell(1, 0), model.getCell(0, 1), model.getCell(1, 1));
+    }
+
+    @Test
+    public void testGetNeighboursWithToroidalNeighbourhood(){
+        model.setNumberOfColumns(4);
+        model.setNumberOfRows(3);
+
+        final List<Cell<States>> neighbours = model.getNeighbours(0, 0, Neighbourhood.vonNeumann().toroidal());
+
+        assertThat(neighbours).containsExactly(model.getCell(1, 0), model.getCell(3, 0), model.getCell(0, 1), model.getCell(0, 2));
+
+        assertThat(model.getNeighbours(3, 2, Neighbourhood.moore().toroidal())).hasSize(8).contains(model.getCell(0, 0));
+    }
+
+    @Test
+    public void testGetNeighboursWithHexNeighbourhood(){
+        model.setNumberOfColumns(4);
+        model.setNumberOfRows(4);
+
+        // even row
+        assertThat(model.getNeighbours(1, 2, Neighbourhood.hex())).containsOnly(
+            model.getCell(0, 2), model.getCell(2, 2),
+            model.getCell(0, 1), model.getCell(1, 1),
+            model.getCell(0, 3), model.getCell(1, 3));
+
+        // odd row
+        assertThat(model.getNeighbours(1, 1, Neighbourhood.hex())).containsOnly(
+            model.getCell(0, 1), model.getCell(2, 1),
+            model.getCell(1, 0), model.getCell(2, 0),
+            model.getCell(1, 2), model.getCell(2, 2));
+    }
+
+    @Test
+    public void testNeighbourQueriesWithoutNewLists(){
+        model.setNumberOfColumns(3);
+        model.setNumberOfRows(3);
+
+        model.getCell(0, 0).changeState(States.FILLED);
+        model.getCell(2, 2).changeState(States.FILLED);
+
+        assertThat(model.countNeighboursWithState(1, 1, Neighbourhood.moore(), States.FILLED)).isEqualTo(2);
+        assertThat(model.countNeighboursWithState(1, 1, Neighbourhood.vonNeumann(), States.FILLED)).isEqualTo(0);
+
+        List<Cell<States>> visited = new ArrayList<>();
+        model.forEachNeighbour(2, 2, Neighbourhood.vonNeumann(), visited::add);
+        assertThat(visited).containsExactly(model.getCell(1, 2), model.getCell(2, 1));
+
+        List<Cell<States>> buffer = new ArrayList<>();
+        buffer.add(model.getCell(1, 1));
+
+        model.getNeighbours(0, 0, Neighbourhood.vonNeumann(), buffer);
+        assertThat(buffer).containsExactly(model.getCell(1, 0), model.getCell(0, 1));
+    }
+
+    @Test
+    public void testParallelOperations(){
+        model.setNumberOfColumns(300);
+        model.setNumberOfRows(200);
+        model.setForkJoinPool(new ForkJoinPool(4));
+
+        List<List<Cell<States>>> notifications = new ArrayList<>();
+        model.addStateChangeListener(notifications::add);
+
+        final int replaced = model.parallelReplaceAll(cell -> (cell.getColumn() + cell.getRow()) % 3 == 0, States.FILLED);
+
+        assertThat(replaced).isEqualTo(20000);
+        assertThat(notifications).hasSize(1);
+        assertThat(notifications.get(0)).hasSize(20000);
+
+        assertThat(model.parallelCount(cell -> cell.getState() == States.FILLED)).isEqualTo(20000);
+        assertThat(model.countCellsWithState(States.FILLED)).isEqualTo(20000);
+
+        LongAdder visited = new LongAdder();
+        model.parallelForEach(cell -> visited.increment());
+        assertThat(visited.sum()).isEqualTo(300 * 200);
+    }
+
+    @Test
+    public void testSnapshotIsNotChangedByLaterChanges(){
+        model.setNumberOfColumns(3);
+        model.setNumberOfRows(2);
+
+        model.getCell(1, 1).changeState(States.FILLED);
+
+        final GridSnapshot<States> snapshot = model.snapshot();
+
+        model.getCell(1, 1).changeState(States.EMPTY);
+        model.getCell(0, 0).changeState(States.FILLED);
+
+        assertThat(snapshot.getNumberOfColumns()).isEqualTo(3);
+        assertThat(snapshot.getNumberOfRows()).isEqualTo(2);
+        assertThat(snapshot.getState(1, 1)).isEqualTo(States.FILLED);
+        assertThat(snapshot.getState(0, 0)).isEqualTo(States.EMPTY);
+    }
+
+    @Test
+    public void testSnapshotsShareUnchangedTiles(){
+        model.setNumberOfColumns(100);
+        model.setNumberOfRows(70);
+
+        final GridSnapshot<States> first = model.snapshot();
+
+        model.getCell(99, 69).changeState(States.FILLED);
+
+        final GridSnapshot<States> second = model.snapshot();
+
+        assertThat(second.getNumberOfTiles()).isEqualTo(first.getNumberOfTiles());
+
+        final int changedTile = GridSnapshot.tileIndex(99, 69, 100);
+        for (int tileIndex = 0; tileIndex < first.getNumberOfTiles(); tileIndex++) {
+            if (tileIndex == changedTile) {
+                assertThat(second.getTile(tileIndex)).isNotSameAs(first.getTile(tileIndex));
+            } else {
+                assertThat(second.getTile(tileIndex)).isSameAs(first.getTile(tileIndex));
+            }
+        }
+
+        assertThat(first.getState(99, 69)).isEqualTo(States.EMPTY);
+        assertThat(second.getState(99, 69)).isEqualTo(States.FILLED);
+    }
+
+    @Test
+    public void testRestoreSnapshot(){
+        model.setNumberOfColumns(40);
+        model.setNumberOfRows(40);
+
+        model.getCell(5, 5).changeState(States.FILLED);
+        model.getCell(35, 35).changeState(States.FILLED);
+
+        final GridSnapshot<States> snapshot = model.snapshot();
+
+        model.getCell(5, 5).changeState(States.EMPTY);
+        model.getCell(1, 38).changeState(States.FILLED);
+
+        List<List<Cell<States>>> notifications = new ArrayList<>();
+        model.addStateChangeListener(notifications::add);
+
+        model.restore(snapshot);
+
+        assertThat(model.getCellsWithState(States.FILLED)).containsExactly(model.getCell(5, 5), model.getCell(35, 35));
+        assertThat(notifications).hasSize(1);
+        assertThat(notifications.get(0)).containsOnly(model.getCell(5, 5), model.getCell(1, 38));
+
+        // the snapshot can be applied to another grid model with a different size too
+        GridModel<States> otherModel = new GridModel<>();
+        otherModel.restore(snapshot);
+
+        assertThat(otherModel.getNumberOfColumns()).isEqualTo(40);
+        assertThat(otherModel.getCellsWithState(States.FILLED)).hasSize(2);
+        assertThat(otherModel.countCellsWithState(States.EMPTY)).isEqualTo(40 * 40 - 2);
+    }
+
+    @Test
+    public void testDeltaListenerMirrorsTheGridModel(){
+        model.setNumberOfColumns(4);
+        model.setNumberOfRows(4);
+
+        GridModel<States> mirror = new GridModel<>();
+        mirror.setDefaultState(States.EMPTY);
+
+        List<GridDelta<States>> deltas = new ArrayList<>();
+        model.addDeltaListener(deltas::add);
+        model.addDeltaListener(delta -> delta.applyTo(mirror));
+
+        model.getCell(0, 0).changeState(States.FILLED);
+
+        model.update(() -> {
+            model.getCell(1, 1).changeState(States.FILLED);
+            model.getCell(2, 2).changeState(States.FILLED);
+            model.getCell(0, 0).changeState(States.EMPTY);
+            model.getCell(3, 3).changeState(States.FILLED);
+            model.getCell(3, 3).changeState(States.EMPTY);
+        });
+
+        assertThat(deltas).hasSize(2);
+
+        assertThat(deltas.get(0).size()).isEqualTo(1);
+        assertThat(deltas.get(0).getOldState(0)).isEqualTo(States.EMPTY);
+        assertThat(deltas.get(0).getNewState(0)).isEqualTo(States.FILLED);
+
+        assertThat(deltas.get(1).size()).isEqualTo(3);
+
+        assertThat(mirror.getNumberOfColumns()).isEqualTo(4);
+        assertThat(mirror.getCellsWithState(States.FILLED)).containsExactly(mirror.getCell(1, 1), mirror.getCell(2, 2));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCommitWithoutBeginUpdateFails(){
+        model.commit();
+    }
 }
@@ -0,0 +1,114 @@
+package eu.lestard.grid;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class GridSnapshotTest {
+
+    public static enum States {
+        EMPTY,
+        FILLED
+    }
+
+    @Test
+    public void testGetStateAtTileBorders(){
+        GridModel<States> model = new GridModel<>();
+        model.setDefaultState(States.EMPTY);
+        model.setNumberOfColumns(GridSnapshot.TILE_SIZE + 1);
+        model.setNumberOfRows(GridSnapshot.TILE_SIZE + 1);
+
+        model.getCell(GridSnapshot.TILE_SIZE - 1, 0).changeState(States.FILLED);
+        model.getCell(GridSnapshot.TILE_SIZE, GridSnapshot.TILE_SIZE).changeState(States.FILLED);
+
+        final GridSnapshot<States> snapshot = model.snapshot();
+
+        assertThat(snapshot.getNumberOfTiles()).isEqualTo(4);
+        assertThat(snapshot.getState(GridSnapshot.TILE_SIZE - 1, 0)).isEqualTo(States.FILLED);
+        assertThat(snapshot.getState(GridSnapshot.TILE_SIZE, 0)).isEqualTo(States.EMPTY);
+        assertThat(snapshot.getState(GridSnapshot.TILE_SIZE, GridSnapshot.TILE_SIZE)).isEqualTo(States.FILLED);
+    }
+
+    @Test
+    public void testDiff(){
+        GridModel<States> model = new GridModel<>();
+        model.setDefaultState(States.EMPTY);
+        model.setNumberOfColumns(100);
+        model.setNumberOfRows(100);
+
+        final GridSnapshot<States> before = model.snapshot();
+
+        model.getCell(3, 4).changeState(States.FILLED);
+        model.getCell(99, 99).changeState(States.FILLED);
+
+        final GridSnapshot<States> after = model.snapshot();
+
+        final GridDelta<States> delta = before.diff(after);
+
+        assertThat(delta.size()).isEqualTo(2);
+        assertThat(delta.getColumn(0)).isEqualTo(3);
+        assertThat(delta.getRow(0)).isEqualTo(4);
+        assertThat(delta.getOldState(0)).isEqualTo(States.EMPTY);
+        assertThat(delta.getNewState(0)).isEqualTo(States.FILLED);
+        assertThat(delta.getColumn(1)).isEqualTo(99);
+        assertThat(delta.getRow(1)).isEqualTo(99);
+
+        assertThat(after.diff(after).isEmpty()).isTrue();
+        assertThat(after.diff(before).getNewState(0)).isEqualTo(States.EMPTY);
+    }
+
+    @Test
+    public void testDiffOfSnapshotsFromDifferentModels(){
+        GridModel<States> model = new GridModel<>();
+        model.setDefaultState(States.EMPTY);
+        model.setNumberOfColumns(40);
+        model.setNumberOfRows(40);
+
+        GridModel<States> otherModel = new GridModel<>();
+        otherModel.setDefaultState(States.EMPTY);
+        otherModel.setNumberOfColumns(40);
+        otherModel.setNumberOfRows(40);
+        otherModel.getCell(39, 0).changeState(States.FILLED);
+
+        final GridSnapshot<States> snapshot = model.snapshot();
+        final GridSnapshot<States> otherSnapshot = otherModel.snapshot();
+
+        // the states of equal tiles have the same hash
+        assertThat(snapshot.getTileHash(0, 0)).isEqualTo(otherSnapshot.getTileHash(0, 0));
+        assertThat(snapshot.getTileHash(1, 0)).isNotEqualTo(otherSnapshot.getTileHash(1, 0));
+
+        final GridDelta<States> delta = snapshot.diff(otherSnapshot);
+        assertThat(delta.size()).isEqualTo(1);
+
+        delta.applyTo(model);
+        assertThat(model.getCell(39, 0).getState()).isEqualTo(States.FILLED);
+    }
+
+    @Test
+    public void testDiffOfSnapshotsWithDifferentSize(){
+        GridModel<States> model = new GridModel<>();
+        model.setDefaultState(States.EMPTY);
+        model.setNumberOfColumns(2);
+        model.setNumberOfRows(2);
+
+        final GridSnapshot<States> small = model.snapshot();
+
+        model.setNumberOfColumns(3);
+
+        final GridDelta<States> delta = small.diff(model.snapshot());
+
+        assertThat(delta.getNumberOfColumns()).isEqualTo(3);
+        assertThat(delta.size()).isEqualTo(2);
+        assertThat(delta.getOldState(0)).isNull();
+        assertThat(delta.getNewState(0)).isEqualTo(States.EMPTY);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetStateOutsideOfTheGridFails(){
+        GridModel<States> model = new GridModel<>();
+        model.setNumberOfColumns(2);
+        model.setNumberOfRows(2);
+
+        model.snapshot().getState(2, 0);
+    }
+}
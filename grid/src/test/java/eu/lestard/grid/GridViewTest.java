@@ -8,12 +8,18 @@ import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Background;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.*;
@@ -93,6 +99,25 @@ public class GridViewTest {
 
     }
 
+    @Test
+    public void testCellsWithTheSameStateShareTheBackground(){
+        gridModel.setDefaultState(States.EMPTY);
+        gridModel.setNumberOfColumns(2);
+        gridModel.setNumberOfRows(1);
+
+        gridView.addColorMapping(States.EMPTY, Color.BLACK);
+
+        final Background background = gridView.getCellPane(gridModel.getCell(0, 0)).getBackground();
+        assertThat(gridView.getCellPane(gridModel.getCell(1, 0)).getBackground()).isSameAs(background);
+
+        gridView.addColorMapping(States.EMPTY, Color.RED);
+
+        final Background newBackground = gridView.getCellPane(gridModel.getCell(0, 0)).getBackground();
+        assertThat(newBackground).isNotSameAs(background);
+        assertThat(newBackground.getFills().get(0).getFill()).isEqualTo(Color.RED);
+        assertThat(gridView.getCellPane(gridModel.getCell(1, 0)).getBackground()).isSameAs(newBackground);
+    }
+
     @Test
     public void testWhenAddingNodeMappingAllCellsAreUpdated(){
         gridModel.setNumberOfColumns(1);
@@ -112,6 +137,90 @@ public class GridViewTest {
         assertThat(gridView.getCellPane(gridModel.getCell(0,1)).getChildren()).contains(filledButton);
     }
 
+    @Test
+    public void testBatchedUpdateIsShownInView(){
+        gridModel.setNumberOfColumns(2);
+        gridModel.setNumberOfRows(1);
+
+        gridView.addColorMapping(States.EMPTY, Color.BLACK);
+        gridView.addColorMapping(States.FILLED, Color.WHITE);
+
+        gridModel.update(() -> {
+            gridModel.getCell(0, 0).changeState(States.FILLED);
+            gridModel.getCell(1, 0).changeState(States.EMPTY);
+        });
+
+        gridView.flushRepaint();
+
+        assertThat(gridView.getCellPane(gridModel.getCell(0, 0)).getBackground().getFills().get(0).getFill()).isEqualTo(Color.WHITE);
+        assertThat(gridView.getCellPane(gridModel.getCell(1, 0)).getBackground().getFills().get(0).getFill()).isEqualTo(Color.BLACK);
+    }
+
+    @Test
+    public void testRecyclingNodeMappingReusesNodes(){
+        gridModel.setDefaultState(States.EMPTY);
+        gridModel.setNumberOfColumns(2);
+        gridModel.setNumberOfRows(1);
+
+        List<Node> createdNodes = new ArrayList<>();
+        gridView.addRecyclingNodeMapping(States.FILLED, (cell, recycledNode) -> {
+            if (recycledNode != null) {
+                return recycledNode;
+            }
+            Label label = new Label("X");
+            createdNodes.add(label);
+            return label;
+        });
+
+        final Cell<States> cell_0_0 = gridModel.getCell(0, 0);
+        final Cell<States> cell_1_0 = gridModel.getCell(1, 0);
+
+        cell_0_0.changeState(States.FILLED);
+        gridView.flushRepaint();
+        assertThat(createdNodes).hasSize(1);
+
+        cell_0_0.changeState(States.EMPTY);
+        gridView.flushRepaint();
+        assertThat(gridView.getCellPane(cell_0_0).getChildren()).isEmpty();
+
+        // the label of the first cell is reused
+        cell_1_0.changeState(States.FILLED);
+        gridView.flushRepaint();
+
+        assertThat(createdNodes).hasSize(1);
+        assertThat(gridView.getCellPane(cell_1_0).getChildren()).containsExactly(createdNodes.get(0));
+
+        // a color change renders the cell again but the node stays the same
+        gridView.addColorMapping(States.FILLED, Color.RED);
+        assertThat(createdNodes).hasSize(1);
+        assertThat(gridView.getCellPane(cell_1_0).getChildren()).containsExactly(createdNodes.get(0));
+    }
+
+    @Test
+    public void testStateChangesAreRenderedOncePerPulse(){
+        gridModel.setNumberOfColumns(1);
+        gridModel.setNumberOfRows(1);
+
+        List<States> renderedStates = new ArrayList<>();
+        gridView.setNodeFactory(cell -> {
+            renderedStates.add(cell.getState());
+            return null;
+        });
+        renderedStates.clear();
+
+        final Cell<States> cell = gridModel.getCell(0, 0);
+        cell.changeState(States.FILLED);
+        cell.changeState(States.EMPTY);
+        cell.changeState(States.FILLED);
+
+        // nothing is rendered until the next pulse
+        assertThat(renderedStates).isEmpty();
+
+        gridView.flushRepaint();
+
+        assertThat(renderedStates).containsExactly(States.FILLED);
+    }
+
     @Test
     public void testClickListener()throws Exception{
         gridModel.setNumberOfColumns(3);
@@ -132,6 +241,151 @@ public class GridViewTest {
     }
 
 
+    @Test
+    public void testCanvasModeHasConstantNumberOfNodes(){
+        gridView = new GridView<>(RenderMode.CANVAS);
+        gridView.setGridModel(gridModel);
+
+        gridModel.setNumberOfColumns(100);
+        gridModel.setNumberOfRows(100);
+
+        assertThat(gridView.getRootPane().getChildren()).hasSize(1);
+        assertThat(gridView.getCellPane(gridModel.getCell(0, 0))).isNull();
+    }
+
+    @Test
+    public void testCanvasModeMapsClicksToCells() throws Exception{
+        gridView = new GridView<>(RenderMode.CANVAS);
+        gridView.setGridModel(gridModel);
+
+        gridModel.setNumberOfColumns(10);
+        gridModel.setNumberOfRows(10);
+
+        gridView.resize(100, 100);
+        gridView.layout();
+
+        assertThat(gridView.cellSizeProperty().get()).isEqualTo(10.0);
+
+        CompletableFuture<Cell<States>> testFuture = new CompletableFuture<>();
+
+        gridModel.getCell(2, 3).setOnClick(event -> testFuture.complete(gridModel.getCell(2, 3)));
+
+        final Node canvas = gridView.getRootPane().getChildren().get(0);
+
+        final MouseEvent event = new MouseEvent(MouseEvent.MOUSE_CLICKED, 25, 35, 0, 0, MouseButton.PRIMARY, 1, false, false, false, false, false, false, false, false, false, false, null);
+
+        Event.fireEvent(canvas, event);
+        assertThat(testFuture.getNow(null)).isSameAs(gridModel.getCell(2, 3));
+    }
+
+    @Test
+    public void testVirtualizedModeOnlyCreatesPanesForVisibleCells(){
+        gridView = new GridView<>(RenderMode.VIRTUALIZED);
+        gridView.viewportCellSizeProperty().set(10);
+        gridView.setGridModel(gridModel);
+
+        gridModel.setNumberOfColumns(200);
+        gridModel.setNumberOfRows(200);
+
+        gridView.resize(100, 100);
+
+        // 10 visible cells in each direction plus the margin
+        final int maxVisiblePanes = (10 + 2 * VirtualCellLayer.MARGIN + 1) * (10 + 2 * VirtualCellLayer.MARGIN + 1);
+
+        assertThat(gridView.getVirtualLayer().getNumberOfVisiblePanes()).isGreaterThan(0).isLessThanOrEqualTo(maxVisiblePanes);
+        assertThat(gridView.getCellPane(gridModel.getCell(0, 0))).isNotNull();
+        assertThat(gridView.getCellPane(gridModel.getCell(100, 100))).isNull();
+
+        final Pane content = (Pane) gridView.getRootPane().getChildren().get(0);
+
+        gridView.viewportXProperty().set(1000);
+        gridView.viewportYProperty().set(1000);
+
+        assertThat(gridView.getCellPane(gridModel.getCell(0, 0))).isNull();
+        assertThat(gridView.getCellPane(gridModel.getCell(100, 100))).isNotNull();
+
+        // the panes are reused
+        assertThat(content.getChildren().size()).isLessThanOrEqualTo(maxVisiblePanes);
+    }
+
+    @Test
+    public void testVirtualizedModeOnlyRequestsVisibleCellsOfLazyModel(){
+        final CompactGridModel<States> compactModel = new CompactGridModel<>(States.class);
+        compactModel.setDefaultState(States.EMPTY);
+        compactModel.setNumberOfColumns(10_000);
+        compactModel.setNumberOfRows(10_000);
+
+        gridView = new GridView<>(RenderMode.VIRTUALIZED);
+        gridView.viewportCellSizeProperty().set(10);
+        gridView.addColorMapping(States.FILLED, Color.RED);
+        gridView.setGridModel(compactModel);
+
+        gridView.resize(100, 100);
+
+        final int maxVisiblePanes = (10 + 2 * VirtualCellLayer.MARGIN + 1) * (10 + 2 * VirtualCellLayer.MARGIN + 1);
+        assertThat(compactModel.getNumberOfMaterializedCells()).isGreaterThan(0).isLessThanOrEqualTo(maxVisiblePanes);
+
+        compactModel.setState(1, 1, States.FILLED);
+        gridView.flushRepaint();
+        assertThat(gridView.getCellPane(compactModel.getCell(1, 1)).getBackground().getFills().get(0).getFill()).isEqualTo(Color.RED);
+
+        // the cells that are scrolled out of view are released again
+        gridView.viewportXProperty().set(50_000);
+        gridView.viewportYProperty().set(50_000);
+
+        assertThat(compactModel.isMaterialized(1, 1)).isFalse();
+        assertThat(compactModel.getNumberOfMaterializedCells()).isLessThanOrEqualTo(maxVisiblePanes);
+    }
+
+    @Test
+    public void testVirtualizedModeReadsOnlyVisibleRegionOfMappedModel() throws IOException {
+        final Path file = Files.createTempFile("grid", ".map");
+
+        try (MappedGridModel<States> mappedModel = MappedGridModel.create(file, States.class, 2000, 2000, 4096)) {
+            mappedModel.setDefaultState(States.EMPTY);
+
+            gridView = new GridView<>(RenderMode.VIRTUALIZED);
+            gridView.viewportCellSizeProperty().set(10);
+            gridView.setGridModel(mappedModel);
+
+            gridView.resize(100, 100);
+
+            final int maxVisiblePanes = (10 + 2 * VirtualCellLayer.MARGIN + 1) * (10 + 2 * VirtualCellLayer.MARGIN + 1);
+            assertThat(mappedModel.getNumberOfMaterializedCells()).isGreaterThan(0).isLessThanOrEqualTo(maxVisiblePanes);
+
+            // only the chunks of the visible rows were mapped
+            assertThat(mappedModel.getNumberOfMappedChunks()).isLessThan(10);
+
+            // changes of the shown cells are written to the file
+            mappedModel.getCell(2, 2).changeState(States.FILLED);
+            assertThat(mappedModel.getState(2, 2)).isEqualTo(States.FILLED);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNodesModeNeedsGridModel(){
+        new GridView<States>().setGridModel(new CompactGridModel<>(States.class));
+    }
+
+    @Test
+    public void testVirtualizedModeUpdatesVisibleCells(){
+        gridView = new GridView<>(RenderMode.VIRTUALIZED);
+        gridView.setGridModel(gridModel);
+        gridView.addColorMapping(States.FILLED, Color.RED);
+
+        gridModel.setNumberOfColumns(5);
+        gridModel.setNumberOfRows(5);
+
+        gridView.resize(100, 100);
+
+        gridModel.getCell(1, 1).changeState(States.FILLED);
+        gridView.flushRepaint();
+
+        assertThat(gridView.getCellPane(gridModel.getCell(1, 1)).getBackground().getFills().get(0).getFill()).isEqualTo(Color.RED);
+    }
+
     @Test
     public void testHorizontalGuidelines(){
 
@@ -0,0 +1,155 @@
+package eu.lestard.grid;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class HierarchicalPathFinderTest {
+
+    public static enum States {
+        EMPTY,
+        WALL,
+        MUD
+    }
+
+    private GridModel<States> model;
+
+    private HierarchicalPathFinder<States> pathFinder;
+
+    @Before
+    public void setup(){
+        model = new GridModel<>();
+        model.setDefaultState(States.EMPTY);
+
+        pathFinder = new HierarchicalPathFinder<>(model, state -> state != States.WALL, 8);
+    }
+
+    private void assertValidPath(List<Cell<States>> path, int startColumn, int startRow, int goalColumn, int goalRow) {
+        assertThat(path.get(0)).isSameAs(model.getCell(startColumn, startRow));
+        assertThat(path.get(path.size() - 1)).isSameAs(model.getCell(goalColumn, goalRow));
+
+        for (int i = 1; i < path.size(); i++) {
+            final Cell<States> from = path.get(i - 1);
+            final Cell<States> to = path.get(i);
+
+            assertThat(to.getState()).isNotEqualTo(States.WALL);
+            assertThat(Math.abs(from.getColumn() - to.getColumn()) + Math.abs(from.getRow() - to.getRow())).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPathsAcrossClusters(){
+        model.setNumberOfColumns(30);
+        model.setNumberOfRows(20);
+
+        // a wall with a single gap
+        for (int row = 0; row < 20; row++) {
+            if (row != 17) {
+                model.getCell(12, row).changeState(States.WALL);
+            }
+        }
+
+        List<Cell<States>> path = pathFinder.findPath(0, 0, 29, 0);
+
+        assertValidPath(path, 0, 0, 29, 0);
+        assertThat(path).contains(model.getCell(12, 17));
+
+        // the optimal path has 12 + 17 + 17 + 17 = 63 steps
+        assertThat(path.size() - 1).isBetween(63, 70);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPathInsideOfOneCluster(){
+        model.setNumberOfColumns(30);
+        model.setNumberOfRows(20);
+
+        assertThat(pathFinder.findPath(1, 1, 4, 3)).hasSize(6);
+        assertThat(pathFinder.findPath(2, 2, 2, 2)).containsExactly(model.getCell(2, 2));
+    }
+
+    @Test
+    public void testNoPath(){
+        model.setNumberOfColumns(30);
+        model.setNumberOfRows(20);
+
+        for (int row = 0; row < 20; row++) {
+            model.getCell(12, row).changeState(States.WALL);
+        }
+
+        assertThat(pathFinder.findPath(0, 0, 29, 0)).isEmpty();
+        assertThat(pathFinder.findPath(0, 0, 12, 0)).isEmpty();
+    }
+
+    @Test
+    public void testOnlyAffectedClustersAreRebuilt(){
+        model.setNumberOfColumns(32);
+        model.setNumberOfRows(32);
+
+        // 4 x 4 clusters. A path from corner to corner needs all clusters on the diagonal.
+        assertThat(pathFinder.findPath(0, 0, 31, 31)).isNotEmpty();
+        final long initial = pathFinder.getNumberOfRebuiltClusters();
+        assertThat(initial).isBetween(4L, 16L);
+
+        // inside of the start cluster
+        model.getCell(3, 3).changeState(States.WALL);
+        pathFinder.findPath(0, 0, 31, 31);
+        assertThat(pathFinder.getNumberOfRebuiltClusters()).isEqualTo(initial + 1);
+
+        // on the border between the start cluster and the cluster on the right of it
+        model.getCell(7, 3).changeState(States.WALL);
+        pathFinder.findPath(0, 0, 1, 0);
+        assertThat(pathFinder.getNumberOfRebuiltClusters()).isEqualTo(initial + 2);
+        pathFinder.findPath(0, 0, 9, 0);
+        assertThat(pathFinder.getNumberOfRebuiltClusters()).isEqualTo(initial + 3);
+
+        // the walkability doesn't change
+        model.getCell(20, 20).changeState(States.MUD);
+        pathFinder.findPath(0, 0, 31, 31);
+        assertThat(pathFinder.getNumberOfRebuiltClusters()).isEqualTo(initial + 3);
+
+        pathFinder.dispose();
+    }
+
+    @Test
+    public void testPathsAreFoundWhileTheMapChanges(){
+        model.setNumberOfColumns(60);
+        model.setNumberOfRows(45);
+
+        PathFinder<States> exact = new PathFinder<>(model, state -> state != States.WALL);
+
+        Random random = new Random(3);
+        model.update(() -> model.getCells().forEach(cell -> {
+            if (random.nextInt(100) < 30) {
+                cell.changeState(States.WALL);
+            }
+        }));
+
+        for (int query = 0; query < 200; query++) {
+            // change some cells between the queries
+            for (int i = 0; i < 5; i++) {
+                model.getCell(random.nextInt(60), random.nextInt(45)).changeState(random.nextBoolean() ? States.WALL : States.EMPTY);
+            }
+
+            final int startColumn = random.nextInt(60);
+            final int startRow = random.nextInt(45);
+            final int goalColumn = random.nextInt(60);
+            final int goalRow = random.nextInt(45);
+
+            final List<Cell<States>> optimal = exact.findPath(startColumn, startRow, goalColumn, goalRow);
+            final List<Cell<States>> path = pathFinder.findPath(startColumn, startRow, goalColumn, goalRow);
+
+            assertThat(path.isEmpty()).isEqualTo(optimal.isEmpty());
+
+            if (!path.isEmpty()) {
+                assertValidPath(path, startColumn, startRow, goalColumn, goalRow);
+                assertThat(path.size()).isGreaterThanOrEqualTo(optimal.size());
+            }
+        }
+    }
+}
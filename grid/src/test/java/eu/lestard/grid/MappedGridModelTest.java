@@ -0,0 +1,203 @@
+package eu.lestard.grid;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static eu.lestard.assertj.javafx.api.Assertions.*;
+
+public class MappedGridModelTest {
+
+    public static enum States {
+        EMPTY,
+        FILLED
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path file;
+
+    private MappedGridModel<States> model;
+
+    @Before
+    public void setup() throws IOException {
+        file = folder.newFile("grid.map").toPath();
+
+        // small chunks so that the grid is split into several chunks
+        model = MappedGridModel.create(file, States.class, 20, 10, 64);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        model.close();
+    }
+
+    @Test
+    public void testNewGridIsEmptyAndNothingIsMapped(){
+        assertThat(model.getNumberOfColumns()).isEqualTo(20);
+        assertThat(model.getNumberOfRows()).isEqualTo(10);
+
+        assertThat(model.getNumberOfMappedChunks()).isEqualTo(0);
+
+        assertThat(model.getState(19, 9)).isNull();
+        assertThat(model.getNumberOfMappedChunks()).isEqualTo(1);
+    }
+
+    @Test
+    public void testStatesAreStoredAcrossChunks(){
+        for (int row = 0; row < 10; row++) {
+            for (int column = 0; column < 20; column++) {
+                model.setState(column, row, (column + row) % 2 == 0 ? States.FILLED : States.EMPTY);
+            }
+        }
+
+        for (int row = 0; row < 10; row++) {
+            for (int column = 0; column < 20; column++) {
+                assertThat(model.getState(column, row)).isEqualTo((column + row) % 2 == 0 ? States.FILLED : States.EMPTY);
+            }
+        }
+
+        assertThat(model.getNumberOfMappedChunks()).isEqualTo(4);
+    }
+
+    @Test
+    public void testStatesArePersisted() throws IOException {
+        model.setState(3, 4, States.FILLED);
+        model.setState(19, 9, States.EMPTY);
+        model.close();
+
+        model = MappedGridModel.open(file, States.class);
+
+        assertThat(model.getNumberOfColumns()).isEqualTo(20);
+        assertThat(model.getNumberOfRows()).isEqualTo(10);
+        assertThat(model.getState(3, 4)).isEqualTo(States.FILLED);
+        assertThat(model.getState(19, 9)).isEqualTo(States.EMPTY);
+        assertThat(model.getState(0, 0)).isNull();
+    }
+
+    @Test
+    public void testCellsAreCreatedOnDemand(){
+        assertThat(model.getNumberOfMaterializedCells()).isEqualTo(0);
+
+        Cell<States> cell = model.getCell(2, 3);
+        assertThat(model.getCell(2, 3)).isSameAs(cell);
+        assertThat(model.getNumberOfMaterializedCells()).isEqualTo(1);
+
+        model.setState(2, 3, States.FILLED);
+        assertThat(cell.stateProperty()).hasValue(States.FILLED);
+
+        cell.changeState(States.EMPTY);
+        assertThat(model.getState(2, 3)).isEqualTo(States.EMPTY);
+
+        model.releaseCells();
+        assertThat(model.getNumberOfMaterializedCells()).isEqualTo(0);
+
+        cell.changeState(States.FILLED);
+        assertThat(model.getState(2, 3)).isEqualTo(States.EMPTY);
+
+        assertThat(model.getCell(20, 3)).isNull();
+    }
+
+    @Test
+    public void testOutOfBounds(){
+        try {
+            model.getState(20, 0);
+            fail("Expected an IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testOpenWithWrongEnumFails() throws IOException {
+        Path other = folder.newFile("other.map").toPath();
+        MappedGridModel.create(other, States.class, 2, 2).close();
+
+        try {
+            MappedGridModel.open(other, Thread.State.class);
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            // expected
+        }
+
+        Files.write(other, new byte[]{1, 2, 3});
+        try {
+            MappedGridModel.open(other, States.class);
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSizeIsFixed(){
+        // setting the same size is allowed, for example when a snapshot is restored
+        model.setNumberOfColumns(20);
+        model.setNumberOfRows(10);
+
+        try {
+            model.setNumberOfColumns(21);
+            fail("Expected an UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+
+        try {
+            model.numberOfRows().set(5);
+            fail("Expected a RuntimeException");
+        } catch (RuntimeException e) {
+            // expected: the property is bound
+        }
+
+        assertThat(model.getNumberOfColumns()).isEqualTo(20);
+        assertThat(model.getNumberOfRows()).isEqualTo(10);
+    }
+
+    @Test
+    public void testDefaultStateIsNotStored() throws IOException {
+        Cell<States> cell = model.getCell(1, 1);
+
+        model.setDefaultState(States.EMPTY);
+        assertThat(model.getState(0, 0)).isEqualTo(States.EMPTY);
+        assertThat(cell.stateProperty()).hasValue(States.EMPTY);
+
+        model.setState(2, 2, States.FILLED);
+        model.close();
+
+        model = MappedGridModel.open(file, States.class);
+        assertThat(model.getState(0, 0)).isNull();
+        assertThat(model.getState(2, 2)).isEqualTo(States.FILLED);
+    }
+
+    @Test
+    public void testUpdatesNotifyListeners(){
+        Cell<States> cell = model.getCell(4, 4);
+
+        final List<List<Cell<States>>> notifications = new ArrayList<>();
+        model.addStateChangeListener(notifications::add);
+
+        model.update(() -> {
+            model.setState(4, 4, States.FILLED);
+            model.setState(5, 5, States.FILLED);
+
+            assertThat(cell.stateProperty().get()).isNull();
+        });
+
+        assertThat(cell.stateProperty()).hasValue(States.FILLED);
+        assertThat(notifications).hasSize(1);
+        assertThat(notifications.get(0)).hasSize(2).contains(cell);
+
+        // the cell that wasn't requested is a temporary one
+        assertThat(model.getNumberOfMaterializedCells()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,47 @@
+package eu.lestard.grid;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class NeighbourhoodTest {
+
+    @Test
+    public void testSizeOfNeighbourhoods(){
+        assertThat(Neighbourhood.vonNeumann().size()).isEqualTo(4);
+        assertThat(Neighbourhood.vonNeumann(2).size()).isEqualTo(12);
+        assertThat(Neighbourhood.moore().size()).isEqualTo(8);
+        assertThat(Neighbourhood.moore(2).size()).isEqualTo(24);
+        assertThat(Neighbourhood.hex().size()).isEqualTo(6);
+        assertThat(Neighbourhood.of(-2, 0, 2, 0).size()).isEqualTo(2);
+    }
+
+    @Test
+    public void testVonNeumannWithRadius(){
+        final int[] offsets = Neighbourhood.vonNeumann(2).getOffsets(0);
+
+        for (int i = 0; i < offsets.length; i += 2) {
+            final int distance = Math.abs(offsets[i]) + Math.abs(offsets[i + 1]);
+            assertThat(distance).isGreaterThan(0).isLessThanOrEqualTo(2);
+        }
+    }
+
+    @Test
+    public void testToroidal(){
+        final Neighbourhood neighbourhood = Neighbourhood.moore();
+
+        assertThat(neighbourhood.isToroidal()).isFalse();
+        assertThat(neighbourhood.toroidal().isToroidal()).isTrue();
+        assertThat(neighbourhood.toroidal().size()).isEqualTo(8);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOddNumberOfOffsetsFails(){
+        Neighbourhood.of(1, 0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRadiusLessThanOneFails(){
+        Neighbourhood.moore(0);
+    }
+}
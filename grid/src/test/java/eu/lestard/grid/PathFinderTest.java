@@ -0,0 +1,216 @@
+package eu.lestard.grid;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class PathFinderTest {
+
+    public static enum States {
+        EMPTY,
+        WALL,
+        TARGET
+    }
+
+    private GridModel<States> model;
+
+    private PathFinder<States> pathFinder;
+
+    @Before
+    public void setup(){
+        model = new GridModel<>();
+        model.setDefaultState(States.EMPTY);
+
+        pathFinder = new PathFinder<>(model, state -> state != States.WALL);
+    }
+
+    private void createMap(String... rows) {
+        model.setNumberOfColumns(rows[0].length());
+        model.setNumberOfRows(rows.length);
+
+        for (int row = 0; row < rows.length; row++) {
+            for (int column = 0; column < rows[row].length(); column++) {
+                final char c = rows[row].charAt(column);
+                model.getCell(column, row).changeState(c == '#' ? States.WALL : c == 'T' ? States.TARGET : States.EMPTY);
+            }
+        }
+    }
+
+    private void assertValidPath(List<Cell<States>> path, int startColumn, int startRow, int goalColumn, int goalRow) {
+        assertThat(path.get(0)).isSameAs(model.getCell(startColumn, startRow));
+        assertThat(path.get(path.size() - 1)).isSameAs(model.getCell(goalColumn, goalRow));
+
+        for (int i = 1; i < path.size(); i++) {
+            final Cell<States> from = path.get(i - 1);
+            final Cell<States> to = path.get(i);
+
+            assertThat(to.getState()).isNotEqualTo(States.WALL);
+
+            final int columnDistance = Math.abs(from.getColumn() - to.getColumn());
+            final int rowDistance = Math.abs(from.getRow() - to.getRow());
+
+            if (pathFinder.isDiagonalMovement()) {
+                assertThat(Math.max(columnDistance, rowDistance)).isEqualTo(1);
+
+                if (columnDistance == 1 && rowDistance == 1) {
+                    // no corner cutting
+                    assertThat(model.getCell(to.getColumn(), from.getRow()).getState()).isNotEqualTo(States.WALL);
+                    assertThat(model.getCell(from.getColumn(), to.getRow()).getState()).isNotEqualTo(States.WALL);
+                }
+            } else {
+                assertThat(columnDistance + rowDistance).isEqualTo(1);
+            }
+        }
+    }
+
+    private double cost(List<Cell<States>> path) {
+        double cost = 0;
+        for (int i = 1; i < path.size(); i++) {
+            final boolean diagonal = path.get(i - 1).getColumn() != path.get(i).getColumn()
+                && path.get(i - 1).getRow() != path.get(i).getRow();
+            cost += diagonal ? Math.sqrt(2) : 1;
+        }
+        return cost;
+    }
+
+    @Test
+    public void testFindPath(){
+        createMap(
+            ".#...",
+            ".#.#.",
+            ".#.#.",
+            "...#.");
+
+        List<Cell<States>> path = pathFinder.findPath(0, 0, 4, 0);
+
+        assertThat(path).hasSize(11);
+        assertValidPath(path, 0, 0, 4, 0);
+
+        assertThat(pathFinder.findPathWithJumpPoints(0, 0, 4, 0)).hasSize(11);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testNoPath(){
+        createMap(
+            ".#..",
+            "##..",
+            "....");
+
+        assertThat(pathFinder.findPath(0, 0, 3, 2)).isEmpty();
+        assertThat(pathFinder.findPathWithJumpPoints(0, 0, 3, 2)).isEmpty();
+
+        // the goal is a wall
+        assertThat(pathFinder.findPath(3, 2, 1, 0)).isEmpty();
+
+        // start and goal are the same cell
+        assertThat(pathFinder.findPath(3, 2, 3, 2)).containsExactly(model.getCell(3, 2));
+    }
+
+    @Test
+    public void testStateChangesAreRecognized(){
+        createMap(
+            "...",
+            "...",
+            "...");
+
+        assertThat(pathFinder.findPath(0, 1, 2, 1)).hasSize(3);
+
+        model.getCell(1, 1).changeState(States.WALL);
+        assertThat(pathFinder.findPath(0, 1, 2, 1)).hasSize(5);
+
+        model.setNumberOfColumns(5);
+        assertThat(pathFinder.findPath(0, 1, 4, 1)).hasSize(7);
+
+        pathFinder.dispose();
+    }
+
+    @Test
+    public void testDiagonalMovementDoesNotCutCorners(){
+        createMap(
+            ".#",
+            "..");
+
+        pathFinder.setDiagonalMovement(true);
+
+        assertThat(pathFinder.findPath(0, 0, 1, 1)).hasSize(3);
+        assertThat(pathFinder.findPathWithJumpPoints(0, 0, 1, 1)).hasSize(3);
+
+        model.getCell(1, 0).changeState(States.EMPTY);
+        assertThat(pathFinder.findPath(0, 0, 1, 1)).hasSize(2);
+        assertThat(pathFinder.findPathWithJumpPoints(0, 0, 1, 1)).hasSize(2);
+    }
+
+    @Test
+    public void testJumpPointSearchFindsPathsWithTheSameCostAsAStar(){
+        for (boolean diagonal : Arrays.asList(false, true)) {
+            pathFinder.setDiagonalMovement(diagonal);
+
+            Random random = new Random(diagonal ? 1 : 2);
+            model.setNumberOfColumns(40);
+            model.setNumberOfRows(30);
+
+            for (int map = 0; map < 20; map++) {
+                model.update(() -> model.getCells().forEach(cell ->
+                    cell.changeState(random.nextInt(100) < 30 ? States.WALL : States.EMPTY)));
+
+                for (int query = 0; query < 10; query++) {
+                    final int startColumn = random.nextInt(40);
+                    final int startRow = random.nextInt(30);
+                    final int goalColumn = random.nextInt(40);
+                    final int goalRow = random.nextInt(30);
+
+                    final List<Cell<States>> aStar = pathFinder.findPath(startColumn, startRow, goalColumn, goalRow);
+                    final List<Cell<States>> jumpPoints = pathFinder.findPathWithJumpPoints(startColumn, startRow, goalColumn, goalRow);
+
+                    assertThat(jumpPoints.isEmpty()).isEqualTo(aStar.isEmpty());
+
+                    if (!aStar.isEmpty()) {
+                        assertValidPath(aStar, startColumn, startRow, goalColumn, goalRow);
+                        assertValidPath(jumpPoints, startColumn, startRow, goalColumn, goalRow);
+
+                        assertThat(cost(jumpPoints)).isCloseTo(cost(aStar), within(1e-9));
+
+                        final PathFinder.DistanceField distances = pathFinder.computeDistanceField(Arrays.asList(model.getCell(startColumn, startRow)));
+                        if (!diagonal) {
+                            assertThat(distances.getDistance(goalColumn, goalRow)).isEqualTo(aStar.size() - 1);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDistanceField(){
+        createMap(
+            "T.#..",
+            "..#..",
+            "....T");
+
+        PathFinder.DistanceField distances = pathFinder.getDistanceField(States.TARGET);
+
+        assertThat(distances.getDistance(0, 0)).isEqualTo(0);
+        assertThat(distances.getDistance(1, 1)).isEqualTo(2);
+        assertThat(distances.getDistance(2, 2)).isEqualTo(2);
+        assertThat(distances.getDistance(3, 0)).isEqualTo(3);
+        assertThat(distances.getDistance(2, 0)).isEqualTo(PathFinder.DistanceField.UNREACHABLE);
+
+        // cached until a cell changes
+        assertThat(pathFinder.getDistanceField(States.TARGET)).isSameAs(distances);
+
+        model.getCell(4, 2).changeState(States.EMPTY);
+
+        PathFinder.DistanceField newDistances = pathFinder.getDistanceField(States.TARGET);
+        assertThat(newDistances).isNotSameAs(distances);
+        assertThat(newDistances.getDistance(3, 0)).isEqualTo(7);
+
+        pathFinder.setDiagonalMovement(true);
+        assertThat(pathFinder.getDistanceField(States.TARGET).getDistance(1, 1)).isEqualTo(1);
+    }
+}
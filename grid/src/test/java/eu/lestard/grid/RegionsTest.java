@@ -0,0 +1,187 @@
+package eu.lestard.grid;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class RegionsTest {
+
+    public static enum States {
+        EMPTY,
+        WALL,
+        WATER
+    }
+
+    private GridModel<States> model;
+
+    private Regions<States> regions;
+
+    @Before
+    public void setup(){
+        model = new GridModel<>();
+        model.setDefaultState(States.EMPTY);
+
+        regions = new Regions<>(model);
+    }
+
+    /**
+     * <pre>
+     *     . # . . .
+     *     . # . # .
+     *     . # # # .
+     *     . . . # .
+     * </pre>
+     */
+    private void createMaze() {
+        model.setNumberOfColumns(5);
+        model.setNumberOfRows(4);
+
+        int[][] walls = {{1, 0}, {1, 1}, {3, 1}, {1, 2}, {2, 2}, {3, 2}, {3, 3}};
+        for (int[] wall : walls) {
+            model.getCell(wall[0], wall[1]).changeState(States.WALL);
+        }
+    }
+
+    @Test
+    public void testFloodFill(){
+        createMaze();
+
+        List<List<Cell<States>>> notifications = new ArrayList<>();
+        model.addStateChangeListener(notifications::add);
+
+        assertThat(regions.floodFill(2, 0, States.WATER)).isEqualTo(7);
+
+        assertThat(notifications).hasSize(1);
+        assertThat(notifications.get(0)).hasSize(7);
+
+        assertThat(model.getCell(2, 1).getState()).isEqualTo(States.WATER);
+        assertThat(model.getCell(4, 3).getState()).isEqualTo(States.WATER);
+        assertThat(model.getCell(0, 0).getState()).isEqualTo(States.EMPTY);
+        assertThat(model.getCell(2, 3).getState()).isEqualTo(States.EMPTY);
+        assertThat(model.countCellsWithState(States.WATER)).isEqualTo(7);
+    }
+
+    @Test
+    public void testFloodFillWithSameStateChangesNothing(){
+        createMaze();
+
+        List<List<Cell<States>>> notifications = new ArrayList<>();
+        model.addStateChangeListener(notifications::add);
+
+        assertThat(regions.floodFill(0, 0, States.EMPTY)).isEqualTo(6);
+        assertThat(notifications).isEmpty();
+    }
+
+    @Test
+    public void testFloodFillSpiral(){
+        // a spiral forces the scanline algorithm to go up and down several times
+        model.setNumberOfColumns(7);
+        model.setNumberOfRows(7);
+
+        String[] rows = {
+            ".......",
+            "######.",
+            ".....#.",
+            ".###.#.",
+            ".#...#.",
+            ".#####.",
+            "......."};
+
+        for (int row = 0; row < rows.length; row++) {
+            for (int column = 0; column < rows[row].length(); column++) {
+                if (rows[row].charAt(column) == '#') {
+                    model.getCell(column, row).changeState(States.WALL);
+                }
+            }
+        }
+
+        assertThat(regions.floodFill(0, 0, States.WATER)).isEqualTo(49 - model.countCellsWithState(States.WALL));
+        assertThat(model.getCell(2, 4).getState()).isEqualTo(States.WATER);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testFloodFillOutsideOfGrid(){
+        createMaze();
+
+        regions.floodFill(5, 0, States.WATER);
+    }
+
+    @Test
+    public void testLabel(){
+        createMaze();
+
+        Regions.Components<States> components = regions.label();
+
+        // left area, wall, right area
+        assertThat(components.getNumberOfComponents()).isEqualTo(3);
+
+        final int left = components.getLabel(0, 0);
+        assertThat(left).isEqualTo(0);
+        assertThat(components.getState(left)).isEqualTo(States.EMPTY);
+        assertThat(components.getSize(left)).isEqualTo(6);
+        assertThat(components.getLabel(2, 3)).isEqualTo(left);
+        assertThat(components.getMinColumn(left)).isEqualTo(0);
+        assertThat(components.getMinRow(left)).isEqualTo(0);
+        assertThat(components.getMaxColumn(left)).isEqualTo(2);
+        assertThat(components.getMaxRow(left)).isEqualTo(3);
+
+        final int wall = components.getLabel(1, 0);
+        assertThat(components.getState(wall)).isEqualTo(States.WALL);
+        assertThat(components.getSize(wall)).isEqualTo(7);
+        assertThat(components.getLabel(3, 3)).isEqualTo(wall);
+        assertThat(components.getMaxColumn(wall)).isEqualTo(3);
+
+        final int right = components.getLabel(2, 0);
+        assertThat(components.getSize(right)).isEqualTo(7);
+        assertThat(components.getMinColumn(right)).isEqualTo(2);
+        assertThat(components.getMaxColumn(right)).isEqualTo(4);
+
+        assertThat(components.getLabel(4, 3)).isEqualTo(right);
+    }
+
+    @Test
+    public void testParallelLabelIsEqualToSequentialLabel(){
+        model.setNumberOfColumns(150);
+        model.setNumberOfRows(300);
+
+        Random random = new Random(7);
+        model.update(() -> model.getCells().forEach(cell -> {
+            if (random.nextInt(100) < 45) {
+                cell.changeState(States.WALL);
+            }
+        }));
+
+        Regions.Components<States> sequential = regions.label();
+
+        regions.setParallel(true);
+        model.setForkJoinPool(new ForkJoinPool(4));
+        Regions.Components<States> parallel = regions.label();
+
+        assertThat(parallel.getNumberOfComponents()).isEqualTo(sequential.getNumberOfComponents());
+
+        for (int row = 0; row < 300; row++) {
+            for (int column = 0; column < 150; column++) {
+                assertThat(parallel.getLabel(column, row)).isEqualTo(sequential.getLabel(column, row));
+            }
+        }
+
+        long total = 0;
+        for (int label = 0; label < parallel.getNumberOfComponents(); label++) {
+            assertThat(parallel.getSize(label)).isEqualTo(sequential.getSize(label));
+            assertThat(parallel.getMinRow(label)).isEqualTo(sequential.getMinRow(label));
+            assertThat(parallel.getMaxRow(label)).isEqualTo(sequential.getMaxRow(label));
+            total += parallel.getSize(label);
+        }
+        assertThat(total).isEqualTo(150 * 300);
+
+        // a flood fill from any cell fills exactly the labeled component
+        final int label = sequential.getLabel(75, 150);
+        assertThat(regions.floodFill(75, 150, States.WATER)).isEqualTo(sequential.getSize(label));
+    }
+}
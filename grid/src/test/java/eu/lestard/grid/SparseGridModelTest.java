@@ -0,0 +1,202 @@
+package eu.lestard.grid;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+import static eu.lestard.assertj.javafx.api.Assertions.*;
+
+public class SparseGridModelTest {
+
+    public static enum States {
+        EMPTY,
+        FILLED,
+        BLOCKED
+    }
+
+    private SparseGridModel<States> model;
+
+    @Before
+    public void setup(){
+        model = new SparseGridModel<>();
+        model.setDefaultState(States.EMPTY);
+    }
+
+    @Test
+    public void testUntouchedCellsHaveDefaultStateWithoutChunks(){
+        model.setNumberOfColumns(100000);
+        model.setNumberOfRows(100000);
+
+        assertThat(model.getState(0, 0)).isEqualTo(States.EMPTY);
+        assertThat(model.getState(99999, 99999)).isEqualTo(States.EMPTY);
+
+        assertThat(model.getNumberOfChunks()).isEqualTo(0);
+        assertThat(model.getNumberOfMaterializedCells()).isEqualTo(0);
+    }
+
+    @Test
+    public void testChunksAreCreatedAndRemoved(){
+        model.setNumberOfColumns(1000);
+        model.setNumberOfRows(1000);
+
+        model.setState(10, 10, States.FILLED);
+        model.setState(20, 20, States.FILLED);
+        model.setState(500, 500, States.BLOCKED);
+
+        assertThat(model.getNumberOfChunks()).isEqualTo(2);
+        assertThat(model.getNumberOfNonDefaultCells()).isEqualTo(3);
+        assertThat(model.getState(10, 10)).isEqualTo(States.FILLED);
+        assertThat(model.getState(11, 10)).isEqualTo(States.EMPTY);
+        assertThat(model.getState(500, 500)).isEqualTo(States.BLOCKED);
+
+        model.setState(10, 10, States.EMPTY);
+        assertThat(model.getNumberOfChunks()).isEqualTo(2);
+
+        model.setState(20, 20, States.EMPTY);
+        model.setState(500, 500, States.EMPTY);
+        assertThat(model.getNumberOfChunks()).isEqualTo(0);
+        assertThat(model.getNumberOfNonDefaultCells()).isEqualTo(0);
+    }
+
+    @Test
+    public void testManyChunks(){
+        model.setNumberOfColumns(10000);
+        model.setNumberOfRows(10000);
+
+        States[][] expected = new States[100][100];
+        Random random = new Random(42);
+
+        for (int i = 0; i < 5000; i++) {
+            final int column = random.nextInt(100);
+            final int row = random.nextInt(100);
+            final States state = States.values()[random.nextInt(3)];
+
+            model.setState(column * 97, row * 97, state);
+            expected[column][row] = state;
+        }
+
+        long nonDefault = 0;
+        for (int column = 0; column < 100; column++) {
+            for (int row = 0; row < 100; row++) {
+                final States state = expected[column][row] == null ? States.EMPTY : expected[column][row];
+                assertThat(model.getState(column * 97, row * 97)).isEqualTo(state);
+                if (state != States.EMPTY) {
+                    nonDefault++;
+                }
+            }
+        }
+
+        assertThat(model.getNumberOfNonDefaultCells()).isEqualTo(nonDefault);
+
+        for (int column = 0; column < 100; column++) {
+            for (int row = 0; row < 100; row++) {
+                model.setState(column * 97, row * 97, States.EMPTY);
+            }
+        }
+
+        assertThat(model.getNumberOfChunks()).isEqualTo(0);
+    }
+
+    @Test
+    public void testCellsOutsideOfTheGridAreRemovedWhenShrinking(){
+        model.setNumberOfColumns(200);
+        model.setNumberOfRows(200);
+
+        model.setState(10, 10, States.FILLED);
+        model.setState(150, 10, States.FILLED);
+        model.setState(70, 10, States.FILLED);
+
+        model.setNumberOfColumns(100);
+        assertThat(model.getNumberOfChunks()).isEqualTo(2);
+        assertThat(model.getNumberOfNonDefaultCells()).isEqualTo(2);
+
+        model.setNumberOfColumns(200);
+        assertThat(model.getState(10, 10)).isEqualTo(States.FILLED);
+        assertThat(model.getState(70, 10)).isEqualTo(States.FILLED);
+        assertThat(model.getState(150, 10)).isEqualTo(States.EMPTY);
+
+        model.setNumberOfColumns(50);
+        assertThat(model.getNumberOfChunks()).isEqualTo(1);
+    }
+
+    @Test
+    public void testChangeDefaultState(){
+        model.setNumberOfColumns(100);
+        model.setNumberOfRows(100);
+
+        model.setState(1, 1, States.FILLED);
+        model.setState(2, 2, States.BLOCKED);
+
+        Cell<States> cell = model.getCell(3, 3);
+
+        model.setDefaultState(States.FILLED);
+
+        assertThat(model.getState(0, 0)).isEqualTo(States.FILLED);
+        assertThat(model.getState(1, 1)).isEqualTo(States.FILLED);
+        assertThat(model.getState(2, 2)).isEqualTo(States.BLOCKED);
+        assertThat(cell.stateProperty()).hasValue(States.FILLED);
+
+        assertThat(model.getNumberOfNonDefaultCells()).isEqualTo(1);
+    }
+
+    @Test
+    public void testCellsAreViewsOnTheStates(){
+        model.setNumberOfColumns(100);
+        model.setNumberOfRows(100);
+
+        Cell<States> cell = model.getCell(70, 70);
+        assertThat(model.getCell(70, 70)).isSameAs(cell);
+        assertThat(model.getNumberOfChunks()).isEqualTo(0);
+
+        cell.changeState(States.FILLED);
+        assertThat(model.getState(70, 70)).isEqualTo(States.FILLED);
+
+        model.setState(70, 70, States.BLOCKED);
+        assertThat(cell.stateProperty()).hasValue(States.BLOCKED);
+
+        model.setNumberOfColumns(50);
+        assertThat(model.getCell(70, 70)).isNull();
+        assertThat(model.getNumberOfMaterializedCells()).isEqualTo(0);
+
+        model.releaseCells();
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testOutOfBounds(){
+        model.setNumberOfColumns(10);
+        model.setNumberOfRows(10);
+
+        model.getState(10, 0);
+    }
+
+    @Test
+    public void testUpdatesAndConsumersWorkWithoutChunksForDefaultCells(){
+        model.setNumberOfColumns(1000);
+        model.setNumberOfRows(1000);
+
+        final Cell<States> cell = model.getCell(5, 5);
+
+        final List<List<Cell<States>>> notifications = new ArrayList<>();
+        model.addStateChangeListener(notifications::add);
+
+        model.update(() -> {
+            model.setState(5, 5, States.BLOCKED);
+            model.setState(900, 900, States.FILLED);
+            model.setState(900, 900, States.EMPTY);
+        });
+
+        assertThat(cell.stateProperty()).hasValue(States.BLOCKED);
+        assertThat(notifications).hasSize(1);
+        assertThat(notifications.get(0)).containsExactly(cell);
+        assertThat(model.getNumberOfChunks()).isEqualTo(1);
+
+        // the algorithms work on every grid model
+        final Regions<States> regions = new Regions<>(model);
+        assertThat(regions.floodFill(0, 0, States.FILLED)).isEqualTo(1000 * 1000 - 1);
+        assertThat(model.getNumberOfNonDefaultCells()).isEqualTo(1000 * 1000);
+    }
+}
@@ -0,0 +1,133 @@
+package eu.lestard.grid;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class StateChangeQueueTest {
+
+    public static enum States {
+        EMPTY,
+        FILLED,
+        BLOCKED
+    }
+
+    private GridModel<States> model;
+
+    /**
+     * The tasks that would be executed on the JavaFX thread. They are run manually by the tests.
+     */
+    private ConcurrentLinkedQueue<Runnable> fxTasks;
+
+    private List<List<Cell<States>>> notifications;
+
+    @Before
+    public void setup(){
+        model = new GridModel<>();
+        model.setDefaultState(States.EMPTY);
+        model.setNumberOfColumns(10);
+        model.setNumberOfRows(10);
+
+        fxTasks = new ConcurrentLinkedQueue<>();
+
+        notifications = new ArrayList<>();
+        model.addStateChangeListener(notifications::add);
+    }
+
+    @Test
+    public void testLastWriterWins(){
+        StateChangeQueue<States> queue = new StateChangeQueue<>(model, 100, fxTasks::add);
+
+        queue.changeState(1, 1, States.FILLED);
+        queue.changeState(1, 1, States.BLOCKED);
+        queue.changeState(2, 1, States.FILLED);
+
+        assertThat(queue.getNumberOfPendingChanges()).isEqualTo(2);
+        assertThat(fxTasks).hasSize(1);
+
+        // nothing is changed until the task runs
+        assertThat(model.getCell(1, 1).getState()).isEqualTo(States.EMPTY);
+
+        runFxTasks();
+
+        assertThat(model.getCell(1, 1).getState()).isEqualTo(States.BLOCKED);
+        assertThat(model.getCell(2, 1).getState()).isEqualTo(States.FILLED);
+
+        assertThat(notifications).hasSize(1);
+        assertThat(queue.getNumberOfPendingChanges()).isEqualTo(0);
+    }
+
+    @Test
+    public void testChangesAreAppliedInBatches(){
+        StateChangeQueue<States> queue = new StateChangeQueue<>(model, 30, fxTasks::add);
+
+        model.getCells().forEach(cell -> queue.changeState(cell, States.FILLED));
+
+        runFxTasks();
+
+        assertThat(notifications).hasSize(4);
+        assertThat(notifications.get(0)).hasSize(30);
+        assertThat(notifications.get(3)).hasSize(10);
+
+        assertThat(model.countCellsWithState(States.FILLED)).isEqualTo(100);
+    }
+
+    @Test
+    public void testChangesFromManyThreads() throws Exception {
+        StateChangeQueue<States> queue = new StateChangeQueue<>(model, 1000, fxTasks::add);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch done = new CountDownLatch(4);
+
+        for (int thread = 0; thread < 4; thread++) {
+            final int firstRow = thread * 2;
+            executor.execute(() -> {
+                for (int i = 0; i < 100; i++) {
+                    for (int column = 0; column < 10; column++) {
+                        queue.changeState(column, firstRow, i % 2 == 0 ? States.FILLED : States.BLOCKED);
+                        queue.changeState(column, firstRow + 1, States.FILLED);
+                    }
+                }
+                done.countDown();
+            });
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+
+        runFxTasks();
+
+        // the last change of the first row of every thread was BLOCKED
+        assertThat(model.countCellsWithState(States.BLOCKED)).isEqualTo(40);
+        assertThat(model.countCellsWithState(States.FILLED)).isEqualTo(40);
+        assertThat(queue.getNumberOfPendingChanges()).isEqualTo(0);
+    }
+
+    @Test
+    public void testChangesOfRemovedCellsAreIgnored(){
+        StateChangeQueue<States> queue = new StateChangeQueue<>(model, 100, fxTasks::add);
+
+        queue.changeState(9, 9, States.FILLED);
+        model.setNumberOfColumns(5);
+
+        runFxTasks();
+
+        assertThat(notifications).isEmpty();
+    }
+
+    private void runFxTasks() {
+        Runnable task;
+        while ((task = fxTasks.poll()) != null) {
+            task.run();
+        }
+    }
+}